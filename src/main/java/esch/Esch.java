@@ -1,7 +1,8 @@
 package esch;
 
 import java.util.function.Consumer;
-import sparkle.Sparkle;
+import sparkle.SparklePermutation;
+import sparkle.SparklePermutations;
 import util.ConversionUtil;
 
 public final class Esch {
@@ -36,6 +37,10 @@ public final class Esch {
     private final int CONST_M2;
 
     public Esch(int type){
+        this(type, SparklePermutations.get());
+    }
+
+    public Esch(int type, SparklePermutation permutation){
     switch (type) {
             case 256 -> {
                 ESCH_DIGEST_LEN = 256;
@@ -44,8 +49,8 @@ public final class Esch {
                 SPARKLE_CAPACITY = 256;
                 SPARKLE_STEPS_SLIM = 7;
                 SPARKLE_STEPS_BIG = 11;
-                this.sparkleSlim = Sparkle::sparkle384Slim;
-                this.sparkle = Sparkle::sparkle384;
+                this.sparkleSlim = permutation::sparkle384Slim;
+                this.sparkle = permutation::sparkle384;
             }
             case 384 -> {
                 ESCH_DIGEST_LEN = 384;
@@ -54,8 +59,8 @@ public final class Esch {
                 SPARKLE_CAPACITY = 384;
                 SPARKLE_STEPS_SLIM = 8;
                 SPARKLE_STEPS_BIG = 12;
-                this.sparkleSlim = Sparkle::sparkle512Slim;
-                this.sparkle = Sparkle::sparkle512;
+                this.sparkleSlim = permutation::sparkle512Slim;
+                this.sparkle = permutation::sparkle512;
             }
             default -> throw new RuntimeException("Unknown esch.Esch configuration!");
         }
@@ -108,65 +113,72 @@ public final class Esch {
         }
     }
 
-    void add_msg_blk_last(int[] state, int[] in, int inlen, int inIndex)
-    {
-        int tmpx = 0, tmpy = 0;
-        int i;
-
-        int[] buffer = new int[RATE_WORDS];
-        System.arraycopy(in, inIndex, buffer, 0, in.length - inIndex);
-
-        if (inlen < RATE_BYTES) {
-            buffer[inlen / 4] |= 128 << (8 * (inlen % 4));
-        }
-
-        for(i = 0; i < RATE_WORDS; i += 2) {
-            tmpx ^= buffer[i];
-            tmpy ^= buffer[i+1];
-        }
-        tmpx = ell(tmpx);
-        tmpy = ell(tmpy);
-        for(i = 0; i < RATE_WORDS; i += 2) {
-            state[i] ^= (buffer[i] ^ tmpy);
-            state[i+1] ^= (buffer[i+1] ^ tmpx);
-        }
-        for(i = RATE_WORDS; i < (STATE_WORDS/2); i += 2) {
-            state[i] ^= tmpy;
-            state[i+1] ^= tmpx;
-        }
-    }
-
+    /**
+     * Absorbs the message a block at a time straight from the bytes, so only one block of words is
+     * held besides the state, whatever the length of the message.
+     */
     void processMessage(int[]state, byte[] in)
     {
         int length = in.length;
         int index = 0;
-
-        int[] msgAsInt;
-
-        //Handle empty array
-        if(length > 0) {
-            msgAsInt = ConversionUtil.createIntArrayFromBytes(in, (in.length - 1) / 4 + 1);
-        }
-        else {
-            msgAsInt = new int[0];
-        }
+        int[] block = new int[RATE_WORDS];
 
         while (length > RATE_BYTES) {
-            add_msg_blk(state, msgAsInt, index);
-            sparkleSlim.accept(state);
+            ConversionUtil.bytesToInts(in, index, RATE_BYTES, block);
+            absorbBlock(state, block);
             length -= RATE_BYTES;
-            index += RATE_WORDS;
+            index += RATE_BYTES;
         }
 
+        ConversionUtil.bytesToInts(in, index, length, block);
+        absorbLastBlock(state, block, length);
+    }
+
+    // Block steps of the incremental EschHasher, the block holds RATE_WORDS words.
+
+    void absorbBlock(int[] state, int[] block)
+    {
+        add_msg_blk(state, block, 0);
+        sparkleSlim.accept(state);
+    }
+
+    /**
+     * Absorbs the last block, which has length bytes and zeros after them, and pads it in place.
+     */
+    void absorbLastBlock(int[] state, int[] block, int length)
+    {
         state[STATE_BRANS-1] ^= ((length < RATE_BYTES) ? CONST_M1 : CONST_M2);
-        add_msg_blk_last(state, msgAsInt, length, index);
+        if (length < RATE_BYTES) {
+            block[length / 4] |= 128 << (8 * (length % 4));
+        }
+        add_msg_blk(state, block, 0);
         sparkle.accept(state);
     }
 
+    int stateWords() {
+        return STATE_WORDS;
+    }
+
+    int rateBytes() {
+        return RATE_BYTES;
+    }
+
+    int rateWords() {
+        return RATE_WORDS;
+    }
+
+    public int digestBytes() {
+        return DIGEST_BYTES;
+    }
+
     void finalize(int[] state, byte[] out)
+    {
+        finalize(state, out, 0);
+    }
+
+    void finalize(int[] state, byte[] out, int outIndex)
     {
         int outlen;
-        int outIndex = 0;
 
 
 
@@ -181,6 +193,15 @@ public final class Esch {
         }
     }
 
+    /**
+     * Starts an incremental hash, see {@link EschHasher}.
+     *
+     * @return a hasher for this configuration
+     */
+    public EschHasher hasher() {
+        return new EschHasher(this);
+    }
+
    public  int crypto_hash(byte[] out, byte[] in)
     {
         int[] state = new int[STATE_WORDS];
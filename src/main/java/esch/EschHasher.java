@@ -0,0 +1,224 @@
+package esch;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import util.ConversionUtil;
+
+/**
+ * Incremental esch.Esch hashing. Input is absorbed a block at a time as it arrives and only the
+ * bytes of the block not yet complete are buffered. A full block is absorbed once more input
+ * arrives after it, since the last block is processed differently. The digest is the same as
+ * {@link Esch#crypto_hash(byte[], byte[])} of all input, and neither update nor digest allocate.
+ */
+public final class EschHasher {
+
+    private final Esch esch;
+    private final int[] state;
+    private final int[] block;
+    private final byte[] pending;
+    private int pendingLength;
+
+    public EschHasher(int type) {
+        this(new Esch(type));
+    }
+
+    public EschHasher(Esch esch) {
+        this.esch = esch;
+        this.state = new int[esch.stateWords()];
+        this.block = new int[esch.rateWords()];
+        this.pending = new byte[esch.rateBytes()];
+    }
+
+    private EschHasher(EschHasher other) {
+        this.esch = other.esch;
+        this.state = other.state.clone();
+        this.block = new int[other.block.length];
+        this.pending = other.pending.clone();
+        this.pendingLength = other.pendingLength;
+    }
+
+    public int digestBytes() {
+        return esch.digestBytes();
+    }
+
+    public void update(byte input) {
+        if (pendingLength == pending.length) {
+            absorbPending();
+        }
+        pending[pendingLength++] = input;
+    }
+
+    public void update(byte[] input) {
+        update(input, 0, input.length);
+    }
+
+    public void update(byte[] input, int offset, int length) {
+        int rate = pending.length;
+        if (length > 0 && pendingLength == rate) {
+            absorbPending();
+        }
+        if (pendingLength > 0) {
+            int copy = Math.min(length, rate - pendingLength);
+            System.arraycopy(input, offset, pending, pendingLength, copy);
+            pendingLength += copy;
+            offset += copy;
+            length -= copy;
+            if (length == 0) {
+                return;
+            }
+            absorbPending();
+        }
+        // Whole blocks are read straight from the input, the last one is kept back.
+        while (length > rate) {
+            ConversionUtil.bytesToInts(input, offset, rate, block);
+            esch.absorbBlock(state, block);
+            offset += rate;
+            length -= rate;
+        }
+        System.arraycopy(input, offset, pending, 0, length);
+        pendingLength = length;
+    }
+
+    /**
+     * Hashes the remaining bytes of the buffer, heap or direct, and moves its position to the
+     * limit.
+     *
+     * @param input bytes to hash
+     */
+    public void update(ByteBuffer input) {
+        if (input.hasArray()) {
+            update(input.array(), input.arrayOffset() + input.position(), input.remaining());
+            input.position(input.limit());
+            return;
+        }
+        int rate = pending.length;
+        int index = input.position();
+        int length = input.remaining();
+        if (length > 0 && pendingLength == rate) {
+            absorbPending();
+        }
+        if (pendingLength > 0) {
+            int copy = Math.min(length, rate - pendingLength);
+            input.get(index, pending, pendingLength, copy);
+            pendingLength += copy;
+            index += copy;
+            length -= copy;
+            if (length > 0) {
+                absorbPending();
+            }
+        }
+        if (length > 0) {
+            while (length > rate) {
+                ConversionUtil.bytesToInts(input, index, rate, block);
+                esch.absorbBlock(state, block);
+                index += rate;
+                length -= rate;
+            }
+            input.get(index, pending, 0, length);
+            pendingLength = length;
+        }
+        input.position(input.limit());
+    }
+
+    /**
+     * Writes the digest of all input since the last reset and resets the hasher.
+     *
+     * @param out    buffer for the digest, needs room for {@link #digestBytes()} bytes
+     * @param offset offset of the first digest byte
+     */
+    public void digest(byte[] out, int offset) {
+        if (out.length - offset < esch.digestBytes()) {
+            throw new IllegalArgumentException("Digest needs " + esch.digestBytes() + " bytes!");
+        }
+        ConversionUtil.bytesToInts(pending, 0, pendingLength, block);
+        esch.absorbLastBlock(state, block, pendingLength);
+        esch.finalize(state, out, offset);
+        reset();
+    }
+
+    public byte[] digest() {
+        byte[] out = new byte[esch.digestBytes()];
+        digest(out, 0);
+        return out;
+    }
+
+    /**
+     * Starts a new hash and clears all intermediate values.
+     */
+    public void reset() {
+        Arrays.fill(state, 0);
+        Arrays.fill(block, 0);
+        Arrays.fill(pending, (byte) 0);
+        pendingLength = 0;
+    }
+
+    /**
+     * Starts a new hash in a domain other than plain esch.Esch. The domain is xored into the last
+     * capacity word of the initial state, which no input reaches, so hashes of different domains
+     * are independent functions.
+     *
+     * @param domain nonzero domain constant
+     */
+    void reset(int domain) {
+        reset();
+        state[state.length - 1] ^= domain;
+    }
+
+    /**
+     * Captures the input absorbed so far, the state and the incomplete block, for example after a
+     * common prefix. Hashing can continue from it with {@link #restore(Snapshot)}.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(state.clone(), Arrays.copyOf(pending, pendingLength),
+            esch.digestBytes());
+    }
+
+    /**
+     * Replaces the input absorbed so far by the one of the snapshot. Only copies the state, no
+     * permutation is run.
+     *
+     * @param snapshot snapshot of a hasher of the same esch.Esch configuration
+     */
+    public void restore(Snapshot snapshot) {
+        if (snapshot.state.length != state.length || snapshot.digestBytes != esch.digestBytes()) {
+            throw new IllegalArgumentException("Snapshot of another esch.Esch configuration!");
+        }
+        System.arraycopy(snapshot.state, 0, state, 0, state.length);
+        Arrays.fill(pending, (byte) 0);
+        System.arraycopy(snapshot.pending, 0, pending, 0, snapshot.pending.length);
+        pendingLength = snapshot.pending.length;
+    }
+
+    /**
+     * Independent hasher with the same input absorbed so far.
+     *
+     * @return the copy
+     */
+    public EschHasher copy() {
+        return new EschHasher(this);
+    }
+
+    /**
+     * Immutable state of a hasher, see {@link #snapshot()}.
+     */
+    public static final class Snapshot {
+
+        private final int[] state;
+        private final byte[] pending;
+        private final int digestBytes;
+
+        private Snapshot(int[] state, byte[] pending, int digestBytes) {
+            this.state = state;
+            this.pending = pending;
+            this.digestBytes = digestBytes;
+        }
+    }
+
+    private void absorbPending() {
+        ConversionUtil.bytesToInts(pending, 0, pending.length, block);
+        esch.absorbBlock(state, block);
+        pendingLength = 0;
+    }
+}
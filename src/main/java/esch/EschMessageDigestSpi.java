@@ -0,0 +1,80 @@
+package esch;
+
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigestSpi;
+
+/**
+ * esch.Esch as a JCA {@link java.security.MessageDigest}, registered by {@link EschProvider}. Every
+ * instance owns an {@link EschHasher}, so update hashes incrementally, also from direct buffers,
+ * and digest into a caller buffer does not allocate. Digests reset themselves and can be reused.
+ */
+public abstract class EschMessageDigestSpi extends MessageDigestSpi implements Cloneable {
+
+    private EschHasher hasher;
+
+    EschMessageDigestSpi(int type) {
+        this.hasher = new EschHasher(type);
+    }
+
+    public static final class Esch256 extends EschMessageDigestSpi {
+
+        public Esch256() {
+            super(256);
+        }
+    }
+
+    public static final class Esch384 extends EschMessageDigestSpi {
+
+        public Esch384() {
+            super(384);
+        }
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return hasher.digestBytes();
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        hasher.update(input);
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        hasher.update(input, offset, len);
+    }
+
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        hasher.update(input);
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        return hasher.digest();
+    }
+
+    @Override
+    protected int engineDigest(byte[] buf, int offset, int len) throws DigestException {
+        int digestBytes = hasher.digestBytes();
+        if (len < digestBytes || buf.length - offset < digestBytes) {
+            throw new DigestException("Digest needs " + digestBytes + " bytes!");
+        }
+        hasher.digest(buf, offset);
+        return digestBytes;
+    }
+
+    @Override
+    protected void engineReset() {
+        hasher.reset();
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        EschMessageDigestSpi copy = (EschMessageDigestSpi) super.clone();
+        copy.hasher = hasher.copy();
+        return copy;
+    }
+}
@@ -0,0 +1,104 @@
+package esch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of hasher snapshots taken after common prefixes, such as protocol headers or
+ * domain separation tags. A hash started from the cache restores the state after its prefix
+ * instead of absorbing the prefix again, which saves one permutation per prefix block. The least
+ * recently used prefixes are evicted once the cache is full. Instances are thread safe.
+ *
+ * <p>The caller chooses the prefix identifiers and has to make sure an identifier always stands
+ * for the same prefix bytes.
+ *
+ * @param <K> type of the prefix identifiers
+ */
+public final class EschPrefixCache<K> {
+
+    private final Esch esch;
+    private final LinkedHashMap<K, EschHasher.Snapshot> snapshots;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param esch     esch.Esch configuration of the hashes
+     * @param capacity number of prefixes to keep
+     */
+    public EschPrefixCache(Esch esch, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache must hold at least one prefix!");
+        }
+        this.esch = esch;
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, EschHasher.Snapshot> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Starts a hash with the prefix already absorbed.
+     *
+     * @param id     identifier of the prefix
+     * @param prefix prefix bytes, only absorbed if the prefix is not cached
+     * @return a new hasher positioned after the prefix
+     */
+    public EschHasher hasher(K id, byte[] prefix) {
+        EschHasher hasher = esch.hasher();
+        start(hasher, id, prefix);
+        return hasher;
+    }
+
+    /**
+     * Resets the hasher to the state after the prefix, so pooled hashers can be reused.
+     *
+     * @param hasher hasher of the configuration of this cache
+     * @param id     identifier of the prefix
+     * @param prefix prefix bytes, only absorbed if the prefix is not cached
+     */
+    public void start(EschHasher hasher, K id, byte[] prefix) {
+        EschHasher.Snapshot snapshot;
+        synchronized (this) {
+            snapshot = snapshots.get(id);
+            if (snapshot != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (snapshot != null) {
+            hasher.restore(snapshot);
+            return;
+        }
+        hasher.reset();
+        hasher.update(prefix);
+        snapshot = hasher.snapshot();
+        synchronized (this) {
+            snapshots.put(id, snapshot);
+        }
+    }
+
+    public synchronized void invalidate(K id) {
+        snapshots.remove(id);
+    }
+
+    public synchronized void clear() {
+        snapshots.clear();
+    }
+
+    public synchronized int size() {
+        return snapshots.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+}
@@ -0,0 +1,20 @@
+package esch;
+
+import java.security.Provider;
+
+/**
+ * JCA provider registering esch.Esch as the {@link java.security.MessageDigest} algorithms Esch256
+ * and Esch384. See {@link EschMessageDigestSpi}.
+ */
+public final class EschProvider extends Provider {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String NAME = "Esch";
+
+    public EschProvider() {
+        super(NAME, "1.0", "esch.Esch hash functions");
+        put("MessageDigest.Esch256", EschMessageDigestSpi.Esch256.class.getName());
+        put("MessageDigest.Esch384", EschMessageDigestSpi.Esch384.class.getName());
+    }
+}
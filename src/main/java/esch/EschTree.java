@@ -0,0 +1,245 @@
+package esch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Tree hash mode of esch.Esch for large inputs. The input is split into chunks of a fixed size,
+ * only the last one may be shorter, and the chunks are hashed in parallel on a ForkJoinPool. Their
+ * chaining values are then combined pairwise, level by level, into a Merkle tree, an odd node at
+ * the end of a level moves up unchanged. The root hash covers the top chaining value, the input
+ * length and the chunk size.
+ *
+ * <p>Leaves, inner nodes and the root are hashed in three domains, each starting from a different
+ * initial state, see {@link EschHasher#reset(int)}. None of them is plain esch.Esch, so a tree
+ * hash never equals the Esch256 or Esch384 digest of any input. The digest depends on the chunk
+ * size, so inputs must be hashed with the same chunk size to be compared.
+ */
+public final class EschTree {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+    // Upper bound of the bytes mapped at once from a file.
+    private static final long WINDOW_BYTES = 1L << 30;
+    private static final int LEAF = 1;
+    private static final int NODE = 2;
+    private static final int ROOT = 3;
+
+    private final Esch esch;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<EschHasher> hashers;
+
+    public EschTree(int type) {
+        this(new Esch(type), DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a tree hash.
+     *
+     * @param esch      esch.Esch configuration hashing the nodes
+     * @param chunkSize number of input bytes per leaf
+     * @param pool      pool hashing the leaves and nodes
+     */
+    public EschTree(Esch esch, int chunkSize, ForkJoinPool pool) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive!");
+        }
+        this.esch = esch;
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+        this.hashers = ThreadLocal.withInitial(esch::hasher);
+    }
+
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    public int digestBytes() {
+        return esch.digestBytes();
+    }
+
+    /**
+     * Number of leaves of an input, an empty input still has one empty leaf.
+     *
+     * @param length number of input bytes
+     * @return number of leaves
+     */
+    public long chunkCount(long length) {
+        return Math.max(1, (length + chunkSize - 1) / chunkSize);
+    }
+
+    public byte[] hash(byte[] in) {
+        int cv = esch.digestBytes();
+        int leaves = (int) chunkCount(in.length);
+        byte[] values = new byte[leaves * cv];
+        forEach(leaves, i -> {
+            int offset = i * chunkSize;
+            leaf(ByteBuffer.wrap(in, offset, Math.min(chunkSize, in.length - offset)), values, i);
+        });
+        return root(values, leaves, in.length);
+    }
+
+    /**
+     * Hashes a file, mapping a window of whole chunks at a time.
+     *
+     * @param file file to hash
+     * @return the digest
+     * @throws IOException if the file cannot be read
+     */
+    public byte[] hash(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long leaves = chunkCount(length);
+            byte[] values = new byte[Math.toIntExact(leaves * esch.digestBytes())];
+            long windowChunks = Math.max(1, WINDOW_BYTES / chunkSize);
+            for (long first = 0; first < leaves; first += windowChunks) {
+                int count = (int) Math.min(windowChunks, leaves - first);
+                long start = first * chunkSize;
+                long size = Math.min(length - start, (long) count * chunkSize);
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+                long firstLeaf = first;
+                forEach(count, i -> {
+                    int offset = i * chunkSize;
+                    int chunk = (int) Math.min(chunkSize, size - offset);
+                    leaf(window.slice(offset, chunk), values, (int) firstLeaf + i);
+                });
+            }
+            return root(values, (int) leaves, length);
+        }
+    }
+
+    /**
+     * Hashes a stream to its end. A batch of chunks is read and hashed in parallel, then the next
+     * batch, so only the batch and the chaining values are held in memory.
+     *
+     * @param in stream to hash, not closed
+     * @return the digest
+     * @throws IOException if the stream cannot be read
+     */
+    public byte[] hash(InputStream in) throws IOException {
+        int cv = esch.digestBytes();
+        int batchChunks = Math.max(1, Math.min(4 * pool.getParallelism(),
+            (int) (WINDOW_BYTES / chunkSize)));
+        byte[] batch = new byte[batchChunks * chunkSize];
+        byte[] values = new byte[16 * cv];
+        int leaves = 0;
+        long length = 0;
+        boolean end = false;
+        while (!end) {
+            int read = in.readNBytes(batch, 0, batch.length);
+            end = read < batch.length;
+            int count = (read + chunkSize - 1) / chunkSize;
+            if (count == 0) {
+                if (leaves > 0) {
+                    break;
+                }
+                count = 1;
+            }
+            if ((leaves + count) * cv > values.length) {
+                values = Arrays.copyOf(values, Math.max(2 * values.length, (leaves + count) * cv));
+            }
+            int firstLeaf = leaves;
+            byte[] chaining = values;
+            forEach(count, i -> {
+                int offset = i * chunkSize;
+                leaf(ByteBuffer.wrap(batch, offset, Math.min(chunkSize, read - offset)), chaining,
+                    firstLeaf + i);
+            });
+            leaves += count;
+            length += read;
+        }
+        return root(values, leaves, length);
+    }
+
+    private void leaf(ByteBuffer chunk, byte[] values, int index) {
+        EschHasher hasher = hashers.get();
+        hasher.reset(LEAF);
+        hasher.update(chunk);
+        hasher.digest(values, index * esch.digestBytes());
+    }
+
+    /**
+     * Combines the chaining values of the leaves level by level and hashes the root.
+     */
+    private byte[] root(byte[] values, int count, long length) {
+        int cv = esch.digestBytes();
+        while (count > 1) {
+            int pairs = count / 2;
+            byte[] level = values;
+            byte[] next = new byte[(pairs + count % 2) * cv];
+            forEach(pairs, i -> {
+                EschHasher hasher = hashers.get();
+                hasher.reset(NODE);
+                hasher.update(level, 2 * i * cv, 2 * cv);
+                hasher.digest(next, i * cv);
+            });
+            if (count % 2 == 1) {
+                System.arraycopy(values, (count - 1) * cv, next, pairs * cv, cv);
+            }
+            values = next;
+            count = pairs + count % 2;
+        }
+        byte[] parameters = new byte[12];
+        for (int i = 0; i < 8; i++) {
+            parameters[i] = (byte) (length >>> (8 * i));
+        }
+        for (int i = 0; i < 4; i++) {
+            parameters[8 + i] = (byte) (chunkSize >>> (8 * i));
+        }
+        EschHasher hasher = hashers.get();
+        hasher.reset(ROOT);
+        hasher.update(values, 0, cv);
+        hasher.update(parameters);
+        return hasher.digest();
+    }
+
+    private void forEach(int count, IndexAction action) {
+        if (count == 1) {
+            action.run(0);
+        } else {
+            pool.invoke(new IndexTask(0, count, action));
+        }
+    }
+
+    private interface IndexAction {
+
+        void run(int index);
+    }
+
+    /**
+     * Runs the action for the indices [from, to), halving the range until single indices remain.
+     */
+    private static final class IndexTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IndexAction action;
+
+        IndexTask(int from, int to, IndexAction action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int index = from; index < to; index++) {
+                    action.run(index);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new IndexTask(from, middle, action), new IndexTask(middle, to, action));
+        }
+    }
+}
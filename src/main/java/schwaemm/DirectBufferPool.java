@@ -0,0 +1,51 @@
+package schwaemm;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Pool of direct buffers shared by the channel wrappers, so opening a channel does not allocate
+ * native memory once buffers of its size have been released before. Buffers are zeroed when they
+ * are released since they held message bytes. Only a few distinct capacities are pooled, buffers
+ * of further capacities are left to the garbage collector, so unusual record sizes cannot pin
+ * native memory.
+ */
+final class DirectBufferPool {
+
+  // Buffers kept per capacity, further released buffers are left to the garbage collector.
+  private static final int MAX_POOLED = 16;
+  // Distinct capacities pooled, enough for a record size and its sealed records of every variant.
+  private static final int MAX_CAPACITIES = 8;
+  private static final byte[] ZEROS = new byte[4096];
+  private static final Map<Integer, Queue<ByteBuffer>> pools = new ConcurrentHashMap<>();
+
+  private DirectBufferPool() {
+  }
+
+  static ByteBuffer acquire(int capacity) {
+    Queue<ByteBuffer> pool = pools.get(capacity);
+    ByteBuffer buffer = pool != null ? pool.poll() : null;
+    return buffer != null ? buffer : ByteBuffer.allocateDirect(capacity);
+  }
+
+  static void release(ByteBuffer buffer) {
+    int capacity = buffer.capacity();
+    buffer.clear();
+    for (int index = 0; index < capacity; index += ZEROS.length) {
+      buffer.put(index, ZEROS, 0, Math.min(ZEROS.length, capacity - index));
+    }
+    Queue<ByteBuffer> pool = pools.get(capacity);
+    if (pool == null) {
+      if (pools.size() >= MAX_CAPACITIES) {
+        return;
+      }
+      pool = pools.computeIfAbsent(capacity, c -> new ConcurrentLinkedQueue<>());
+    }
+    if (pool.size() < MAX_POOLED) {
+      pool.offer(buffer);
+    }
+  }
+}
@@ -1,8 +1,12 @@
 package schwaemm;
 
-import java.util.Arrays;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
-import sparkle.Sparkle;
+import java.util.function.ObjIntConsumer;
+import sparkle.SparkleBatch;
+import sparkle.SparklePermutation;
+import sparkle.SparklePermutations;
 import util.ConversionUtil;
 
 public final class Schwaemm {
@@ -10,6 +14,8 @@ public final class Schwaemm {
   private final int TAG_BYTES;
   private final Consumer<int[]> sparkleSlim;
   private final Consumer<int[]> sparkle;
+  private final ObjIntConsumer<int[]> batchSlim;
+  private final ObjIntConsumer<int[]> batch;
   private final int STATE_WORDS;
   private final int RATE_BYTES;
   private final int RATE_WORDS;
@@ -23,8 +29,13 @@ public final class Schwaemm {
   private final int CAP_WORDS;
 
   private final SchwaemmType type;
+  private final SchwaemmContext context;
 
   public Schwaemm(SchwaemmType type) {
+    this(type, SparklePermutations.get());
+  }
+
+  public Schwaemm(SchwaemmType type, SparklePermutation permutation) {
     int SCHWAEMM_KEY_LEN;
     int SCHWAEMM_NONCE_LEN;
     int SCHWAEMM_TAG_LEN;
@@ -39,8 +50,10 @@ public final class Schwaemm {
         SPARKLE_STATE = 256;
         SPARKLE_RATE = 128;
         SPARKLE_CAPACITY = 128;
-        this.sparkleSlim = Sparkle::sparkle256Slim;
-        this.sparkle = Sparkle::sparkle256;
+        this.sparkleSlim = permutation::sparkle256Slim;
+        this.sparkle = permutation::sparkle256;
+        this.batchSlim = SparkleBatch::sparkle256Slim;
+        this.batch = SparkleBatch::sparkle256;
         this.type = type;
       }
       case S192192 -> {
@@ -50,8 +63,10 @@ public final class Schwaemm {
         SPARKLE_STATE = 384;
         SPARKLE_RATE = 192;
         SPARKLE_CAPACITY = 192;
-        this.sparkleSlim = Sparkle::sparkle384Slim;
-        this.sparkle = Sparkle::sparkle384;
+        this.sparkleSlim = permutation::sparkle384Slim;
+        this.sparkle = permutation::sparkle384;
+        this.batchSlim = SparkleBatch::sparkle384Slim;
+        this.batch = SparkleBatch::sparkle384;
         this.type = type;
       }
       case S256128 -> {
@@ -61,8 +76,10 @@ public final class Schwaemm {
         SPARKLE_STATE = 384;
         SPARKLE_RATE = 256;
         SPARKLE_CAPACITY = 128;
-        this.sparkleSlim = Sparkle::sparkle384Slim;
-        this.sparkle = Sparkle::sparkle384;
+        this.sparkleSlim = permutation::sparkle384Slim;
+        this.sparkle = permutation::sparkle384;
+        this.batchSlim = SparkleBatch::sparkle384Slim;
+        this.batch = SparkleBatch::sparkle384;
         this.type = type;
       }
       case S256256 -> {
@@ -72,8 +89,10 @@ public final class Schwaemm {
         SPARKLE_STATE = 512;
         SPARKLE_RATE = 256;
         SPARKLE_CAPACITY = 256;
-        this.sparkleSlim = Sparkle::sparkle512Slim;
-        this.sparkle = Sparkle::sparkle512;
+        this.sparkleSlim = permutation::sparkle512Slim;
+        this.sparkle = permutation::sparkle512;
+        this.batchSlim = SparkleBatch::sparkle512Slim;
+        this.batch = SparkleBatch::sparkle512;
         this.type = type;
       }
       default -> throw new RuntimeException("Unknown schwaemm.Schwaemm configuration!");
@@ -91,57 +110,68 @@ public final class Schwaemm {
     CONST_A1 = (1 ^ (1 << CAP_BRANS)) << 24;
     CONST_M2 = (2 ^ (1 << CAP_BRANS)) << 24;
     CONST_M3 = (3 ^ (1 << CAP_BRANS)) << 24;
+    context = new SchwaemmContext(this);
   }
 
   public byte[] decryptAndVerify(byte[] cipher, byte[] assoData, byte[] key, byte[] nonce) {
-    int[] state = new int[STATE_WORDS];
-    int cipherTextLength = cipher.length - TAG_BYTES;
-    initialize(state, key, nonce);
-    byte[] message = new byte[cipherTextLength];
-    if (assoData.length > 0) {
-      associateData(state, assoData);
-    }
-    if (cipherTextLength > 0) {
-      decrypt(state, message, cipher);
-    }
-    finalize(state, key);
-    verifyTag(
-        state,
-        ConversionUtil.createIntArrayFromBytes(
-            Arrays.copyOfRange(cipher, cipherTextLength, cipher.length),
-            type.getVerifyTagLength()));
+    byte[] message = new byte[Math.max(cipher.length - TAG_BYTES, 0)];
+    context().decrypt(cipher, message, assoData, key, nonce);
     return message;
   }
 
-  void decrypt(int[] state, byte[] message, byte[] cipher) {
-    int cipherLength = message.length;
-    int[] cipherAsInt = ConversionUtil.createIntArrayFromBytes(
-        Arrays.copyOfRange(cipher, 0, cipher.length - TAG_BYTES), (message.length - 1) / 4 + 1);
-    int index = 0;
-    int messageIndex = 0;
-    while (cipherLength > RATE_BYTES) {
-      int[] messageInt = new int[type.getCipherLength()];
-      rhoWhiDec(state, cipherAsInt, index, messageInt, 0);
-      sparkleSlim.accept(state);
-      ConversionUtil.populateByteArrayFromInts(messageInt, message, 0, messageInt.length * 8,
-          messageIndex);
-      cipherLength -= RATE_BYTES;
-      index += RATE_BYTES / 4;
-      messageIndex += RATE_BYTES;
-    }
+  public byte[] decryptAndVerify(byte[] cipher, byte[] assoData, SchwaemmKey key, byte[] nonce) {
+    byte[] message = new byte[Math.max(cipher.length - TAG_BYTES, 0)];
+    context().decrypt(cipher, message, assoData, key, nonce);
+    return message;
+  }
 
-    state[STATE_WORDS - 1] ^= ((cipherLength < RATE_BYTES) ? CONST_M2 : CONST_M3);
+  /**
+   * Decrypts and verifies without throwing on a forged cipher, see
+   * {@link SchwaemmContext#tryDecrypt(byte[], int, int, byte[], int, byte[], byte[], byte[])}.
+   *
+   * @param cipher   cipher and tag
+   * @param message  buffer for the message, zeroed if the tag does not match
+   * @param assoData associated data
+   * @param key      key
+   * @param nonce    nonce
+   * @return number of message bytes, or -1 if the tag could not be verified
+   */
+  public int tryDecrypt(byte[] cipher, byte[] message, byte[] assoData, byte[] key,
+      byte[] nonce) {
+    return context().tryDecrypt(cipher, 0, cipher.length, message, 0, assoData, key, nonce);
+  }
 
-    rhoWhiDecLast(state, cipherAsInt, index, cipherLength,
-        message, messageIndex);
-    sparkle.accept(state);
+  public int tryDecrypt(byte[] cipher, byte[] message, byte[] assoData, SchwaemmKey key,
+      byte[] nonce) {
+    return context().tryDecrypt(cipher, 0, cipher.length, message, 0, assoData, key, nonce);
   }
 
-  private void rhoWhiDecLast(int[] state, int[] data, int index, int length, byte[] cipher,
-      int cipherIndex) {
-    int[] buffer = new int[RATE_WORDS];
-    System.arraycopy(data, index, buffer, 0, data.length - index);
+  /**
+   * Passes a message length through, throwing if it marks a cipher whose tag could not be verified.
+   *
+   * @param messageLength message length, negative for a rejected cipher
+   * @return the message length
+   * @throws RuntimeException if the message length is negative
+   */
+  static int verified(int messageLength) {
+    if (messageLength < 0) {
+      throw new RuntimeException("Could not verify tag!");
+    }
+    return messageLength;
+  }
+
+  void decrypt(int[] state, byte[] message, byte[] cipher) {
+    decrypt(state, cipher, 0, message.length, message, 0);
+  }
 
+  /**
+   * Decrypts the last block in place. Words of the block past length must be zero.
+   *
+   * @param state  state
+   * @param buffer block of RATE_WORDS cipher words, holds the message words afterwards
+   * @param length number of cipher bytes in the block
+   */
+  void rhoWhiDecLast(int[] state, int[] buffer, int length) {
     if (length < RATE_BYTES) {
       ConversionUtil.copyLengthBytesFromStateToBuffer(buffer, state, length, RATE_BYTES - length);
       buffer[length / 4] ^= 128 << (8 * (length % 4));
@@ -155,7 +185,6 @@ public final class Schwaemm {
       buffer[i] ^= tmp1;
       buffer[j] ^= tmp2;
     }
-    ConversionUtil.populateByteArrayFromInts(buffer, cipher, 0, length, cipherIndex);
   }
 
   private void rhoWhiDec(int[] state, int[] message, int index, int[] cipher, int cipherIndex) {
@@ -171,30 +200,38 @@ public final class Schwaemm {
     }
   }
 
+  /**
+   * Compares the tag in the state with the tag bytes in constant time.
+   *
+   * @param state  finalized state
+   * @param bytes  bytes holding the tag
+   * @param offset offset of the tag in bytes
+   * @return true if the tags are equal
+   */
+  boolean checkTag(int[] state, byte[] bytes, int offset) {
+    int diff = 0;
+    for (int i = 0; i < (TAG_BYTES / 4); i++) {
+      diff |= state[RATE_WORDS + i] ^ ConversionUtil.bytesToIntSafe(bytes, offset + 4 * i, 4);
+    }
+    return diff == 0;
+  }
+
   void verifyTag(int[] state, int[] tag) {
     int diff = 0;
     for (int i = 0; i < (TAG_BYTES / 4); i++) {
       diff |= state[RATE_WORDS + i] ^ tag[i];
     }
-    if (diff != 0) {
-      throw new RuntimeException("Could not verify tag!");
-    }
+    verified(diff == 0 ? 0 : -1);
   }
 
   public void encryptAndTag(byte[] message, byte[] cipher, byte[] assoData, byte[] key,
       byte[] nonce) {
-    int[] state = new int[STATE_WORDS];
-    initialize(state, key, nonce);
-    if (assoData.length > 0) {
-      associateData(state, assoData);
-    }
-    if (message.length > 0) {
-      encrypt(state, message, cipher);
-    }
-    int[] intKey = ConversionUtil.createIntArrayFromBytes(key, KEY_BYTES / 4);
+    context().encrypt(message, cipher, assoData, key, nonce);
+  }
 
-    finalize(state, intKey);
-    generateTag(state, cipher, message.length);
+  public void encryptAndTag(byte[] message, byte[] cipher, byte[] assoData, SchwaemmKey key,
+      byte[] nonce) {
+    context().encrypt(message, cipher, assoData, key, nonce);
   }
 
   void generateTag(int[] state, byte[] cipher, int messageLength) {
@@ -213,27 +250,7 @@ public final class Schwaemm {
   }
 
   void encrypt(int[] state, byte[] message, byte[] cipherBytes) {
-    int msgLength = message.length;
-    int[] msgAsInt = ConversionUtil.createIntArrayFromBytes(message, (message.length - 1) / 4 + 1);
-    int index = 0;
-    int cipherIndex = 0;
-    while (msgLength > RATE_BYTES) {
-      int[] cipher = new int[type.getCipherLength()];
-      rhoWhiEnc(state, msgAsInt, index, cipher, 0);
-      sparkleSlim.accept(state);
-      ConversionUtil.populateByteArrayFromInts(cipher, cipherBytes, 0, cipher.length * 8,
-          cipherIndex);
-      msgLength -= RATE_BYTES;
-      index += RATE_BYTES / 4;
-      cipherIndex += RATE_BYTES;
-
-    }
-
-    state[STATE_WORDS - 1] ^= msgLength < RATE_BYTES ? CONST_M2 : CONST_M3;
-
-    rhoWhiEncLast(state, msgAsInt, index, msgLength,
-        cipherBytes, cipherIndex);
-    sparkle.accept(state);
+    encrypt(state, message, 0, message.length, cipherBytes, 0);
   }
 
   private void rhoWhiEnc(int[] state, int[] message, int index, int[] cipher, int cipherIndex) {
@@ -249,10 +266,14 @@ public final class Schwaemm {
     }
   }
 
-  private void rhoWhiEncLast(int[] state, int[] data, int index, int length, byte[] cipher,
-      int cipherIndex) {
-    int[] buffer = new int[RATE_WORDS];
-    System.arraycopy(data, index, buffer, 0, data.length - index);
+  /**
+   * Encrypts the last block in place. Words of the block past length must be zero.
+   *
+   * @param state  state
+   * @param buffer block of RATE_WORDS message words, holds the cipher words afterwards
+   * @param length number of message bytes in the block
+   */
+  void rhoWhiEncLast(int[] state, int[] buffer, int length) {
     if (length < RATE_BYTES) {
       buffer[length / 4] |= 128 << (8 * (length % 4));
     }
@@ -265,7 +286,6 @@ public final class Schwaemm {
       buffer[i] ^= tmp1;
       buffer[j] ^= tmp2;
     }
-    ConversionUtil.populateByteArrayFromInts(buffer, cipher, 0, length, cipherIndex);
   }
 
   /**
@@ -275,20 +295,7 @@ public final class Schwaemm {
    * @param data  data to be absorbed
    */
   void associateData(int[] state, byte[] data) {
-    int dataSize = data.length;
-    int[] dataAsInt = ConversionUtil.createIntArrayFromBytes(data, (data.length - 1) / 4 + 1);
-    int index = 0;
-    while (dataSize > RATE_BYTES) {
-      rhoWhiAut(state, dataAsInt, index);
-      sparkleSlim.accept(state);
-      dataSize -= RATE_BYTES;
-      index += RATE_BYTES / 4;
-    }
-
-    // LAST BLOCK
-    state[STATE_WORDS - 1] ^= dataSize < RATE_BYTES ? CONST_A0 : CONST_A1;
-    rhoWhiAutLast(state, dataAsInt, index, dataSize);
-    sparkle.accept(state);
+    associateData(state, data, 0, data.length);
   }
 
   private void rhoWhiAut(int[] state, int[] data, int startPos) {
@@ -306,27 +313,574 @@ public final class Schwaemm {
     return i;
   }
 
-  private void rhoWhiAutLast(int[] state, int[] data, int index, int length) {
-    int[] buffer = new int[RATE_WORDS];
-
-    System.arraycopy(data, index, buffer, 0, data.length - index);
-
+  /**
+   * Absorbs the last block of associated data. Words of the block past length must be zero.
+   *
+   * @param state  state
+   * @param buffer block of RATE_WORDS words, padded in place
+   * @param length number of data bytes in the block
+   */
+  void rhoWhiAutLast(int[] state, int[] buffer, int length) {
     if (length < RATE_BYTES) {
       buffer[length / 4] |= 128 << (8 * (length % 4));
     }
+    rhoWhiAut(state, buffer, 0);
+  }
+
+  void initialize(int[] state, byte[] key, byte[] nonce) {
+    initialize(state, keyToInts(key), nonce);
+  }
+
+  /**
+   * Encrypts the remaining bytes of src and writes the cipher followed by the tag to dst. Heap and
+   * direct buffers are read and written in place, in any byte order. The positions of src, dst and
+   * assoData are advanced past the bytes used.
+   *
+   * @param src      message
+   * @param dst      buffer for cipher and tag
+   * @param assoData associated data, may be null
+   * @param key      key
+   * @param nonce    nonce
+   * @return number of bytes written to dst
+   * @throws BufferOverflowException if dst has less room than the message plus the tag
+   */
+  public int encrypt(ByteBuffer src, ByteBuffer dst, ByteBuffer assoData, byte[] key,
+      byte[] nonce) {
+    return encrypt(src, dst, assoData, keyToInts(key), nonce, new int[STATE_WORDS],
+        new int[RATE_WORDS]);
+  }
+
+  public int encrypt(ByteBuffer src, ByteBuffer dst, ByteBuffer assoData, SchwaemmKey key,
+      byte[] nonce) {
+    return encrypt(src, dst, assoData, key.words(type), nonce, new int[STATE_WORDS],
+        new int[RATE_WORDS]);
+  }
+
+  /**
+   * ByteBuffer encryption on caller owned scratch arrays that can be reused across calls.
+   *
+   * @param state scratch of STATE_WORDS words
+   * @param block scratch of RATE_WORDS words
+   */
+  int encrypt(ByteBuffer src, ByteBuffer dst, ByteBuffer assoData, int[] key, byte[] nonce,
+      int[] state, int[] block) {
+    int length = src.remaining();
+    if (dst.remaining() < length + TAG_BYTES) {
+      throw new BufferOverflowException();
+    }
+    initialize(state, key, nonce);
+    if (assoData != null && assoData.hasRemaining()) {
+      associateData(state, assoData, block);
+    }
+    int in = src.position();
+    int out = dst.position();
+    if (length > 0) {
+      while (length > RATE_BYTES) {
+        ConversionUtil.bytesToInts(src, in, RATE_BYTES, block);
+        encryptBlock(state, block);
+        ConversionUtil.intsToBytes(block, 0, dst, out, RATE_BYTES);
+        length -= RATE_BYTES;
+        in += RATE_BYTES;
+        out += RATE_BYTES;
+      }
+      ConversionUtil.bytesToInts(src, in, length, block);
+      encryptLastBlock(state, block, length);
+      ConversionUtil.intsToBytes(block, 0, dst, out, length);
+      in += length;
+      out += length;
+    }
+    finalize(state, key);
+    ConversionUtil.intsToBytes(state, RATE_WORDS, dst, out, TAG_BYTES);
+    out += TAG_BYTES;
+    int written = out - dst.position();
+    src.position(in);
+    dst.position(out);
+    return written;
+  }
+
+  /**
+   * Decrypts the remaining bytes of src, which hold the cipher followed by the tag, and writes the
+   * message to dst. Heap and direct buffers are read and written in place, in any byte order. On
+   * success the positions of src, dst and assoData are advanced past the bytes used. If the tag
+   * does not match, the bytes written to dst are zeroed and no position is moved.
+   *
+   * @param src      cipher and tag
+   * @param dst      buffer for the message
+   * @param assoData associated data, may be null
+   * @param key      key
+   * @param nonce    nonce
+   * @return number of bytes written to dst
+   * @throws BufferOverflowException if dst has less room than the message
+   * @throws RuntimeException        if the tag could not be verified
+   */
+  public int decrypt(ByteBuffer src, ByteBuffer dst, ByteBuffer assoData, byte[] key,
+      byte[] nonce) {
+    return verified(tryDecrypt(src, dst, assoData, keyToInts(key), nonce,
+        new int[STATE_WORDS], new int[RATE_WORDS]));
+  }
+
+  public int decrypt(ByteBuffer src, ByteBuffer dst, ByteBuffer assoData, SchwaemmKey key,
+      byte[] nonce) {
+    return verified(tryDecrypt(src, dst, assoData, key.words(type), nonce,
+        new int[STATE_WORDS], new int[RATE_WORDS]));
+  }
+
+  /**
+   * Same as {@link #decrypt(ByteBuffer, ByteBuffer, ByteBuffer, byte[], byte[])}, but returns -1
+   * instead of throwing when the tag does not match.
+   *
+   * @param src      cipher and tag
+   * @param dst      buffer for the message
+   * @param assoData associated data, may be null
+   * @param key      key
+   * @param nonce    nonce
+   * @return number of bytes written to dst, or -1 if the tag could not be verified
+   * @throws BufferOverflowException if dst has less room than the message
+   */
+  public int tryDecrypt(ByteBuffer src, ByteBuffer dst, ByteBuffer assoData, byte[] key,
+      byte[] nonce) {
+    return tryDecrypt(src, dst, assoData, keyToInts(key), nonce, new int[STATE_WORDS],
+        new int[RATE_WORDS]);
+  }
+
+  public int tryDecrypt(ByteBuffer src, ByteBuffer dst, ByteBuffer assoData, SchwaemmKey key,
+      byte[] nonce) {
+    return tryDecrypt(src, dst, assoData, key.words(type), nonce, new int[STATE_WORDS],
+        new int[RATE_WORDS]);
+  }
+
+  /**
+   * ByteBuffer decryption on caller owned scratch arrays that can be reused across calls.
+   *
+   * @param state scratch of STATE_WORDS words
+   * @param block scratch of RATE_WORDS words
+   */
+  int tryDecrypt(ByteBuffer src, ByteBuffer dst, ByteBuffer assoData, int[] key, byte[] nonce,
+      int[] state, int[] block) {
+    int length = src.remaining() - TAG_BYTES;
+    if (length < 0) {
+      return -1;
+    }
+    if (dst.remaining() < length) {
+      throw new BufferOverflowException();
+    }
+    initialize(state, key, nonce);
+    int assoDataPosition = assoData == null ? 0 : assoData.position();
+    if (assoData != null && assoData.hasRemaining()) {
+      associateData(state, assoData, block);
+    }
+    int in = src.position();
+    int out = dst.position();
+    int messageLength = length;
+    if (length > 0) {
+      while (length > RATE_BYTES) {
+        ConversionUtil.bytesToInts(src, in, RATE_BYTES, block);
+        decryptBlock(state, block);
+        ConversionUtil.intsToBytes(block, 0, dst, out, RATE_BYTES);
+        length -= RATE_BYTES;
+        in += RATE_BYTES;
+        out += RATE_BYTES;
+      }
+      ConversionUtil.bytesToInts(src, in, length, block);
+      decryptLastBlock(state, block, length);
+      ConversionUtil.intsToBytes(block, 0, dst, out, length);
+      in += length;
+      out += length;
+    }
+    finalize(state, key);
+    int diff = 0;
+    for (int i = 0; i < (TAG_BYTES / 4); i++) {
+      diff |= state[RATE_WORDS + i] ^ ConversionUtil.getIntLittleEndian(src, in + 4 * i);
+    }
+    if (diff != 0) {
+      for (int i = dst.position(); i < out; i++) {
+        dst.put(i, (byte) 0);
+      }
+      if (assoData != null) {
+        assoData.position(assoDataPosition);
+      }
+      return -1;
+    }
+    src.position(in + TAG_BYTES);
+    dst.position(out);
+    return messageLength;
+  }
+
+  private void associateData(int[] state, ByteBuffer data, int[] block) {
+    int index = data.position();
+    int dataSize = data.remaining();
+    while (dataSize > RATE_BYTES) {
+      ConversionUtil.bytesToInts(data, index, RATE_BYTES, block);
+      associateDataBlock(state, block);
+      dataSize -= RATE_BYTES;
+      index += RATE_BYTES;
+    }
+    ConversionUtil.bytesToInts(data, index, dataSize, block);
+    associateDataLastBlock(state, block, dataSize);
+    data.position(index + dataSize);
+  }
+
+  /**
+   * The context of this instance, see {@link SchwaemmContext}.
+   *
+   * @return context running on this instance, shared by all threads
+   */
+  public SchwaemmContext context() {
+    return context;
+  }
+
+  /**
+   * Starts a streaming encryption. See {@link SchwaemmEncryptor}.
+   *
+   * @param key   key
+   * @param nonce nonce
+   * @return encryptor for a single message
+   */
+  public SchwaemmEncryptor encryptor(byte[] key, byte[] nonce) {
+    return new SchwaemmEncryptor(this, keyToInts(key), nonce);
+  }
+
+  public SchwaemmEncryptor encryptor(SchwaemmKey key, byte[] nonce) {
+    return new SchwaemmEncryptor(this, key.words(type).clone(), nonce);
+  }
+
+  /**
+   * Starts a streaming decryption. See {@link SchwaemmDecryptor}.
+   *
+   * @param key   key
+   * @param nonce nonce
+   * @return decryptor for a single message
+   */
+  public SchwaemmDecryptor decryptor(byte[] key, byte[] nonce) {
+    return new SchwaemmDecryptor(this, keyToInts(key), nonce);
+  }
+
+  public SchwaemmDecryptor decryptor(SchwaemmKey key, byte[] nonce) {
+    return new SchwaemmDecryptor(this, key.words(type).clone(), nonce);
+  }
+
+  /**
+   * Encrypts many messages under one key, advancing all sponge states together so that their
+   * permutations run side by side. See {@link SchwaemmBatch}. Cipher and tag of message k are
+   * written to arena[offsets[k], offsets[k + 1]).
+   *
+   * @param messages    messages
+   * @param assoData    associated data of each message
+   * @param nonces      nonce of each message
+   * @param key         key of all messages
+   * @param arena       buffer for all ciphers and tags
+   * @param arenaOffset offset of the first cipher byte
+   * @param offsets     receives the start of each cipher, needs messages.length + 1 entries
+   * @return number of bytes written to arena
+   * @throws IllegalArgumentException if the arrays do not match or arena is too small
+   */
+  public int encryptBatch(byte[][] messages, byte[][] assoData, byte[][] nonces, SchwaemmKey key,
+      byte[] arena, int arenaOffset, int[] offsets) {
+    return new SchwaemmBatch(this, messages.length)
+        .encrypt(messages, assoData, nonces, key.words(type), arena, arenaOffset, offsets);
+  }
+
+  /**
+   * Decrypts and verifies many ciphers, each followed by its tag, under one key. See
+   * {@link SchwaemmBatch}. Message k is written to arena[offsets[k], offsets[k + 1]). A message
+   * whose tag does not match is zeroed and marked as not verified, the others are unaffected.
+   *
+   * @param ciphers     ciphers followed by their tags
+   * @param assoData    associated data of each cipher
+   * @param nonces      nonce of each cipher
+   * @param key         key of all ciphers
+   * @param arena       buffer for all messages
+   * @param arenaOffset offset of the first message byte
+   * @param offsets     receives the start of each message, needs ciphers.length + 1 entries
+   * @param verified    receives whether the tag of each cipher matched
+   * @return number of verified ciphers
+   * @throws IllegalArgumentException if the arrays do not match or arena is too small
+   */
+  public int decryptBatch(byte[][] ciphers, byte[][] assoData, byte[][] nonces, SchwaemmKey key,
+      byte[] arena, int arenaOffset, int[] offsets, boolean[] verified) {
+    return new SchwaemmBatch(this, ciphers.length).decrypt(ciphers, assoData, nonces,
+        key.words(type), arena, arenaOffset, offsets, verified);
+  }
+
+  SchwaemmType type() {
+    return type;
+  }
+
+  int stateWords() {
+    return STATE_WORDS;
+  }
+
+  int rateBytes() {
+    return RATE_BYTES;
+  }
+
+  int rateWords() {
+    return RATE_WORDS;
+  }
+
+  int tagBytes() {
+    return TAG_BYTES;
+  }
+
+  // Single block steps used by the streaming API. Every block holds RATE_WORDS words and is
+  // transformed in place.
+
+  void associateDataBlock(int[] state, int[] block) {
+    rhoWhiAut(state, block, 0);
+    sparkleSlim.accept(state);
+  }
+
+  void associateDataLastBlock(int[] state, int[] block, int length) {
+    state[STATE_WORDS - 1] ^= length < RATE_BYTES ? CONST_A0 : CONST_A1;
+    rhoWhiAutLast(state, block, length);
+    sparkle.accept(state);
+  }
+
+  void encryptBlock(int[] state, int[] block) {
+    rhoWhiEnc(state, block, 0, block, 0);
+    sparkleSlim.accept(state);
+  }
+
+  void encryptLastBlock(int[] state, int[] block, int length) {
+    state[STATE_WORDS - 1] ^= length < RATE_BYTES ? CONST_M2 : CONST_M3;
+    rhoWhiEncLast(state, block, length);
+    sparkle.accept(state);
+  }
+
+  void decryptBlock(int[] state, int[] block) {
+    rhoWhiDec(state, block, 0, block, 0);
+    sparkleSlim.accept(state);
+  }
+
+  void decryptLastBlock(int[] state, int[] block, int length) {
+    state[STATE_WORDS - 1] ^= length < RATE_BYTES ? CONST_M2 : CONST_M3;
+    rhoWhiDecLast(state, block, length);
+    sparkle.accept(state);
+  }
+
+  // Allocation free variants of the stages, working on caller owned state and key words.
+
+  int keyWords() {
+    return KEY_WORDS;
+  }
+
+  void keyToInts(byte[] key, int[] keyWords) {
+    ConversionUtil.bytesToInts(key, 0, KEY_BYTES, keyWords);
+  }
+
+  private int[] keyToInts(byte[] key) {
+    int[] keyWords = new int[KEY_WORDS];
+    keyToInts(key, keyWords);
+    return keyWords;
+  }
+
+  void initialize(int[] state, int[] key, byte[] nonce) {
+    loadState(state, key, nonce);
+    sparkle.accept(state);
+  }
+
+  void loadState(int[] state, int[] key, byte[] nonce) {
+    ConversionUtil.bytesToInts(nonce, 0, NONCE_BYTES, state);
+    System.arraycopy(key, 0, state, RATE_WORDS, KEY_WORDS);
+  }
+
+  void associateData(int[] state, byte[] data, int offset, int length) {
+    while (length > RATE_BYTES) {
+      rhoWhiAut(state, data, offset);
+      sparkleSlim.accept(state);
+      length -= RATE_BYTES;
+      offset += RATE_BYTES;
+    }
+    state[STATE_WORDS - 1] ^= length < RATE_BYTES ? CONST_A0 : CONST_A1;
+    rhoWhiAutLast(state, data, offset, length);
+    sparkle.accept(state);
+  }
 
+  void encrypt(int[] state, byte[] message, int offset, int length, byte[] cipher,
+      int cipherOffset) {
+    while (length > RATE_BYTES) {
+      rhoWhiEnc(state, message, offset, cipher, cipherOffset);
+      sparkleSlim.accept(state);
+      length -= RATE_BYTES;
+      offset += RATE_BYTES;
+      cipherOffset += RATE_BYTES;
+    }
+    state[STATE_WORDS - 1] ^= length < RATE_BYTES ? CONST_M2 : CONST_M3;
+    rhoWhiEncLast(state, message, offset, length, cipher, cipherOffset);
+    sparkle.accept(state);
+  }
+
+  void decrypt(int[] state, byte[] cipher, int offset, int length, byte[] message,
+      int messageOffset) {
+    while (length > RATE_BYTES) {
+      rhoWhiDec(state, cipher, offset, message, messageOffset);
+      sparkleSlim.accept(state);
+      length -= RATE_BYTES;
+      offset += RATE_BYTES;
+      messageOffset += RATE_BYTES;
+    }
+    state[STATE_WORDS - 1] ^= length < RATE_BYTES ? CONST_M2 : CONST_M3;
+    rhoWhiDecLast(state, cipher, offset, length, message, messageOffset);
+    sparkle.accept(state);
+  }
+
+  // Single block steps without the permutation, used by SchwaemmBatch to permute many states at
+  // once. remaining is the number of bytes left from offset. Each step returns true if the block
+  // was the last one, which is followed by the full permutation instead of the slim one.
+
+  boolean associateDataStep(int[] state, byte[] data, int offset, int remaining) {
+    if (remaining > RATE_BYTES) {
+      rhoWhiAut(state, data, offset);
+      return false;
+    }
+    state[STATE_WORDS - 1] ^= remaining < RATE_BYTES ? CONST_A0 : CONST_A1;
+    rhoWhiAutLast(state, data, offset, remaining);
+    return true;
+  }
+
+  boolean encryptStep(int[] state, byte[] message, int offset, int remaining, byte[] cipher,
+      int cipherOffset) {
+    if (remaining > RATE_BYTES) {
+      rhoWhiEnc(state, message, offset, cipher, cipherOffset);
+      return false;
+    }
+    state[STATE_WORDS - 1] ^= remaining < RATE_BYTES ? CONST_M2 : CONST_M3;
+    rhoWhiEncLast(state, message, offset, remaining, cipher, cipherOffset);
+    return true;
+  }
+
+  boolean decryptStep(int[] state, byte[] cipher, int offset, int remaining, byte[] message,
+      int messageOffset) {
+    if (remaining > RATE_BYTES) {
+      rhoWhiDec(state, cipher, offset, message, messageOffset);
+      return false;
+    }
+    state[STATE_WORDS - 1] ^= remaining < RATE_BYTES ? CONST_M2 : CONST_M3;
+    rhoWhiDecLast(state, cipher, offset, remaining, message, messageOffset);
+    return true;
+  }
+
+  /**
+   * Permutes count states in the structure-of-arrays layout of {@link SparkleBatch}.
+   *
+   * @param states states to permute
+   * @param count  number of states
+   * @param slim   true for the slim permutation
+   */
+  void permuteBatch(int[] states, int count, boolean slim) {
+    (slim ? batchSlim : batch).accept(states, count);
+  }
+
+  // Word direct variants of the rho and whitening functions. Words are loaded from the input bytes
+  // at an offset and the output words are stored straight into the output bytes, so the input is
+  // never copied.
+
+  private void rhoWhiAut(int[] state, byte[] data, int offset) {
     for (int i = 0, j = RATE_WORDS / 2; i < RATE_WORDS / 2; i++, j++) {
       int tmp = state[i];
-      state[i] = state[j] ^ buffer[i] ^ state[RATE_WORDS + i];
-      state[j] ^= tmp ^ buffer[j] ^ state[RATE_WORDS + capIndex(j)];
+      state[i] = state[j] ^ ConversionUtil.getIntLittleEndian(data, offset + 4 * i)
+          ^ state[RATE_WORDS + i];
+      state[j] ^= tmp ^ ConversionUtil.getIntLittleEndian(data, offset + 4 * j)
+          ^ state[RATE_WORDS + capIndex(j)];
     }
   }
 
-  void initialize(int[] state, byte[] key, byte[] nonce) {
-    int[] intNonce = ConversionUtil.createIntArrayFromBytes(nonce, NONCE_BYTES / 4);
-    System.arraycopy(intNonce, 0, state, 0, intNonce.length);
-    int[] intKey = ConversionUtil.createIntArrayFromBytes(key, KEY_BYTES / 4);
-    System.arraycopy(intKey, 0, state, RATE_WORDS, intKey.length);
-    sparkle.accept(state);
+  private void rhoWhiAutLast(int[] state, byte[] data, int offset, int length) {
+    for (int i = 0, j = RATE_WORDS / 2; i < RATE_WORDS / 2; i++, j++) {
+      int tmp = state[i];
+      state[i] = state[j] ^ paddedWord(data, offset, length, i) ^ state[RATE_WORDS + i];
+      state[j] ^= tmp ^ paddedWord(data, offset, length, j) ^ state[RATE_WORDS + capIndex(j)];
+    }
+  }
+
+  private void rhoWhiEnc(int[] state, byte[] message, int offset, byte[] cipher,
+      int cipherOffset) {
+    for (int i = 0, j = RATE_WORDS / 2; i < RATE_WORDS / 2; i++, j++) {
+      int messageI = ConversionUtil.getIntLittleEndian(message, offset + 4 * i);
+      int messageJ = ConversionUtil.getIntLittleEndian(message, offset + 4 * j);
+      int tmp1 = state[i];
+      int tmp2 = state[j];
+      state[i] = state[j] ^ messageI ^ state[RATE_WORDS + i];
+      state[j] ^= tmp1 ^ messageJ ^ state[RATE_WORDS + capIndex(j)];
+      ConversionUtil.putIntLittleEndian(cipher, cipherOffset + 4 * i, messageI ^ tmp1);
+      ConversionUtil.putIntLittleEndian(cipher, cipherOffset + 4 * j, messageJ ^ tmp2);
+    }
+  }
+
+  private void rhoWhiEncLast(int[] state, byte[] message, int offset, int length, byte[] cipher,
+      int cipherOffset) {
+    for (int i = 0, j = RATE_WORDS / 2; i < RATE_WORDS / 2; i++, j++) {
+      int messageI = paddedWord(message, offset, length, i);
+      int messageJ = paddedWord(message, offset, length, j);
+      int tmp1 = state[i];
+      int tmp2 = state[j];
+      state[i] = state[j] ^ messageI ^ state[RATE_WORDS + i];
+      state[j] ^= tmp1 ^ messageJ ^ state[RATE_WORDS + capIndex(j)];
+      ConversionUtil.putIntLittleEndian(cipher, cipherOffset + 4 * i, messageI ^ tmp1,
+          length - 4 * i);
+      ConversionUtil.putIntLittleEndian(cipher, cipherOffset + 4 * j, messageJ ^ tmp2,
+          length - 4 * j);
+    }
+  }
+
+  private void rhoWhiDec(int[] state, byte[] cipher, int offset, byte[] message,
+      int messageOffset) {
+    for (int i = 0, j = RATE_WORDS / 2; i < RATE_WORDS / 2; i++, j++) {
+      int cipherI = ConversionUtil.getIntLittleEndian(cipher, offset + 4 * i);
+      int cipherJ = ConversionUtil.getIntLittleEndian(cipher, offset + 4 * j);
+      int tmp1 = state[i];
+      int tmp2 = state[j];
+      state[i] ^= state[j] ^ cipherI ^ state[RATE_WORDS + i];
+      state[j] = tmp1 ^ cipherJ ^ state[RATE_WORDS + capIndex(j)];
+      ConversionUtil.putIntLittleEndian(message, messageOffset + 4 * i, cipherI ^ tmp1);
+      ConversionUtil.putIntLittleEndian(message, messageOffset + 4 * j, cipherJ ^ tmp2);
+    }
+  }
+
+  private void rhoWhiDecLast(int[] state, byte[] cipher, int offset, int length, byte[] message,
+      int messageOffset) {
+    for (int i = 0, j = RATE_WORDS / 2; i < RATE_WORDS / 2; i++, j++) {
+      int cipherI = cipherWord(state, cipher, offset, length, i);
+      int cipherJ = cipherWord(state, cipher, offset, length, j);
+      int tmp1 = state[i];
+      int tmp2 = state[j];
+      state[i] ^= state[j] ^ cipherI ^ state[RATE_WORDS + i];
+      state[j] = tmp1 ^ cipherJ ^ state[RATE_WORDS + capIndex(j)];
+      ConversionUtil.putIntLittleEndian(message, messageOffset + 4 * i, cipherI ^ tmp1,
+          length - 4 * i);
+      ConversionUtil.putIntLittleEndian(message, messageOffset + 4 * j, cipherJ ^ tmp2,
+          length - 4 * j);
+    }
+  }
+
+  /**
+   * Word k of a last block of length bytes, padded with 0x80 after the data if the block is not
+   * full.
+   */
+  private int paddedWord(byte[] data, int offset, int length, int k) {
+    int word = ConversionUtil.getIntLittleEndian(data, offset + 4 * k, length - 4 * k);
+    if (length < RATE_BYTES && k == length / 4) {
+      word |= 128 << (8 * (length % 4));
+    }
+    return word;
+  }
+
+  /**
+   * Word k of a last cipher block of length bytes. Bytes past the cipher are taken from the state
+   * word before padding, as in {@link #rhoWhiDecLast(int[], int[], int)}. Only valid while state[k]
+   * has not been updated yet.
+   */
+  private int cipherWord(int[] state, byte[] cipher, int offset, int length, int k) {
+    int remaining = length - 4 * k;
+    if (remaining >= 4) {
+      return ConversionUtil.getIntLittleEndian(cipher, offset + 4 * k);
+    }
+    int keep = remaining <= 0 ? 0 : (1 << (8 * remaining)) - 1;
+    int word = (ConversionUtil.getIntLittleEndian(cipher, offset + 4 * k, remaining) & keep)
+        | (state[k] & ~keep);
+    if (k == length / 4) {
+      word ^= 128 << (8 * (length % 4));
+    }
+    return word;
   }
 }
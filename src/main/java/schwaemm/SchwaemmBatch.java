@@ -0,0 +1,190 @@
+package schwaemm;
+
+import java.util.Arrays;
+import sparkle.SparkleBatch;
+
+/**
+ * Runs schwaemm.Schwaemm over a batch of messages in lockstep. Every round each message that is
+ * not done yet absorbs its next block of associated data or message, then all states waiting for
+ * the slim permutation are permuted together, followed by all states waiting for the full one.
+ * Together means one call to {@link SparkleBatch}, which permutes as many states per instruction
+ * as the vector lanes allow. Messages of similar length therefore share nearly every permutation.
+ */
+final class SchwaemmBatch {
+
+  private final Schwaemm schwaemm;
+  private final int count;
+  private final int[][] states;
+  // Structure-of-arrays copies of the states permuted in one round, and which states they are.
+  private final int[] slimStates;
+  private final int[] fullStates;
+  private final int[] slimMembers;
+  private final int[] fullMembers;
+  private int slimCount;
+  private int fullCount;
+
+  SchwaemmBatch(Schwaemm schwaemm, int count) {
+    this.schwaemm = schwaemm;
+    this.count = count;
+    this.states = new int[count][schwaemm.stateWords()];
+    this.slimStates = new int[schwaemm.stateWords() * count];
+    this.fullStates = new int[schwaemm.stateWords() * count];
+    this.slimMembers = new int[count];
+    this.fullMembers = new int[count];
+  }
+
+  int encrypt(byte[][] messages, byte[][] assoData, byte[][] nonces, int[] key, byte[] arena,
+      int arenaOffset, int[] offsets) {
+    checkBatch(assoData, nonces, offsets);
+    int tagBytes = schwaemm.tagBytes();
+    int end = arenaOffset;
+    for (int k = 0; k < count; k++) {
+      offsets[k] = end;
+      end += messages[k].length + tagBytes;
+    }
+    offsets[count] = end;
+    checkArena(arena, end);
+
+    initialize(nonces, key);
+    absorbAssociatedData(assoData);
+    int[] done = new int[count];
+    do {
+      for (int k = 0; k < count; k++) {
+        int remaining = messages[k].length - done[k];
+        if (remaining > 0) {
+          boolean last = schwaemm.encryptStep(states[k], messages[k], done[k], remaining, arena,
+              offsets[k] + done[k]);
+          done[k] += last ? remaining : schwaemm.rateBytes();
+          schedule(k, last);
+        }
+      }
+    } while (permute());
+    for (int k = 0; k < count; k++) {
+      schwaemm.finalize(states[k], key);
+      schwaemm.generateTag(states[k], arena, offsets[k] + messages[k].length);
+    }
+    wipe();
+    return end - arenaOffset;
+  }
+
+  int decrypt(byte[][] ciphers, byte[][] assoData, byte[][] nonces, int[] key, byte[] arena,
+      int arenaOffset, int[] offsets, boolean[] verified) {
+    checkBatch(assoData, nonces, offsets);
+    if (verified.length < count) {
+      throw new IllegalArgumentException("Batch arrays do not match!");
+    }
+    int tagBytes = schwaemm.tagBytes();
+    int end = arenaOffset;
+    for (int k = 0; k < count; k++) {
+      offsets[k] = end;
+      end += Math.max(ciphers[k].length - tagBytes, 0);
+    }
+    offsets[count] = end;
+    checkArena(arena, end);
+
+    initialize(nonces, key);
+    absorbAssociatedData(assoData);
+    int[] done = new int[count];
+    do {
+      for (int k = 0; k < count; k++) {
+        int remaining = ciphers[k].length - tagBytes - done[k];
+        if (remaining > 0) {
+          boolean last = schwaemm.decryptStep(states[k], ciphers[k], done[k], remaining, arena,
+              offsets[k] + done[k]);
+          done[k] += last ? remaining : schwaemm.rateBytes();
+          schedule(k, last);
+        }
+      }
+    } while (permute());
+    int verifiedCount = 0;
+    for (int k = 0; k < count; k++) {
+      int messageLength = ciphers[k].length - tagBytes;
+      schwaemm.finalize(states[k], key);
+      verified[k] = messageLength >= 0 && schwaemm.checkTag(states[k], ciphers[k], messageLength);
+      if (verified[k]) {
+        verifiedCount++;
+      } else {
+        Arrays.fill(arena, offsets[k], offsets[k + 1], (byte) 0);
+      }
+    }
+    wipe();
+    return verifiedCount;
+  }
+
+  private void checkBatch(byte[][] assoData, byte[][] nonces, int[] offsets) {
+    if (assoData.length != count || nonces.length != count || offsets.length < count + 1) {
+      throw new IllegalArgumentException("Batch arrays do not match!");
+    }
+  }
+
+  private static void checkArena(byte[] arena, int end) {
+    if (end > arena.length) {
+      throw new IllegalArgumentException("Arena too small for the batch!");
+    }
+  }
+
+  private void initialize(byte[][] nonces, int[] key) {
+    for (int k = 0; k < count; k++) {
+      schwaemm.loadState(states[k], key, nonces[k]);
+      schedule(k, true);
+    }
+    permute();
+  }
+
+  private void absorbAssociatedData(byte[][] assoData) {
+    int[] done = new int[count];
+    do {
+      for (int k = 0; k < count; k++) {
+        int remaining = assoData[k].length - done[k];
+        if (remaining > 0) {
+          boolean last = schwaemm.associateDataStep(states[k], assoData[k], done[k], remaining);
+          done[k] += last ? remaining : schwaemm.rateBytes();
+          schedule(k, last);
+        }
+      }
+    } while (permute());
+  }
+
+  private void schedule(int k, boolean full) {
+    if (full) {
+      fullMembers[fullCount++] = k;
+    } else {
+      slimMembers[slimCount++] = k;
+    }
+  }
+
+  /**
+   * Permutes the scheduled states.
+   *
+   * @return true if any state was scheduled
+   */
+  private boolean permute() {
+    boolean any = slimCount + fullCount > 0;
+    permute(slimStates, slimMembers, slimCount, true);
+    permute(fullStates, fullMembers, fullCount, false);
+    slimCount = 0;
+    fullCount = 0;
+    return any;
+  }
+
+  private void permute(int[] block, int[] members, int n, boolean slim) {
+    if (n == 0) {
+      return;
+    }
+    for (int i = 0; i < n; i++) {
+      SparkleBatch.setState(states[members[i]], block, n, i);
+    }
+    schwaemm.permuteBatch(block, n, slim);
+    for (int i = 0; i < n; i++) {
+      SparkleBatch.getState(block, n, i, states[members[i]]);
+    }
+  }
+
+  private void wipe() {
+    for (int[] state : states) {
+      Arrays.fill(state, 0);
+    }
+    Arrays.fill(slimStates, 0);
+    Arrays.fill(fullStates, 0);
+  }
+}
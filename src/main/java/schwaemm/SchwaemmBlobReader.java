@@ -0,0 +1,179 @@
+package schwaemm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Random access to a blob sealed by {@link SchwaemmSegmented}. A read of a message range decrypts
+ * and verifies only the segments covering it, so its cost depends on the range and not on the size
+ * of the blob. The most recently used segments are kept decrypted in a bounded LRU cache, evicted
+ * segments are zeroed.
+ */
+public final class SchwaemmBlobReader {
+
+  private final SchwaemmSegmented format;
+  private final BlobSource source;
+  private final byte[] assoData;
+  private final SchwaemmKey key;
+  private final byte[] nonce;
+  private final long length;
+  private final long segments;
+  private final byte[] sealed;
+  private final byte[] segmentNonce;
+  private final LinkedHashMap<Long, byte[]> cache;
+
+  /**
+   * Reader over a blob held in a buffer, for example a heap array or a mapped file.
+   *
+   * @param format        format the blob was sealed with
+   * @param blob          sealed segments, from index 0 to the limit
+   * @param assoData      associated data
+   * @param key           key
+   * @param nonce         nonce prefix, see {@link SchwaemmSegmented}
+   * @param cacheSegments number of decrypted segments to keep
+   */
+  public SchwaemmBlobReader(SchwaemmSegmented format, ByteBuffer blob, byte[] assoData,
+      SchwaemmKey key, byte[] nonce, int cacheSegments) {
+    this(format, (position, buffer, length) -> blob.get((int) position, buffer, 0, length),
+        blob.limit(), assoData, key, nonce, cacheSegments);
+  }
+
+  /**
+   * Reader over a blob in a file, read with positional reads.
+   *
+   * @param format        format the blob was sealed with
+   * @param channel       channel holding the sealed segments from position 0
+   * @param assoData      associated data
+   * @param key           key
+   * @param nonce         nonce prefix, see {@link SchwaemmSegmented}
+   * @param cacheSegments number of decrypted segments to keep
+   * @throws IOException if the size of the channel cannot be read
+   */
+  public SchwaemmBlobReader(SchwaemmSegmented format, FileChannel channel, byte[] assoData,
+      SchwaemmKey key, byte[] nonce, int cacheSegments) throws IOException {
+    this(format, (position, buffer, length) -> readFully(channel, position, buffer, length),
+        channel.size(), assoData, key, nonce, cacheSegments);
+  }
+
+  private SchwaemmBlobReader(SchwaemmSegmented format, BlobSource source, long blobLength,
+      byte[] assoData, SchwaemmKey key, byte[] nonce, int cacheSegments) {
+    if (cacheSegments <= 0) {
+      throw new IllegalArgumentException("Cache must hold at least one segment!");
+    }
+    this.format = format;
+    this.source = source;
+    this.assoData = assoData.clone();
+    this.key = key;
+    this.nonce = nonce.clone();
+    this.length = format.messageLength(blobLength);
+    if (length < 0) {
+      throw new RuntimeException("Could not verify tag!");
+    }
+    this.segments = format.segmentCount(length);
+    this.sealed = new byte[format.segmentSize() + format.schwaemm().tagBytes()];
+    this.segmentNonce = SchwaemmSegmented.segmentNonceBuffer(format.schwaemm().type(), nonce);
+    this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+        if (size() > cacheSegments) {
+          Arrays.fill(eldest.getValue(), (byte) 0);
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Length of the whole message.
+   *
+   * @return number of message bytes
+   */
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Reads message bytes starting at a position of the message.
+   *
+   * @param position position in the message
+   * @param buffer   buffer for the message bytes
+   * @param offset   offset of the first byte in buffer
+   * @param count    maximum number of bytes to read
+   * @return number of bytes read, or -1 if position is at or past the end
+   * @throws RuntimeException if a segment covering the range could not be verified
+   */
+  public synchronized int read(long position, byte[] buffer, int offset, int count) {
+    if (position < 0) {
+      throw new IndexOutOfBoundsException("Negative position: " + position);
+    }
+    if (position >= length) {
+      return count == 0 ? 0 : -1;
+    }
+    int segmentSize = format.segmentSize();
+    int read = 0;
+    count = (int) Math.min(count, length - position);
+    while (read < count) {
+      long index = position / segmentSize;
+      int within = (int) (position % segmentSize);
+      byte[] segment = segment(index);
+      int copy = Math.min(count - read, segment.length - within);
+      System.arraycopy(segment, within, buffer, offset + read, copy);
+      read += copy;
+      position += copy;
+    }
+    return read;
+  }
+
+  /**
+   * Drops all cached segments and zeroes them.
+   */
+  public synchronized void clearCache() {
+    for (byte[] segment : cache.values()) {
+      Arrays.fill(segment, (byte) 0);
+    }
+    cache.clear();
+  }
+
+  private byte[] segment(long index) {
+    byte[] segment = cache.get(index);
+    if (segment != null) {
+      return segment;
+    }
+    int segmentSize = format.segmentSize();
+    int tagBytes = format.schwaemm().tagBytes();
+    int segmentLength = (int) Math.min(segmentSize, length - index * segmentSize);
+    source.read(index * (segmentSize + tagBytes), sealed, segmentLength + tagBytes);
+    segment = new byte[segmentLength];
+    SchwaemmSegmented.segmentNonce(nonce, index, index == segments - 1, segmentNonce);
+    if (format.schwaemm().context().tryDecrypt(sealed, 0, segmentLength + tagBytes, segment, 0,
+        assoData, key, segmentNonce) < 0) {
+      throw new RuntimeException("Could not verify tag!");
+    }
+    cache.put(index, segment);
+    return segment;
+  }
+
+  private static void readFully(FileChannel channel, long position, byte[] buffer, int length) {
+    ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+    try {
+      while (target.hasRemaining()) {
+        if (channel.read(target, position + target.position()) < 0) {
+          throw new RuntimeException("Could not verify tag!");
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private interface BlobSource {
+
+    void read(long position, byte[] buffer, int length);
+  }
+}
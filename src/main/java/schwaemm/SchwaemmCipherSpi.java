@@ -0,0 +1,429 @@
+package schwaemm;
+
+import java.nio.ByteBuffer;
+import java.security.AlgorithmParameters;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.InvalidParameterSpecException;
+import java.util.Arrays;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.CipherSpi;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+
+/**
+ * schwaemm.Schwaemm as a JCA {@link Cipher}, registered by {@link SchwaemmProvider}. The key is any
+ * raw secret key of the key size of the variant and the nonce is given as {@link IvParameterSpec}.
+ * Encryption without a nonce draws a random one, which {@link Cipher#getIV()} returns.
+ *
+ * <p>Encryption streams through a {@link SchwaemmEncryptor}, so update writes cipher bytes as soon
+ * as whole blocks are known. Decryption buffers the cipher and only writes the message in doFinal,
+ * once the tag has been verified, like GCM does. A doFinal that sees the whole input at once runs
+ * the one-shot ByteBuffer path directly on the caller's buffers, heap or direct, without copying.
+ * After an encryption the cipher has to be initialized again with a new nonce.
+ */
+public abstract class SchwaemmCipherSpi extends CipherSpi {
+
+  // Chunk size for streaming direct buffers through the array based encryptor.
+  private static final int CHUNK_BYTES = 4096;
+
+  private final Schwaemm schwaemm;
+  private final int[] state;
+  private final int[] block;
+  // Last cipher bytes and tag written by the streaming encryptor.
+  private final byte[] tail;
+  private SchwaemmKey key;
+  private byte[] nonce;
+  private boolean encrypting;
+  private boolean initialized;
+  private byte[] assoData = new byte[0];
+  private int assoDataLength;
+  // Cipher bytes buffered by decryption, with the tag.
+  private byte[] buffered = new byte[0];
+  private int bufferedLength;
+  private SchwaemmEncryptor encryptor;
+  private byte[] chunkIn;
+  private byte[] chunkOut;
+
+  SchwaemmCipherSpi(SchwaemmType type) {
+    this.schwaemm = new Schwaemm(type);
+    this.state = new int[schwaemm.stateWords()];
+    this.block = new int[schwaemm.rateWords()];
+    this.tail = new byte[schwaemm.rateBytes() + schwaemm.tagBytes()];
+  }
+
+  public static final class S128128 extends SchwaemmCipherSpi {
+
+    public S128128() {
+      super(SchwaemmType.S128128);
+    }
+  }
+
+  public static final class S192192 extends SchwaemmCipherSpi {
+
+    public S192192() {
+      super(SchwaemmType.S192192);
+    }
+  }
+
+  public static final class S256128 extends SchwaemmCipherSpi {
+
+    public S256128() {
+      super(SchwaemmType.S256128);
+    }
+  }
+
+  public static final class S256256 extends SchwaemmCipherSpi {
+
+    public S256256() {
+      super(SchwaemmType.S256256);
+    }
+  }
+
+  @Override
+  protected void engineSetMode(String mode) throws NoSuchAlgorithmException {
+    if (!mode.equalsIgnoreCase("NONE")) {
+      throw new NoSuchAlgorithmException("Unsupported mode " + mode + "!");
+    }
+  }
+
+  @Override
+  protected void engineSetPadding(String padding) throws NoSuchPaddingException {
+    if (!padding.equalsIgnoreCase("NoPadding")) {
+      throw new NoSuchPaddingException("Unsupported padding " + padding + "!");
+    }
+  }
+
+  @Override
+  protected int engineGetBlockSize() {
+    return 0;
+  }
+
+  @Override
+  protected int engineGetOutputSize(int inputLen) {
+    if (encrypting) {
+      int pending = encryptor == null ? 0 : encryptor.finalOutputSize() - schwaemm.tagBytes();
+      return pending + inputLen + schwaemm.tagBytes();
+    }
+    return Math.max(0, bufferedLength + inputLen - schwaemm.tagBytes());
+  }
+
+  @Override
+  protected byte[] engineGetIV() {
+    return nonce == null ? null : nonce.clone();
+  }
+
+  @Override
+  protected AlgorithmParameters engineGetParameters() {
+    return null;
+  }
+
+  @Override
+  protected int engineGetKeySize(Key key) throws InvalidKeyException {
+    return rawKey(key).length * 8;
+  }
+
+  @Override
+  protected void engineInit(int opmode, Key key, SecureRandom random) throws InvalidKeyException {
+    try {
+      engineInit(opmode, key, (AlgorithmParameterSpec) null, random);
+    } catch (InvalidAlgorithmParameterException e) {
+      throw new InvalidKeyException(e.getMessage(), e);
+    }
+  }
+
+  @Override
+  protected void engineInit(int opmode, Key key, AlgorithmParameterSpec params,
+      SecureRandom random) throws InvalidKeyException, InvalidAlgorithmParameterException {
+    if (opmode != Cipher.ENCRYPT_MODE && opmode != Cipher.DECRYPT_MODE) {
+      throw new UnsupportedOperationException("Only encryption and decryption are supported!");
+    }
+    byte[] nonce;
+    int nonceSize = schwaemm.type().getNonceSize();
+    if (params instanceof IvParameterSpec) {
+      nonce = ((IvParameterSpec) params).getIV();
+      if (nonce.length != nonceSize) {
+        throw new InvalidAlgorithmParameterException("Nonce must have " + nonceSize + " bytes!");
+      }
+    } else if (params != null) {
+      throw new InvalidAlgorithmParameterException("Nonce must be an IvParameterSpec!");
+    } else if (opmode == Cipher.ENCRYPT_MODE) {
+      nonce = new byte[nonceSize];
+      (random == null ? new SecureRandom() : random).nextBytes(nonce);
+    } else {
+      throw new InvalidAlgorithmParameterException("Decryption needs the nonce!");
+    }
+    byte[] raw = rawKey(key);
+    SchwaemmKey parsed = new SchwaemmKey(schwaemm.type(), raw);
+    Arrays.fill(raw, (byte) 0);
+    if (this.key != null) {
+      this.key.wipe();
+    }
+    this.key = parsed;
+    this.nonce = nonce;
+    this.encrypting = opmode == Cipher.ENCRYPT_MODE;
+    reset();
+    this.initialized = true;
+  }
+
+  @Override
+  protected void engineInit(int opmode, Key key, AlgorithmParameters params, SecureRandom random)
+      throws InvalidKeyException, InvalidAlgorithmParameterException {
+    try {
+      engineInit(opmode, key,
+          params == null ? null : params.getParameterSpec(IvParameterSpec.class), random);
+    } catch (InvalidParameterSpecException e) {
+      throw new InvalidAlgorithmParameterException(e);
+    }
+  }
+
+  @Override
+  protected void engineUpdateAAD(byte[] src, int offset, int len) {
+    checkInitialized();
+    if (encryptor != null || bufferedLength > 0) {
+      throw new IllegalStateException("Associated data must be given before the message!");
+    }
+    assoData = append(assoData, assoDataLength, src, offset, len);
+    assoDataLength += len;
+  }
+
+  @Override
+  protected void engineUpdateAAD(ByteBuffer src) {
+    int len = src.remaining();
+    if (src.hasArray()) {
+      engineUpdateAAD(src.array(), src.arrayOffset() + src.position(), len);
+      src.position(src.limit());
+      return;
+    }
+    checkInitialized();
+    if (encryptor != null || bufferedLength > 0) {
+      throw new IllegalStateException("Associated data must be given before the message!");
+    }
+    assoData = grow(assoData, assoDataLength + len);
+    src.get(assoData, assoDataLength, len);
+    assoDataLength += len;
+  }
+
+  @Override
+  protected byte[] engineUpdate(byte[] input, int inputOffset, int inputLen) {
+    checkInitialized();
+    if (!encrypting) {
+      buffer(input, inputOffset, inputLen);
+      return new byte[0];
+    }
+    byte[] output = new byte[startEncryptor().updateOutputSize(inputLen)];
+    int written = encryptor.update(input, inputOffset, inputLen, output, 0);
+    return written == output.length ? output : Arrays.copyOf(output, written);
+  }
+
+  @Override
+  protected int engineUpdate(byte[] input, int inputOffset, int inputLen, byte[] output,
+      int outputOffset) throws ShortBufferException {
+    checkInitialized();
+    if (!encrypting) {
+      buffer(input, inputOffset, inputLen);
+      return 0;
+    }
+    if (output.length - outputOffset < startEncryptor().updateOutputSize(inputLen)) {
+      throw new ShortBufferException("Output buffer too small!");
+    }
+    if (input == output && inputOffset < outputOffset + inputLen
+        && outputOffset < inputOffset + inputLen) {
+      input = Arrays.copyOfRange(input, inputOffset, inputOffset + inputLen);
+      inputOffset = 0;
+    }
+    return encryptor.update(input, inputOffset, inputLen, output, outputOffset);
+  }
+
+  @Override
+  protected int engineUpdate(ByteBuffer input, ByteBuffer output) throws ShortBufferException {
+    checkInitialized();
+    int inputLen = input.remaining();
+    if (!encrypting) {
+      buffer(input);
+      return 0;
+    }
+    if (output.remaining() < startEncryptor().updateOutputSize(inputLen)) {
+      throw new ShortBufferException("Output buffer too small!");
+    }
+    if (input.hasArray() && output.hasArray() && !overlapping(input, output, true)) {
+      int written = encryptor.update(input.array(), input.arrayOffset() + input.position(),
+          inputLen, output.array(), output.arrayOffset() + output.position());
+      input.position(input.limit());
+      output.position(output.position() + written);
+      return written;
+    }
+    if (chunkIn == null) {
+      chunkIn = new byte[CHUNK_BYTES];
+      chunkOut = new byte[CHUNK_BYTES + schwaemm.rateBytes()];
+    }
+    int written = 0;
+    while (input.hasRemaining()) {
+      int length = Math.min(CHUNK_BYTES, input.remaining());
+      input.get(chunkIn, 0, length);
+      int chunk = encryptor.update(chunkIn, 0, length, chunkOut, 0);
+      output.put(chunkOut, 0, chunk);
+      written += chunk;
+    }
+    Arrays.fill(chunkIn, (byte) 0);
+    return written;
+  }
+
+  @Override
+  protected byte[] engineDoFinal(byte[] input, int inputOffset, int inputLen)
+      throws IllegalBlockSizeException, BadPaddingException {
+    checkInitialized();
+    byte[] output = new byte[engineGetOutputSize(inputLen)];
+    try {
+      engineDoFinal(input, inputOffset, inputLen, output, 0);
+    } catch (ShortBufferException e) {
+      throw new IllegalStateException(e);
+    }
+    return output;
+  }
+
+  @Override
+  protected int engineDoFinal(byte[] input, int inputOffset, int inputLen, byte[] output,
+      int outputOffset) throws ShortBufferException, IllegalBlockSizeException,
+      BadPaddingException {
+    checkInitialized();
+    if (input == null) {
+      input = new byte[0];
+      inputOffset = 0;
+      inputLen = 0;
+    }
+    ByteBuffer src = ByteBuffer.wrap(input, inputOffset, inputLen);
+    ByteBuffer dst = ByteBuffer.wrap(output, outputOffset, output.length - outputOffset);
+    return engineDoFinal(src, dst);
+  }
+
+  @Override
+  protected int engineDoFinal(ByteBuffer input, ByteBuffer output)
+      throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+    checkInitialized();
+    int outputSize = engineGetOutputSize(input.remaining());
+    if (output.remaining() < outputSize) {
+      throw new ShortBufferException("Output buffer needs " + outputSize + " bytes!");
+    }
+    if (overlapping(input, output, encrypting && encryptor != null)) {
+      ByteBuffer copy = ByteBuffer.allocate(input.remaining());
+      copy.put(input).flip();
+      input = copy;
+    }
+    ByteBuffer aad = ByteBuffer.wrap(assoData, 0, assoDataLength);
+    int[] words = key.words(schwaemm.type());
+    try {
+      if (encrypting) {
+        if (encryptor == null) {
+          return schwaemm.encrypt(input, output, aad, words, nonce, state, block);
+        }
+        int written = engineUpdate(input, output);
+        int last = encryptor.doFinal(tail, 0);
+        output.put(tail, 0, last);
+        Arrays.fill(tail, (byte) 0);
+        return written + last;
+      }
+      if (bufferedLength > 0) {
+        buffer(input);
+        input = ByteBuffer.wrap(buffered, 0, bufferedLength);
+      }
+      int written = schwaemm.tryDecrypt(input, output, aad, words, nonce, state, block);
+      if (written < 0) {
+        throw new AEADBadTagException("Could not verify tag!");
+      }
+      return written;
+    } finally {
+      // A nonce must not encrypt two messages.
+      initialized = !encrypting;
+      reset();
+    }
+  }
+
+  private SchwaemmEncryptor startEncryptor() {
+    if (encryptor == null) {
+      encryptor = schwaemm.encryptor(key, nonce);
+      encryptor.updateAAD(assoData, 0, assoDataLength);
+    }
+    return encryptor;
+  }
+
+  private void buffer(byte[] input, int offset, int length) {
+    buffered = append(buffered, bufferedLength, input, offset, length);
+    bufferedLength += length;
+  }
+
+  private void buffer(ByteBuffer input) {
+    int length = input.remaining();
+    buffered = grow(buffered, bufferedLength + length);
+    input.get(buffered, bufferedLength, length);
+    bufferedLength += length;
+  }
+
+  private static byte[] append(byte[] buffer, int used, byte[] src, int offset, int length) {
+    buffer = grow(buffer, used + length);
+    System.arraycopy(src, offset, buffer, used, length);
+    return buffer;
+  }
+
+  private static byte[] grow(byte[] buffer, int capacity) {
+    if (capacity <= buffer.length) {
+      return buffer;
+    }
+    byte[] grown = Arrays.copyOf(buffer, Math.max(capacity, 2 * buffer.length));
+    Arrays.fill(buffer, (byte) 0);
+    return grown;
+  }
+
+  /**
+   * Whether writing output may overwrite input that is still to be read. A one-shot call may run
+   * exactly in place, but a started encryptor first writes its pending bytes, which puts the output
+   * ahead of the input, so exact aliasing overlaps as well then.
+   */
+  private static boolean overlapping(ByteBuffer input, ByteBuffer output, boolean pending) {
+    if (!input.hasArray() || !output.hasArray() || input.array() != output.array()) {
+      return false;
+    }
+    int in = input.arrayOffset() + input.position();
+    int out = output.arrayOffset() + output.position();
+    return (pending || in != out) && in < out + output.remaining()
+        && out < in + input.remaining();
+  }
+
+  /**
+   * Clears associated data and buffered cipher, the cipher can then process the next message
+   * with the same key and nonce.
+   */
+  private void reset() {
+    Arrays.fill(assoData, 0, assoDataLength, (byte) 0);
+    Arrays.fill(buffered, 0, bufferedLength, (byte) 0);
+    assoDataLength = 0;
+    bufferedLength = 0;
+    encryptor = null;
+    Arrays.fill(state, 0);
+    Arrays.fill(block, 0);
+  }
+
+  private void checkInitialized() {
+    if (!initialized) {
+      throw new IllegalStateException(key == null ? "Cipher has not been initialized!"
+          : "Cipher must be initialized again with a new nonce!");
+    }
+  }
+
+  private byte[] rawKey(Key key) throws InvalidKeyException {
+    byte[] raw = key == null || !"RAW".equalsIgnoreCase(key.getFormat()) ? null : key.getEncoded();
+    int keySize = schwaemm.type().getKeySize();
+    if (raw == null || raw.length != keySize) {
+      throw new InvalidKeyException("Key must be a raw key of " + keySize + " bytes!");
+    }
+    return raw;
+  }
+}
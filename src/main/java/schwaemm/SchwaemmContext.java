@@ -0,0 +1,207 @@
+package schwaemm;
+
+import java.util.Arrays;
+
+/**
+ * Allocation-free encryption and decryption with one schwaemm.Schwaemm. The state and the key
+ * words live in scratch arrays that every thread keeps once per type, so encrypt and decrypt
+ * allocate nothing after the first call of a thread, and a context can be shared by any number of
+ * threads. The scratch arrays do not refer to any Schwaemm, they keep no instance alive. Passing
+ * a {@link SchwaemmKey} instead of key bytes also skips parsing the key.
+ */
+public final class SchwaemmContext {
+
+  // Scratch arrays of each thread by type.
+  private static final ThreadLocal<Scratch[]> scratch =
+      ThreadLocal.withInitial(() -> new Scratch[SchwaemmType.values().length]);
+
+  private final Schwaemm schwaemm;
+
+  public SchwaemmContext(Schwaemm schwaemm) {
+    this.schwaemm = schwaemm;
+  }
+
+  /**
+   * Encrypts the message and writes the cipher followed by the tag.
+   *
+   * @param message       message
+   * @param offset        offset of the first message byte
+   * @param length        number of message bytes
+   * @param cipher        buffer for cipher and tag
+   * @param cipherOffset  offset of the first cipher byte
+   * @param assoData      associated data
+   * @param key           key
+   * @param nonce         nonce
+   * @return number of bytes written, the message length plus the tag length
+   */
+  public int encrypt(byte[] message, int offset, int length, byte[] cipher, int cipherOffset,
+      byte[] assoData, byte[] key, byte[] nonce) {
+    Scratch scratch = scratch();
+    schwaemm.keyToInts(key, scratch.keyWords);
+    return encrypt(message, offset, length, cipher, cipherOffset, assoData, scratch.keyWords,
+        nonce, scratch);
+  }
+
+  public int encrypt(byte[] message, int offset, int length, byte[] cipher, int cipherOffset,
+      byte[] assoData, SchwaemmKey key, byte[] nonce) {
+    return encrypt(message, offset, length, cipher, cipherOffset, assoData,
+        key.words(schwaemm.type()), nonce);
+  }
+
+  public int encrypt(byte[] message, byte[] cipher, byte[] assoData, SchwaemmKey key,
+      byte[] nonce) {
+    return encrypt(message, 0, message.length, cipher, 0, assoData, key, nonce);
+  }
+
+  int encrypt(byte[] message, int offset, int length, byte[] cipher, int cipherOffset,
+      byte[] assoData, int[] key, byte[] nonce) {
+    return encrypt(message, offset, length, cipher, cipherOffset, assoData, key, nonce,
+        scratch());
+  }
+
+  private int encrypt(byte[] message, int offset, int length, byte[] cipher, int cipherOffset,
+      byte[] assoData, int[] key, byte[] nonce, Scratch scratch) {
+    int[] state = scratch.state;
+    schwaemm.initialize(state, key, nonce);
+    if (assoData.length > 0) {
+      schwaemm.associateData(state, assoData, 0, assoData.length);
+    }
+    if (length > 0) {
+      schwaemm.encrypt(state, message, offset, length, cipher, cipherOffset);
+    }
+    schwaemm.finalize(state, key);
+    schwaemm.generateTag(state, cipher, cipherOffset + length);
+    scratch.clear();
+    return length + schwaemm.tagBytes();
+  }
+
+  public int encrypt(byte[] message, byte[] cipher, byte[] assoData, byte[] key, byte[] nonce) {
+    return encrypt(message, 0, message.length, cipher, 0, assoData, key, nonce);
+  }
+
+  /**
+   * Decrypts the cipher, which is followed by the tag, and verifies the tag. A rejected cipher
+   * costs no more than an accepted one, nothing is thrown and the message bytes are zeroed.
+   *
+   * @param cipher         cipher and tag
+   * @param offset         offset of the first cipher byte
+   * @param length         number of cipher bytes, including the tag
+   * @param message        buffer for the message
+   * @param messageOffset  offset of the first message byte
+   * @param assoData       associated data
+   * @param key            key
+   * @param nonce          nonce
+   * @return number of message bytes written, or -1 if the tag could not be verified
+   */
+  public int tryDecrypt(byte[] cipher, int offset, int length, byte[] message, int messageOffset,
+      byte[] assoData, byte[] key, byte[] nonce) {
+    Scratch scratch = scratch();
+    schwaemm.keyToInts(key, scratch.keyWords);
+    return tryDecrypt(cipher, offset, length, message, messageOffset, assoData, scratch.keyWords,
+        nonce, scratch);
+  }
+
+  public int tryDecrypt(byte[] cipher, int offset, int length, byte[] message, int messageOffset,
+      byte[] assoData, SchwaemmKey key, byte[] nonce) {
+    return tryDecrypt(cipher, offset, length, message, messageOffset, assoData,
+        key.words(schwaemm.type()), nonce);
+  }
+
+  int tryDecrypt(byte[] cipher, int offset, int length, byte[] message,
+      int messageOffset, byte[] assoData, int[] key, byte[] nonce) {
+    return tryDecrypt(cipher, offset, length, message, messageOffset, assoData, key, nonce,
+        scratch());
+  }
+
+  private int tryDecrypt(byte[] cipher, int offset, int length, byte[] message,
+      int messageOffset, byte[] assoData, int[] key, byte[] nonce, Scratch scratch) {
+    int messageLength = length - schwaemm.tagBytes();
+    if (messageLength < 0) {
+      scratch.clear();
+      return -1;
+    }
+    int[] state = scratch.state;
+    schwaemm.initialize(state, key, nonce);
+    if (assoData.length > 0) {
+      schwaemm.associateData(state, assoData, 0, assoData.length);
+    }
+    if (messageLength > 0) {
+      schwaemm.decrypt(state, cipher, offset, messageLength, message, messageOffset);
+    }
+    schwaemm.finalize(state, key);
+    boolean verified = schwaemm.checkTag(state, cipher, offset + messageLength);
+    scratch.clear();
+    if (!verified) {
+      Arrays.fill(message, messageOffset, messageOffset + messageLength, (byte) 0);
+      return -1;
+    }
+    return messageLength;
+  }
+
+  /**
+   * Decrypts the cipher, which is followed by the tag, and verifies the tag. Same as
+   * {@link #tryDecrypt(byte[], int, int, byte[], int, byte[], byte[], byte[])}, but throws on
+   * failure.
+   *
+   * @param cipher         cipher and tag
+   * @param offset         offset of the first cipher byte
+   * @param length         number of cipher bytes, including the tag
+   * @param message        buffer for the message
+   * @param messageOffset  offset of the first message byte
+   * @param assoData       associated data
+   * @param key            key
+   * @param nonce          nonce
+   * @return number of message bytes written
+   * @throws RuntimeException if the tag could not be verified
+   */
+  public int decrypt(byte[] cipher, int offset, int length, byte[] message, int messageOffset,
+      byte[] assoData, byte[] key, byte[] nonce) {
+    return Schwaemm.verified(
+        tryDecrypt(cipher, offset, length, message, messageOffset, assoData, key, nonce));
+  }
+
+  public int decrypt(byte[] cipher, int offset, int length, byte[] message, int messageOffset,
+      byte[] assoData, SchwaemmKey key, byte[] nonce) {
+    return Schwaemm.verified(
+        tryDecrypt(cipher, offset, length, message, messageOffset, assoData, key, nonce));
+  }
+
+  public int decrypt(byte[] cipher, byte[] message, byte[] assoData, SchwaemmKey key,
+      byte[] nonce) {
+    return decrypt(cipher, 0, cipher.length, message, 0, assoData, key, nonce);
+  }
+
+  public int decrypt(byte[] cipher, byte[] message, byte[] assoData, byte[] key, byte[] nonce) {
+    return decrypt(cipher, 0, cipher.length, message, 0, assoData, key, nonce);
+  }
+
+  private Scratch scratch() {
+    Scratch[] cached = scratch.get();
+    int index = schwaemm.type().ordinal();
+    Scratch current = cached[index];
+    if (current == null) {
+      current = new Scratch(schwaemm.stateWords(), schwaemm.keyWords());
+      cached[index] = current;
+    }
+    return current;
+  }
+
+  /**
+   * State and key words of one thread for one type.
+   */
+  private static final class Scratch {
+
+    private final int[] state;
+    private final int[] keyWords;
+
+    Scratch(int stateWords, int keyWords) {
+      this.state = new int[stateWords];
+      this.keyWords = new int[keyWords];
+    }
+
+    void clear() {
+      Arrays.fill(state, 0);
+      Arrays.fill(keyWords, 0);
+    }
+  }
+}
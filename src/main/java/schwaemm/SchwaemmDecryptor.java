@@ -0,0 +1,115 @@
+package schwaemm;
+
+import java.util.Arrays;
+import util.ConversionUtil;
+
+/**
+ * Incremental schwaemm.Schwaemm decryption of a single message. The cipher is given with its tag
+ * appended, as written by {@link Schwaemm#encryptAndTag}, and the last tag bytes are held back
+ * until doFinal verifies them.
+ *
+ * <p>Message bytes are returned before the tag is verified. They must not be used before doFinal
+ * has returned without an exception.
+ */
+public final class SchwaemmDecryptor extends SchwaemmStream {
+
+  SchwaemmDecryptor(Schwaemm schwaemm, int[] key, byte[] nonce) {
+    super(schwaemm, key, nonce, schwaemm.rateBytes() + schwaemm.tagBytes());
+  }
+
+  /**
+   * Decrypts cipher bytes. Message bytes are written a block at a time, so output needs room for
+   * {@link #updateOutputSize(int)} bytes.
+   *
+   * @param input        cipher
+   * @param offset       offset of the first cipher byte
+   * @param length       number of cipher bytes
+   * @param output       buffer for the message
+   * @param outputOffset offset of the first message byte
+   * @return number of message bytes written
+   */
+  public int update(byte[] input, int offset, int length, byte[] output, int outputOffset) {
+    checkNotFinished();
+    finishAssociatedData();
+    int rate = schwaemm.rateBytes();
+    int tag = schwaemm.tagBytes();
+    int written = 0;
+    while (length > 0) {
+      if (pendingLength == pending.length) {
+        ConversionUtil.bytesToInts(pending, 0, rate, block);
+        schwaemm.decryptBlock(state, block);
+        ConversionUtil.populateByteArrayFromInts(block, output, 0, rate, outputOffset + written);
+        written += rate;
+        System.arraycopy(pending, rate, pending, 0, tag);
+        pendingLength = tag;
+      }
+      int copy = Math.min(length, pending.length - pendingLength);
+      System.arraycopy(input, offset, pending, pendingLength, copy);
+      pendingLength += copy;
+      offset += copy;
+      length -= copy;
+    }
+    return written;
+  }
+
+  /**
+   * Decrypts the buffered cipher bytes and verifies the tag.
+   *
+   * @param output       buffer for the message, needs room for {@link #finalOutputSize()} bytes
+   * @param outputOffset offset of the first message byte
+   * @return number of message bytes written
+   * @throws RuntimeException if the tag could not be verified
+   */
+  public int doFinal(byte[] output, int outputOffset) {
+    return Schwaemm.verified(tryDoFinal(output, outputOffset));
+  }
+
+  /**
+   * Same as {@link #doFinal(byte[], int)}, but returns -1 instead of throwing if the tag does not
+   * match. The bytes written by this call are zeroed then, the caller has to discard the ones
+   * returned by update.
+   *
+   * @param output       buffer for the message, needs room for {@link #finalOutputSize()} bytes
+   * @param outputOffset offset of the first message byte
+   * @return number of message bytes written, or -1 if the tag could not be verified
+   */
+  public int tryDoFinal(byte[] output, int outputOffset) {
+    checkNotFinished();
+    finishAssociatedData();
+    int tag = schwaemm.tagBytes();
+    if (pendingLength < tag) {
+      wipe();
+      return -1;
+    }
+    int length = pendingLength - tag;
+    if (length > 0) {
+      ConversionUtil.bytesToInts(pending, 0, length, block);
+      schwaemm.decryptLastBlock(state, block, length);
+      ConversionUtil.populateByteArrayFromInts(block, output, 0, length, outputOffset);
+    }
+    finalizeState();
+    boolean verified = schwaemm.checkTag(state, pending, length);
+    wipe();
+    if (!verified) {
+      Arrays.fill(output, outputOffset, outputOffset + length, (byte) 0);
+      return -1;
+    }
+    return length;
+  }
+
+  /**
+   * Upper bound of the bytes written by update for the given input length.
+   *
+   * @param length number of cipher bytes
+   * @return number of message bytes
+   */
+  public int updateOutputSize(int length) {
+    int rate = schwaemm.rateBytes();
+    int buffered = messagePendingLength() + length - schwaemm.tagBytes();
+    return buffered <= 0 ? 0 : (buffered - 1) / rate * rate;
+  }
+
+  public int finalOutputSize() {
+    return Math.max(0, messagePendingLength() - schwaemm.tagBytes());
+  }
+}
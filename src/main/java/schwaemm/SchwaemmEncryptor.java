@@ -0,0 +1,89 @@
+package schwaemm;
+
+import util.ConversionUtil;
+
+/**
+ * Incremental schwaemm.Schwaemm encryption of a single message. Associated data is given with
+ * updateAAD, then the message with update, and doFinal writes the last cipher bytes and the tag.
+ * The output is the same as {@link Schwaemm#encryptAndTag}.
+ */
+public final class SchwaemmEncryptor extends SchwaemmStream {
+
+  private boolean hasMessage;
+
+  SchwaemmEncryptor(Schwaemm schwaemm, int[] key, byte[] nonce) {
+    super(schwaemm, key, nonce, schwaemm.rateBytes());
+  }
+
+  /**
+   * Encrypts message bytes. Cipher bytes are written a block at a time, so output needs room for
+   * {@link #updateOutputSize(int)} bytes.
+   *
+   * @param input        message
+   * @param offset       offset of the first message byte
+   * @param length       number of message bytes
+   * @param output       buffer for the cipher
+   * @param outputOffset offset of the first cipher byte
+   * @return number of cipher bytes written
+   */
+  public int update(byte[] input, int offset, int length, byte[] output, int outputOffset) {
+    checkNotFinished();
+    finishAssociatedData();
+    int rate = schwaemm.rateBytes();
+    int written = 0;
+    while (length > 0) {
+      if (pendingLength == rate) {
+        ConversionUtil.bytesToInts(pending, 0, rate, block);
+        schwaemm.encryptBlock(state, block);
+        ConversionUtil.populateByteArrayFromInts(block, output, 0, rate, outputOffset + written);
+        written += rate;
+        pendingLength = 0;
+      }
+      int copy = Math.min(length, rate - pendingLength);
+      System.arraycopy(input, offset, pending, pendingLength, copy);
+      pendingLength += copy;
+      offset += copy;
+      length -= copy;
+      hasMessage = true;
+    }
+    return written;
+  }
+
+  /**
+   * Encrypts the buffered message bytes and appends the tag.
+   *
+   * @param output       buffer for the cipher, needs room for {@link #finalOutputSize()} bytes
+   * @param outputOffset offset of the first cipher byte
+   * @return number of bytes written, including the tag
+   */
+  public int doFinal(byte[] output, int outputOffset) {
+    checkNotFinished();
+    finishAssociatedData();
+    int written = 0;
+    if (hasMessage) {
+      ConversionUtil.bytesToInts(pending, 0, pendingLength, block);
+      schwaemm.encryptLastBlock(state, block, pendingLength);
+      ConversionUtil.populateByteArrayFromInts(block, output, 0, pendingLength, outputOffset);
+      written = pendingLength;
+    }
+    finalizeState();
+    schwaemm.generateTag(state, output, outputOffset + written);
+    wipe();
+    return written + schwaemm.tagBytes();
+  }
+
+  /**
+   * Upper bound of the bytes written by update for the given input length.
+   *
+   * @param length number of message bytes
+   * @return number of cipher bytes
+   */
+  public int updateOutputSize(int length) {
+    int rate = schwaemm.rateBytes();
+    return length == 0 ? 0 : (messagePendingLength() + length - 1) / rate * rate;
+  }
+
+  public int finalOutputSize() {
+    return messagePendingLength() + schwaemm.tagBytes();
+  }
+}
@@ -0,0 +1,201 @@
+package schwaemm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Encrypts and decrypts files in the {@link SchwaemmSegmented} format through memory mapped
+ * regions. The file starts with the nonce prefix, followed by the sealed segments. Source and
+ * target are mapped a window at a time and every segment is sealed straight from the source
+ * mapping into the target mapping, so no part of the file is copied into a byte array and files
+ * larger than 2 GB work as well.
+ *
+ * <p>Usage: {@code SchwaemmFiles encrypt|decrypt <variant> <key file> <source> <target>
+ * [segment size]}, where variant is one of 128128, 192192, 256128 or 256256 and the key file holds
+ * the raw key bytes.
+ */
+public final class SchwaemmFiles {
+
+  // Upper bound of the bytes mapped at once from each file.
+  private static final long WINDOW_BYTES = 1L << 30;
+
+  private final SchwaemmSegmented format;
+
+  public SchwaemmFiles(SchwaemmSegmented format) {
+    this.format = format;
+  }
+
+  /**
+   * Encrypts source into target, which is created or replaced.
+   *
+   * @param source   file to encrypt
+   * @param target   file to write
+   * @param assoData associated data, authenticated with every segment
+   * @param key      key
+   * @param nonce    nonce prefix, stored at the start of target, see
+   *                 {@link SchwaemmSegmented}
+   * @throws IOException if a file cannot be read or written
+   */
+  public void encrypt(Path source, Path target, byte[] assoData, SchwaemmKey key, byte[] nonce)
+      throws IOException {
+    try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+        FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      long messageLength = in.size();
+      SchwaemmSegmented.segmentNonceBuffer(format.schwaemm().type(), nonce);
+      if (format.segmentCount(messageLength) > SchwaemmSegmented.MAX_SEGMENTS) {
+        throw new IllegalArgumentException("Too many segments!");
+      }
+      out.write(ByteBuffer.wrap(nonce), 0);
+      process(in, 0, out, nonce.length, messageLength, true, assoData, key, nonce);
+    }
+  }
+
+  /**
+   * Decrypts source into target, which is created or replaced. The message is written to a
+   * temporary file next to target, which is only moved to target once every segment has been
+   * verified, so target never holds unverified bytes, also not after an exception.
+   *
+   * @param source   file to decrypt
+   * @param target   file to write
+   * @param assoData associated data
+   * @param key      key
+   * @throws IOException      if a file cannot be read or written
+   * @throws RuntimeException if the file could not be verified
+   */
+  public void decrypt(Path source, Path target, byte[] assoData, SchwaemmKey key)
+      throws IOException {
+    Path directory = target.toAbsolutePath().getParent();
+    Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+    try {
+      if (!decryptTo(source, temporary, assoData, key)) {
+        throw new RuntimeException("Could not verify tag!");
+      }
+      Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Decrypts source into target, which must exist.
+   *
+   * @return true if every segment was verified
+   */
+  private boolean decryptTo(Path source, Path target, byte[] assoData, SchwaemmKey key)
+      throws IOException {
+    try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+        FileChannel out = FileChannel.open(target, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      byte[] nonce = new byte[SchwaemmSegmented.noncePrefixBytes(format.schwaemm().type())];
+      ByteBuffer header = ByteBuffer.wrap(nonce);
+      while (header.hasRemaining()) {
+        if (in.read(header, header.position()) < 0) {
+          break;
+        }
+      }
+      long messageLength = header.hasRemaining() ? -1
+          : format.messageLength(in.size() - nonce.length);
+      return messageLength >= 0
+          && format.segmentCount(messageLength) <= SchwaemmSegmented.MAX_SEGMENTS
+          && process(in, nonce.length, out, 0, messageLength, false, assoData, key, nonce);
+    }
+  }
+
+  /**
+   * Seals or opens all segments, mapping a window of whole segments of both files at a time.
+   *
+   * @return true if every segment was verified, always true when encrypting
+   */
+  private boolean process(FileChannel in, long inStart, FileChannel out, long outStart,
+      long messageLength, boolean encrypt, byte[] assoData, SchwaemmKey key, byte[] nonce)
+      throws IOException {
+    Schwaemm schwaemm = format.schwaemm();
+    int segmentSize = format.segmentSize();
+    int sealedSize = segmentSize + schwaemm.tagBytes();
+    long segments = format.segmentCount(messageLength);
+    int windowSegments = (int) Math.max(1, WINDOW_BYTES / sealedSize);
+    AtomicBoolean forged = new AtomicBoolean();
+    for (long first = 0; first < segments; first += windowSegments) {
+      long firstSegment = first;
+      int count = (int) Math.min(windowSegments, segments - first);
+      long messageStart = firstSegment * segmentSize;
+      long messageBytes = Math.min(messageLength, messageStart + (long) count * segmentSize)
+          - messageStart;
+      long cipherStart = firstSegment * sealedSize;
+      long cipherBytes = messageBytes + (long) count * schwaemm.tagBytes();
+      MappedByteBuffer source = encrypt
+          ? in.map(FileChannel.MapMode.READ_ONLY, inStart + messageStart, messageBytes)
+          : in.map(FileChannel.MapMode.READ_ONLY, inStart + cipherStart, cipherBytes);
+      MappedByteBuffer target = encrypt
+          ? out.map(FileChannel.MapMode.READ_WRITE, outStart + cipherStart, cipherBytes)
+          : out.map(FileChannel.MapMode.READ_WRITE, outStart + messageStart, messageBytes);
+      format.forEachSegment(count, i -> {
+        long index = firstSegment + i;
+        int length = (int) Math.min(segmentSize, messageLength - index * segmentSize);
+        byte[] segmentNonce = new byte[schwaemm.type().getNonceSize()];
+        SchwaemmSegmented.segmentNonce(nonce, index, index == segments - 1, segmentNonce);
+        ByteBuffer message = (encrypt ? source : target).slice(i * segmentSize, length);
+        ByteBuffer cipher = (encrypt ? target : source).slice(i * sealedSize,
+            length + schwaemm.tagBytes());
+        if (encrypt) {
+          schwaemm.encrypt(message, cipher, ByteBuffer.wrap(assoData), key, segmentNonce);
+        } else if (schwaemm.tryDecrypt(cipher, message, ByteBuffer.wrap(assoData), key,
+            segmentNonce) < 0) {
+          forged.set(true);
+        }
+      });
+      target.force();
+      if (forged.get()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 5 || args.length > 6
+        || !(args[0].equals("encrypt") || args[0].equals("decrypt"))) {
+      System.err.println("Usage: SchwaemmFiles encrypt|decrypt <variant> <key file> <source>"
+          + " <target> [segment size]");
+      System.exit(1);
+    }
+    SchwaemmType type = null;
+    for (SchwaemmType candidate : SchwaemmType.values()) {
+      if (candidate.getType().equals(args[1])) {
+        type = candidate;
+      }
+    }
+    if (type == null) {
+      System.err.println("Unknown variant " + args[1] + "!");
+      System.exit(1);
+    }
+    int segmentSize = args.length == 6 ? Integer.parseInt(args[5])
+        : SchwaemmSegmented.DEFAULT_SEGMENT_SIZE;
+    SchwaemmFiles files = new SchwaemmFiles(new SchwaemmSegmented(new Schwaemm(type),
+        segmentSize, ForkJoinPool.commonPool()));
+    SchwaemmKey key = new SchwaemmKey(type, Files.readAllBytes(Path.of(args[2])));
+    try {
+      if (args[0].equals("encrypt")) {
+        byte[] nonce = new byte[SchwaemmSegmented.noncePrefixBytes(type)];
+        new SecureRandom().nextBytes(nonce);
+        files.encrypt(Path.of(args[3]), Path.of(args[4]), new byte[0], key, nonce);
+      } else {
+        files.decrypt(Path.of(args[3]), Path.of(args[4]), new byte[0], key);
+      }
+    } finally {
+      key.wipe();
+    }
+  }
+}
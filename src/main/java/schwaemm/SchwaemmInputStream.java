@@ -0,0 +1,181 @@
+package schwaemm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import util.ConversionUtil;
+
+/**
+ * Stream that reads records of {@link SchwaemmRecords} from the underlying stream and returns their
+ * verified message bytes, the counterpart of {@link SchwaemmOutputStream} and
+ * {@link SchwaemmWritableChannel}. A record is only handed out after its tag has been checked, and
+ * the end of the stream is only reported after the last record, so a cut stream is detected. Once
+ * a record could not be verified or the stream was cut, every further read fails as well, so no
+ * record can be skipped. The record buffers and the context are reused for every record.
+ */
+public final class SchwaemmInputStream extends InputStream {
+
+  private final InputStream in;
+  private final Schwaemm schwaemm;
+  private final SchwaemmContext context;
+  private final int[] key;
+  private final byte[] baseNonce;
+  private final byte[] nonce;
+  private final byte[] assoData;
+  private final byte[] plain;
+  private final byte[] sealed;
+  private int position;
+  private int limit;
+  private long record;
+  private boolean lastRead;
+  // Set while a record is read and only cleared once it was verified.
+  private boolean failed;
+  private boolean open = true;
+
+  public SchwaemmInputStream(InputStream in, Schwaemm schwaemm, SchwaemmKey key, byte[] nonce) {
+    this(in, schwaemm, key, nonce, new byte[0], SchwaemmRecords.DEFAULT_RECORD_SIZE);
+  }
+
+  /**
+   * Creates the stream.
+   *
+   * @param in         stream holding the records
+   * @param schwaemm   schwaemm.Schwaemm variant the records were sealed with
+   * @param key        key
+   * @param nonce      nonce prefix, see {@link SchwaemmSegmented}
+   * @param assoData   associated data
+   * @param recordSize largest number of message bytes per record
+   */
+  public SchwaemmInputStream(InputStream in, Schwaemm schwaemm, SchwaemmKey key, byte[] nonce,
+      byte[] assoData, int recordSize) {
+    SchwaemmRecords.checkRecordSize(recordSize);
+    this.in = in;
+    this.schwaemm = schwaemm;
+    this.context = new SchwaemmContext(schwaemm);
+    this.key = key.words(schwaemm.type()).clone();
+    this.baseNonce = nonce.clone();
+    this.nonce = SchwaemmSegmented.segmentNonceBuffer(schwaemm.type(), nonce);
+    this.assoData = assoData.clone();
+    this.plain = new byte[recordSize];
+    this.sealed = new byte[SchwaemmRecords.HEADER_BYTES + recordSize + schwaemm.tagBytes()];
+  }
+
+  /**
+   * Reads one verified message byte.
+   *
+   * @throws RuntimeException if a record could not be verified or the stream was cut
+   */
+  @Override
+  public int read() throws IOException {
+    if (!nextRecord()) {
+      return -1;
+    }
+    return plain[position++] & 0xFF;
+  }
+
+  /**
+   * Reads verified message bytes.
+   *
+   * @throws RuntimeException if a record could not be verified or the stream was cut
+   */
+  @Override
+  public int read(byte[] bytes, int offset, int length) throws IOException {
+    if (offset < 0 || length < 0 || length > bytes.length - offset) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (length == 0) {
+      ensureOpen();
+      return 0;
+    }
+    if (!nextRecord()) {
+      return -1;
+    }
+    int copy = Math.min(length, limit - position);
+    System.arraycopy(plain, position, bytes, offset, copy);
+    position += copy;
+    return copy;
+  }
+
+  /**
+   * Number of verified bytes left in the current record.
+   */
+  @Override
+  public int available() throws IOException {
+    ensureOpen();
+    return limit - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!open) {
+      return;
+    }
+    open = false;
+    Arrays.fill(plain, (byte) 0);
+    Arrays.fill(key, 0);
+    position = 0;
+    limit = 0;
+    in.close();
+  }
+
+  /**
+   * Reads records until one has bytes left.
+   *
+   * @return false at the end of the stream
+   */
+  private boolean nextRecord() throws IOException {
+    ensureOpen();
+    if (failed) {
+      throw new RuntimeException("Could not verify tag!");
+    }
+    while (position == limit) {
+      if (lastRead) {
+        return false;
+      }
+      readRecord();
+    }
+    return true;
+  }
+
+  private void readRecord() throws IOException {
+    failed = true;
+    fill(0, SchwaemmRecords.HEADER_BYTES);
+    int header = ConversionUtil.getIntLittleEndian(sealed, 0);
+    int length = SchwaemmRecords.length(header);
+    if (length > plain.length) {
+      throw new RuntimeException("Could not verify tag!");
+    }
+    int cipherLength = length + schwaemm.tagBytes();
+    fill(SchwaemmRecords.HEADER_BYTES, cipherLength);
+    boolean last = SchwaemmRecords.isLast(header);
+    SchwaemmSegmented.segmentNonce(baseNonce, record, last, nonce);
+    position = 0;
+    limit = 0;
+    if (context.tryDecrypt(sealed, SchwaemmRecords.HEADER_BYTES, cipherLength, plain, 0,
+        assoData, key, nonce) < 0) {
+      throw new RuntimeException("Could not verify tag!");
+    }
+    limit = length;
+    record++;
+    lastRead = last;
+    failed = false;
+  }
+
+  private void fill(int offset, int length) throws IOException {
+    while (length > 0) {
+      int read = in.read(sealed, offset, length);
+      if (read < 0) {
+        // The stream ended before the last record.
+        throw new RuntimeException("Could not verify tag!");
+      }
+      offset += read;
+      length -= read;
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (!open) {
+      throw new IOException("Stream closed");
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package schwaemm;
+
+import java.util.Arrays;
+import util.ConversionUtil;
+
+/**
+ * A schwaemm.Schwaemm key converted once into the words that are loaded into the state. Creating
+ * one per session key saves parsing the key bytes on every encryption and decryption. The words
+ * can be cleared with {@link #wipe()}, after which the key can no longer be used.
+ */
+public final class SchwaemmKey {
+
+  private final SchwaemmType type;
+  private final int[] words;
+  private volatile boolean wiped;
+
+  /**
+   * Parses the key bytes.
+   *
+   * @param type variant the key is used with
+   * @param key  key of type.getKeySize() bytes, not kept
+   * @throws IllegalArgumentException if the key has the wrong length
+   */
+  public SchwaemmKey(SchwaemmType type, byte[] key) {
+    if (key.length != type.getKeySize()) {
+      throw new IllegalArgumentException(
+          "Key of schwaemm.Schwaemm" + type.getType() + " must have " + type.getKeySize()
+              + " bytes!");
+    }
+    this.type = type;
+    this.words = ConversionUtil.createIntArrayFromBytes(key, key.length / 4);
+  }
+
+  public SchwaemmType type() {
+    return type;
+  }
+
+  public boolean isWiped() {
+    return wiped;
+  }
+
+  /**
+   * Overwrites the key words with zeros. Using the key afterwards throws an exception.
+   */
+  public void wipe() {
+    wiped = true;
+    Arrays.fill(words, 0);
+  }
+
+  /**
+   * The key words, not to be modified.
+   *
+   * @param expected variant of the caller
+   * @return key words
+   */
+  int[] words(SchwaemmType expected) {
+    if (type != expected) {
+      throw new IllegalArgumentException(
+          "Key for schwaemm.Schwaemm" + type.getType() + " used with schwaemm.Schwaemm"
+              + expected.getType() + "!");
+    }
+    if (wiped) {
+      throw new IllegalStateException("Key has been wiped!");
+    }
+    return words;
+  }
+}
@@ -120,13 +120,38 @@ public final class SchwaemmMasked {
 
   public byte[][] decryptAndVerify(byte[][] cipher, byte[][] assoData, byte[][] key,
       byte[][] nonce) {
-    int[][] state = new int[key.length][STATE_WORDS];
+    byte[][] message = new byte[cipher.length][Math.max(cipher[0].length - TAG_BYTES, 0)];
+    Schwaemm.verified(tryDecrypt(cipher, message, assoData, key, nonce));
+    return message;
+  }
+
+  /**
+   * Decrypts and verifies the masked cipher without throwing on a forged one.
+   *
+   * @param cipher   shares of cipher and tag
+   * @param message  shares of the message, each of cipher[0].length minus the tag bytes, zeroed if
+   *                 the tag does not match
+   * @param assoData shares of the associated data
+   * @param key      shares of the key
+   * @param nonce    shares of the nonce
+   * @return number of message bytes, or -1 if the tag could not be verified
+   */
+  public int tryDecrypt(byte[][] cipher, byte[][] message, byte[][] assoData, byte[][] key,
+      byte[][] nonce) {
     int cipherTextLength = cipher[0].length - TAG_BYTES;
+    if (cipherTextLength < 0) {
+      return -1;
+    }
+    for (byte[] share : message) {
+      if (share.length != cipherTextLength) {
+        throw new IllegalArgumentException("Message shares must have the cipher length!");
+      }
+    }
+    int[][] state = new int[key.length][STATE_WORDS];
     initialize(state, key, nonce);
     if (assoData[0].length > 0) {
       associateData(state, assoData);
     }
-    byte[][] message = new byte[cipher.length][cipherTextLength];
     if (cipherTextLength > 0) {
       decrypt(state, message, cipher);
     }
@@ -142,9 +167,12 @@ public final class SchwaemmMasked {
       }
     }
     if (diff != 0) {
-      throw new RuntimeException("Could not verify tag!");
+      for (byte[] share : message) {
+        Arrays.fill(share, (byte) 0);
+      }
+      return -1;
     }
-    return message;
+    return cipherTextLength;
   }
 
   int verifyTag(int[] state, int[] tag) {
@@ -0,0 +1,130 @@
+package schwaemm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import util.ConversionUtil;
+
+/**
+ * Stream that seals everything written to it into records of {@link SchwaemmRecords} and writes
+ * them to the underlying stream, in the same format as {@link SchwaemmWritableChannel}. At most
+ * one record of message bytes is buffered. A record is sealed once the buffer is full and more
+ * bytes arrive, or on {@link #flush()}, and the last record is sealed by {@link #close()}. The
+ * record buffers and the context are reused for every record.
+ */
+public final class SchwaemmOutputStream extends OutputStream {
+
+  private final OutputStream out;
+  private final Schwaemm schwaemm;
+  private final SchwaemmContext context;
+  private final int[] key;
+  private final byte[] baseNonce;
+  private final byte[] nonce;
+  private final byte[] assoData;
+  private final byte[] plain;
+  private final byte[] sealed;
+  private int position;
+  private long record;
+  private boolean open = true;
+
+  public SchwaemmOutputStream(OutputStream out, Schwaemm schwaemm, SchwaemmKey key,
+      byte[] nonce) {
+    this(out, schwaemm, key, nonce, new byte[0], SchwaemmRecords.DEFAULT_RECORD_SIZE);
+  }
+
+  /**
+   * Creates the stream.
+   *
+   * @param out        stream receiving the records
+   * @param schwaemm   schwaemm.Schwaemm variant sealing the records
+   * @param key        key
+   * @param nonce      nonce prefix, see {@link SchwaemmSegmented}
+   * @param assoData   associated data, authenticated with every record
+   * @param recordSize number of message bytes per record
+   */
+  public SchwaemmOutputStream(OutputStream out, Schwaemm schwaemm, SchwaemmKey key, byte[] nonce,
+      byte[] assoData, int recordSize) {
+    SchwaemmRecords.checkRecordSize(recordSize);
+    this.out = out;
+    this.schwaemm = schwaemm;
+    this.context = new SchwaemmContext(schwaemm);
+    this.key = key.words(schwaemm.type()).clone();
+    this.baseNonce = nonce.clone();
+    this.nonce = SchwaemmSegmented.segmentNonceBuffer(schwaemm.type(), nonce);
+    this.assoData = assoData.clone();
+    this.plain = new byte[recordSize];
+    this.sealed = new byte[SchwaemmRecords.HEADER_BYTES + recordSize + schwaemm.tagBytes()];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    if (position == plain.length) {
+      seal(false);
+    }
+    plain[position++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    ensureOpen();
+    if (offset < 0 || length < 0 || length > bytes.length - offset) {
+      throw new IndexOutOfBoundsException();
+    }
+    while (length > 0) {
+      if (position == plain.length) {
+        seal(false);
+      }
+      int copy = Math.min(length, plain.length - position);
+      System.arraycopy(bytes, offset, plain, position, copy);
+      position += copy;
+      offset += copy;
+      length -= copy;
+    }
+  }
+
+  /**
+   * Seals the buffered bytes as a record, if there are any, and flushes the underlying stream.
+   */
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    if (position > 0) {
+      seal(false);
+    }
+    out.flush();
+  }
+
+  /**
+   * Seals the remaining bytes as the last record and closes the underlying stream.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!open) {
+      return;
+    }
+    open = false;
+    try {
+      seal(true);
+    } finally {
+      Arrays.fill(plain, (byte) 0);
+      Arrays.fill(key, 0);
+      out.close();
+    }
+  }
+
+  private void seal(boolean last) throws IOException {
+    ConversionUtil.putIntLittleEndian(sealed, 0, SchwaemmRecords.header(position, last));
+    SchwaemmSegmented.segmentNonce(baseNonce, record++, last, nonce);
+    int length = context.encrypt(plain, 0, position, sealed, SchwaemmRecords.HEADER_BYTES,
+        assoData, key, nonce);
+    out.write(sealed, 0, SchwaemmRecords.HEADER_BYTES + length);
+    position = 0;
+  }
+
+  private void ensureOpen() throws IOException {
+    if (!open) {
+      throw new IOException("Stream closed");
+    }
+  }
+}
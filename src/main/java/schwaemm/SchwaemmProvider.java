@@ -0,0 +1,23 @@
+package schwaemm;
+
+import java.security.Provider;
+
+/**
+ * JCA provider registering the schwaemm.Schwaemm variants as {@link javax.crypto.Cipher}
+ * transformations, named Schwaemm128128, Schwaemm192192, Schwaemm256128 and Schwaemm256256, with
+ * mode NONE and padding NoPadding. See {@link SchwaemmCipherSpi}.
+ */
+public final class SchwaemmProvider extends Provider {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String NAME = "Schwaemm";
+
+  public SchwaemmProvider() {
+    super(NAME, "1.0", "schwaemm.Schwaemm authenticated encryption");
+    put("Cipher.Schwaemm128128", SchwaemmCipherSpi.S128128.class.getName());
+    put("Cipher.Schwaemm192192", SchwaemmCipherSpi.S192192.class.getName());
+    put("Cipher.Schwaemm256128", SchwaemmCipherSpi.S256128.class.getName());
+    put("Cipher.Schwaemm256256", SchwaemmCipherSpi.S256256.class.getName());
+  }
+}
@@ -0,0 +1,152 @@
+package schwaemm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Channel that reads records of {@link SchwaemmRecords} from the underlying channel and returns
+ * their verified message bytes. A record is only handed out after its tag has been checked, and
+ * the end of the stream is only reported after the last record, so a cut stream is detected.
+ * Once a record could not be verified or the stream was cut, every further read fails as well, so
+ * no record can be skipped.
+ * State, block and the pooled direct buffers are reused for every record. The underlying channel
+ * has to be blocking.
+ */
+public final class SchwaemmReadableChannel implements ReadableByteChannel {
+
+  private final ReadableByteChannel in;
+  private final Schwaemm schwaemm;
+  private final int[] key;
+  private final byte[] baseNonce;
+  private final byte[] nonce;
+  private final ByteBuffer assoData;
+  private final int recordSize;
+  private final ByteBuffer plain;
+  private final ByteBuffer sealed;
+  private final int[] state;
+  private final int[] block;
+  private long record;
+  private boolean lastRead;
+  // Set while a record is read and only cleared once it was verified.
+  private boolean failed;
+  private boolean open = true;
+
+  public SchwaemmReadableChannel(ReadableByteChannel in, Schwaemm schwaemm, SchwaemmKey key,
+      byte[] nonce) {
+    this(in, schwaemm, key, nonce, new byte[0], SchwaemmRecords.DEFAULT_RECORD_SIZE);
+  }
+
+  /**
+   * Creates the channel.
+   *
+   * @param in         channel holding the records
+   * @param schwaemm   schwaemm.Schwaemm variant the records were sealed with
+   * @param key        key
+   * @param nonce      nonce prefix, see {@link SchwaemmSegmented}
+   * @param assoData   associated data
+   * @param recordSize largest number of message bytes per record
+   */
+  public SchwaemmReadableChannel(ReadableByteChannel in, Schwaemm schwaemm, SchwaemmKey key,
+      byte[] nonce, byte[] assoData, int recordSize) {
+    SchwaemmRecords.checkRecordSize(recordSize);
+    this.in = in;
+    this.schwaemm = schwaemm;
+    this.key = key.words(schwaemm.type()).clone();
+    this.baseNonce = nonce.clone();
+    this.nonce = SchwaemmSegmented.segmentNonceBuffer(schwaemm.type(), nonce);
+    this.assoData = ByteBuffer.wrap(assoData.clone());
+    this.recordSize = recordSize;
+    this.plain = DirectBufferPool.acquire(recordSize);
+    this.plain.flip();
+    this.sealed = DirectBufferPool.acquire(
+        SchwaemmRecords.HEADER_BYTES + recordSize + schwaemm.tagBytes());
+    this.sealed.order(ByteOrder.LITTLE_ENDIAN);
+    this.state = new int[schwaemm.stateWords()];
+    this.block = new int[schwaemm.rateWords()];
+  }
+
+  /**
+   * Reads verified message bytes.
+   *
+   * @throws RuntimeException if a record could not be verified or the stream was cut
+   */
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+    if (failed) {
+      throw new RuntimeException("Could not verify tag!");
+    }
+    while (!plain.hasRemaining()) {
+      if (lastRead) {
+        return -1;
+      }
+      readRecord();
+    }
+    int length = Math.min(dst.remaining(), plain.remaining());
+    dst.put(dst.position(), plain, plain.position(), length);
+    dst.position(dst.position() + length);
+    plain.position(plain.position() + length);
+    return length;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!open) {
+      return;
+    }
+    open = false;
+    DirectBufferPool.release(plain);
+    DirectBufferPool.release(sealed);
+    Arrays.fill(state, 0);
+    Arrays.fill(block, 0);
+    Arrays.fill(key, 0);
+    in.close();
+  }
+
+  private void readRecord() throws IOException {
+    failed = true;
+    sealed.clear();
+    sealed.limit(SchwaemmRecords.HEADER_BYTES);
+    fill();
+    int header = sealed.getInt(0);
+    int length = SchwaemmRecords.length(header);
+    if (length > recordSize) {
+      throw new RuntimeException("Could not verify tag!");
+    }
+    sealed.limit(SchwaemmRecords.HEADER_BYTES + length + schwaemm.tagBytes());
+    fill();
+    sealed.position(SchwaemmRecords.HEADER_BYTES);
+    boolean last = SchwaemmRecords.isLast(header);
+    SchwaemmSegmented.segmentNonce(baseNonce, record, last, nonce);
+    assoData.clear();
+    plain.clear();
+    if (schwaemm.tryDecrypt(sealed, plain, assoData, key, nonce, state, block) < 0) {
+      plain.clear().flip();
+      throw new RuntimeException("Could not verify tag!");
+    }
+    plain.flip();
+    record++;
+    lastRead = last;
+    failed = false;
+  }
+
+  private void fill() throws IOException {
+    while (sealed.hasRemaining()) {
+      if (in.read(sealed) < 0) {
+        // The stream ended before the last record.
+        throw new RuntimeException("Could not verify tag!");
+      }
+    }
+  }
+}
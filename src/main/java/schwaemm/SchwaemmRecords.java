@@ -0,0 +1,37 @@
+package schwaemm;
+
+/**
+ * Record framing shared by the channel and stream wrappers. A record is a four byte little endian
+ * header followed by the cipher and the tag of one record message. The header holds the message
+ * length, with the highest bit set for the last record of the stream. The nonce of record i is
+ * built from the nonce prefix like the nonce of segment i in {@link SchwaemmSegmented}, so
+ * records cannot be reordered or dropped, and the stream cannot be cut after a record other than
+ * the last one.
+ */
+final class SchwaemmRecords {
+
+  static final int DEFAULT_RECORD_SIZE = 16 * 1024;
+  static final int HEADER_BYTES = 4;
+  static final int LAST = 1 << 31;
+
+  private SchwaemmRecords() {
+  }
+
+  static int header(int length, boolean last) {
+    return last ? length | LAST : length;
+  }
+
+  static int length(int header) {
+    return header & ~LAST;
+  }
+
+  static boolean isLast(int header) {
+    return (header & LAST) != 0;
+  }
+
+  static void checkRecordSize(int recordSize) {
+    if (recordSize <= 0) {
+      throw new IllegalArgumentException("Record size must be positive!");
+    }
+  }
+}
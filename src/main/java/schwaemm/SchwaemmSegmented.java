@@ -0,0 +1,302 @@
+package schwaemm;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Segmented schwaemm.Schwaemm container after the STREAM construction. The message is split into
+ * segments of a fixed size, only the last one may be shorter. Each segment is sealed on its own
+ * with the same associated data and a nonce made of the nonce prefix of the message, the index of
+ * the segment and whether it is the last one, see {@link #segmentNonce(byte[], long, boolean,
+ * byte[])}. The cipher is the concatenation of the sealed segments, each followed by its tag.
+ *
+ * <p>The caller passes only the nonce prefix, which is {@link #NONCE_SUFFIX_BYTES} shorter than the
+ * nonce of the variant, see {@link #noncePrefixBytes(SchwaemmType)}. The prefix must never be used
+ * for two messages under the same key, a message has at most {@link #MAX_SEGMENTS} segments.
+ *
+ * <p>Since segments do not depend on each other they are encrypted and decrypted in parallel on a
+ * ForkJoinPool. Reordering, dropping or appending segments changes the nonces the segments are
+ * checked with, so it is detected like any other modification.
+ */
+public final class SchwaemmSegmented {
+
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+  // A segment nonce ends in the four byte little endian segment index and the last segment flag.
+  public static final int NONCE_SUFFIX_BYTES = 5;
+  public static final long MAX_SEGMENTS = 1L << 32;
+  // Segments per task below which a task is not split further.
+  private static final int SEQUENTIAL_SEGMENTS = 1;
+
+  private final Schwaemm schwaemm;
+  private final int segmentSize;
+  private final ForkJoinPool pool;
+
+  public SchwaemmSegmented(SchwaemmType type) {
+    this(new Schwaemm(type), DEFAULT_SEGMENT_SIZE, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a container.
+   *
+   * @param schwaemm    schwaemm.Schwaemm variant sealing the segments
+   * @param segmentSize number of message bytes per segment
+   * @param pool        pool running the segments
+   */
+  public SchwaemmSegmented(Schwaemm schwaemm, int segmentSize, ForkJoinPool pool) {
+    if (segmentSize <= 0) {
+      throw new IllegalArgumentException("Segment size must be positive!");
+    }
+    this.schwaemm = schwaemm;
+    this.segmentSize = segmentSize;
+    this.pool = pool;
+  }
+
+  public Schwaemm schwaemm() {
+    return schwaemm;
+  }
+
+  public int segmentSize() {
+    return segmentSize;
+  }
+
+  /**
+   * Number of segments of a message, an empty message still has one empty segment.
+   *
+   * @param messageLength number of message bytes
+   * @return number of segments
+   */
+  public long segmentCount(long messageLength) {
+    return Math.max(1, (messageLength + segmentSize - 1) / segmentSize);
+  }
+
+  public long cipherLength(long messageLength) {
+    return messageLength + segmentCount(messageLength) * schwaemm.tagBytes();
+  }
+
+  /**
+   * Length of the message sealed in a cipher of the given length.
+   *
+   * @param cipherLength number of cipher bytes, including all tags
+   * @return number of message bytes, or -1 if no message gives a cipher of that length
+   */
+  public long messageLength(long cipherLength) {
+    long sealedSegment = (long) segmentSize + schwaemm.tagBytes();
+    long segments = Math.max(1, (cipherLength + sealedSegment - 1) / sealedSegment);
+    long messageLength = cipherLength - segments * schwaemm.tagBytes();
+    if (messageLength < 0 || (segments > 1 && messageLength <= (segments - 1) * segmentSize)) {
+      return -1;
+    }
+    return messageLength;
+  }
+
+  /**
+   * Length of the nonce prefix of a message, the nonce of the variant minus the segment index and
+   * the last segment flag.
+   *
+   * @param type schwaemm.Schwaemm variant
+   * @return number of prefix bytes
+   */
+  public static int noncePrefixBytes(SchwaemmType type) {
+    return type.getNonceSize() - NONCE_SUFFIX_BYTES;
+  }
+
+  /**
+   * Builds the nonce of a segment. The prefix, the index and the flag occupy disjoint bytes, so two
+   * segments only share a nonce if they share prefix, index and flag.
+   *
+   * @param prefix nonce prefix of the whole message
+   * @param index  index of the segment, below {@link #MAX_SEGMENTS}
+   * @param last   whether the segment is the last one
+   * @param nonce  receives the segment nonce, {@link #NONCE_SUFFIX_BYTES} longer than prefix
+   */
+  public static void segmentNonce(byte[] prefix, long index, boolean last, byte[] nonce) {
+    int counter = nonce.length - NONCE_SUFFIX_BYTES;
+    if (prefix.length != counter) {
+      throw new IllegalArgumentException("Nonce prefix must have " + counter + " bytes!");
+    }
+    if (index < 0 || index >= MAX_SEGMENTS) {
+      throw new IllegalArgumentException("Too many segments!");
+    }
+    System.arraycopy(prefix, 0, nonce, 0, counter);
+    for (int i = 0; i < 4; i++) {
+      nonce[counter + i] = (byte) (index >>> (8 * i));
+    }
+    nonce[counter + 4] = (byte) (last ? 1 : 0);
+  }
+
+  /**
+   * Checks that a nonce prefix has the length the variant needs.
+   *
+   * @param type   schwaemm.Schwaemm variant
+   * @param prefix nonce prefix
+   * @return a buffer for the segment nonces
+   */
+  static byte[] segmentNonceBuffer(SchwaemmType type, byte[] prefix) {
+    if (prefix.length != noncePrefixBytes(type)) {
+      throw new IllegalArgumentException("Nonce prefix must have " + noncePrefixBytes(type)
+          + " bytes!");
+    }
+    return new byte[type.getNonceSize()];
+  }
+
+  /**
+   * Encrypts the message segment by segment.
+   *
+   * @param message  message
+   * @param assoData associated data, authenticated with every segment
+   * @param key      key
+   * @param nonce    nonce prefix, see {@link #noncePrefixBytes(SchwaemmType)}
+   * @return sealed segments
+   */
+  public byte[] encrypt(byte[] message, byte[] assoData, SchwaemmKey key, byte[] nonce) {
+    byte[] cipher = new byte[Math.toIntExact(cipherLength(message.length))];
+    encrypt(message, cipher, assoData, key, nonce);
+    return cipher;
+  }
+
+  public byte[] encrypt(byte[] message, byte[] assoData, byte[] key, byte[] nonce) {
+    SchwaemmKey parsed = new SchwaemmKey(schwaemm.type(), key);
+    try {
+      return encrypt(message, assoData, parsed, nonce);
+    } finally {
+      parsed.wipe();
+    }
+  }
+
+  /**
+   * Encrypts the message segment by segment into cipher, which needs room for
+   * {@link #cipherLength(long)} bytes.
+   *
+   * @param message  message
+   * @param cipher   buffer for the sealed segments
+   * @param assoData associated data, authenticated with every segment
+   * @param key      key
+   * @param nonce    nonce prefix, see {@link #noncePrefixBytes(SchwaemmType)}
+   * @return number of cipher bytes written
+   */
+  public int encrypt(byte[] message, byte[] cipher, byte[] assoData, SchwaemmKey key,
+      byte[] nonce) {
+    segmentNonceBuffer(schwaemm.type(), nonce);
+    int segments = Math.toIntExact(segmentCount(message.length));
+    int tagBytes = schwaemm.tagBytes();
+    forEachSegment(segments, index -> {
+      int offset = index * segmentSize;
+      int length = Math.min(segmentSize, message.length - offset);
+      byte[] segmentNonce = new byte[schwaemm.type().getNonceSize()];
+      segmentNonce(nonce, index, index == segments - 1, segmentNonce);
+      schwaemm.context().encrypt(message, offset, length, cipher,
+          offset + index * tagBytes, assoData, key, segmentNonce);
+    });
+    return message.length + segments * tagBytes;
+  }
+
+  /**
+   * Decrypts and verifies all segments.
+   *
+   * @param cipher   sealed segments
+   * @param assoData associated data
+   * @param key      key
+   * @param nonce    nonce prefix, see {@link #noncePrefixBytes(SchwaemmType)}
+   * @return the message
+   * @throws RuntimeException if any segment could not be verified
+   */
+  public byte[] decrypt(byte[] cipher, byte[] assoData, SchwaemmKey key, byte[] nonce) {
+    byte[] message = new byte[(int) Math.max(messageLength(cipher.length), 0)];
+    Schwaemm.verified(tryDecrypt(cipher, message, assoData, key, nonce));
+    return message;
+  }
+
+  public byte[] decrypt(byte[] cipher, byte[] assoData, byte[] key, byte[] nonce) {
+    SchwaemmKey parsed = new SchwaemmKey(schwaemm.type(), key);
+    try {
+      return decrypt(cipher, assoData, parsed, nonce);
+    } finally {
+      parsed.wipe();
+    }
+  }
+
+  /**
+   * Decrypts and verifies all segments without throwing on a forged cipher. If any segment fails,
+   * the whole message is zeroed.
+   *
+   * @param cipher   sealed segments
+   * @param message  buffer for the message, needs room for {@link #messageLength(long)} bytes
+   * @param assoData associated data
+   * @param key      key
+   * @param nonce    nonce prefix, see {@link #noncePrefixBytes(SchwaemmType)}
+   * @return number of message bytes, or -1 if any segment could not be verified
+   */
+  public int tryDecrypt(byte[] cipher, byte[] message, byte[] assoData, SchwaemmKey key,
+      byte[] nonce) {
+    segmentNonceBuffer(schwaemm.type(), nonce);
+    long messageLength = messageLength(cipher.length);
+    if (messageLength < 0) {
+      return -1;
+    }
+    int segments = Math.toIntExact(segmentCount(messageLength));
+    int tagBytes = schwaemm.tagBytes();
+    AtomicBoolean forged = new AtomicBoolean();
+    forEachSegment(segments, index -> {
+      int offset = index * segmentSize;
+      int length = (int) Math.min(segmentSize, messageLength - offset);
+      byte[] segmentNonce = new byte[schwaemm.type().getNonceSize()];
+      segmentNonce(nonce, index, index == segments - 1, segmentNonce);
+      if (schwaemm.context().tryDecrypt(cipher, offset + index * tagBytes, length + tagBytes,
+          message, offset, assoData, key, segmentNonce) < 0) {
+        forged.set(true);
+      }
+    });
+    if (forged.get()) {
+      Arrays.fill(message, 0, (int) messageLength, (byte) 0);
+      return -1;
+    }
+    return (int) messageLength;
+  }
+
+  /**
+   * Runs the action for the segments [0, count) on the pool of this container.
+   *
+   * @param count  number of segments
+   * @param action action for one segment index
+   */
+  void forEachSegment(int count, SegmentAction action) {
+    pool.invoke(new SegmentTask(0, count, action));
+  }
+
+  interface SegmentAction {
+
+    void run(int index);
+  }
+
+  /**
+   * Runs the action for the segments [from, to), halving the range until single segments remain.
+   */
+  private static final class SegmentTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final SegmentAction action;
+
+    SegmentTask(int from, int to, SegmentAction action) {
+      this.from = from;
+      this.to = to;
+      this.action = action;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= SEQUENTIAL_SEGMENTS) {
+        for (int index = from; index < to; index++) {
+          action.run(index);
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new SegmentTask(from, middle, action), new SegmentTask(middle, to, action));
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package schwaemm;
+
+import java.util.Arrays;
+import util.ConversionUtil;
+
+/**
+ * Common part of the streaming schwaemm.Schwaemm encryptor and decryptor. The sparkle state is kept
+ * between calls and only the bytes that have not been absorbed yet are buffered. A block is
+ * processed once more input arrives after it, since the last block of the associated data and of
+ * the message is processed differently from the others.
+ */
+public abstract class SchwaemmStream {
+
+  final Schwaemm schwaemm;
+  final int[] state;
+  final int[] block;
+  final byte[] pending;
+  int pendingLength;
+  private final int[] key;
+  private boolean hasAssociatedData;
+  private boolean associatedDataDone;
+  private boolean finished;
+
+  SchwaemmStream(Schwaemm schwaemm, int[] key, byte[] nonce, int pendingSize) {
+    this.schwaemm = schwaemm;
+    this.state = new int[schwaemm.stateWords()];
+    this.block = new int[schwaemm.rateWords()];
+    this.pending = new byte[pendingSize];
+    this.key = key;
+    schwaemm.initialize(state, key, nonce);
+  }
+
+  /**
+   * Absorbs associated data. All associated data has to be given before the message.
+   *
+   * @param data   associated data
+   * @param offset offset of the first byte
+   * @param length number of bytes
+   */
+  public void updateAAD(byte[] data, int offset, int length) {
+    checkNotFinished();
+    if (associatedDataDone) {
+      throw new IllegalStateException("Associated data must be given before the message!");
+    }
+    int rate = schwaemm.rateBytes();
+    while (length > 0) {
+      if (pendingLength == rate) {
+        ConversionUtil.bytesToInts(pending, 0, rate, block);
+        schwaemm.associateDataBlock(state, block);
+        pendingLength = 0;
+      }
+      int copy = Math.min(length, rate - pendingLength);
+      System.arraycopy(data, offset, pending, pendingLength, copy);
+      pendingLength += copy;
+      offset += copy;
+      length -= copy;
+      hasAssociatedData = true;
+    }
+  }
+
+  public void updateAAD(byte[] data) {
+    updateAAD(data, 0, data.length);
+  }
+
+  void finishAssociatedData() {
+    if (associatedDataDone) {
+      return;
+    }
+    associatedDataDone = true;
+    if (hasAssociatedData) {
+      ConversionUtil.bytesToInts(pending, 0, pendingLength, block);
+      schwaemm.associateDataLastBlock(state, block, pendingLength);
+      pendingLength = 0;
+    }
+  }
+
+  /**
+   * Number of buffered message or cipher bytes, buffered associated data does not count.
+   */
+  int messagePendingLength() {
+    return associatedDataDone ? pendingLength : 0;
+  }
+
+  void checkNotFinished() {
+    if (finished) {
+      throw new IllegalStateException("Stream has already been finished!");
+    }
+  }
+
+  void finalizeState() {
+    schwaemm.finalize(state, key);
+    finished = true;
+  }
+
+  /**
+   * Clears the key and all intermediate values once the stream is finished.
+   */
+  void wipe() {
+    Arrays.fill(state, 0);
+    Arrays.fill(block, 0);
+    Arrays.fill(pending, (byte) 0);
+    Arrays.fill(key, 0);
+    pendingLength = 0;
+  }
+}
@@ -0,0 +1,123 @@
+package schwaemm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Channel that seals everything written to it into records of {@link SchwaemmRecords} and writes
+ * them to the underlying channel. Message bytes are collected in a pooled direct buffer and a
+ * record is sealed once the buffer is full and more bytes arrive, so the last record is only
+ * sealed by {@link #close()}. State, block and buffers are reused for every record. The
+ * underlying channel has to be blocking.
+ */
+public final class SchwaemmWritableChannel implements WritableByteChannel {
+
+  private final WritableByteChannel out;
+  private final Schwaemm schwaemm;
+  private final int[] key;
+  private final byte[] baseNonce;
+  private final byte[] nonce;
+  private final ByteBuffer assoData;
+  private final ByteBuffer plain;
+  private final ByteBuffer sealed;
+  private final int[] state;
+  private final int[] block;
+  private long record;
+  private boolean open = true;
+
+  public SchwaemmWritableChannel(WritableByteChannel out, Schwaemm schwaemm, SchwaemmKey key,
+      byte[] nonce) {
+    this(out, schwaemm, key, nonce, new byte[0], SchwaemmRecords.DEFAULT_RECORD_SIZE);
+  }
+
+  /**
+   * Creates the channel.
+   *
+   * @param out        channel receiving the records
+   * @param schwaemm   schwaemm.Schwaemm variant sealing the records
+   * @param key        key
+   * @param nonce      nonce prefix, see {@link SchwaemmSegmented}
+   * @param assoData   associated data, authenticated with every record
+   * @param recordSize number of message bytes per record
+   */
+  public SchwaemmWritableChannel(WritableByteChannel out, Schwaemm schwaemm, SchwaemmKey key,
+      byte[] nonce, byte[] assoData, int recordSize) {
+    SchwaemmRecords.checkRecordSize(recordSize);
+    this.out = out;
+    this.schwaemm = schwaemm;
+    this.key = key.words(schwaemm.type()).clone();
+    this.baseNonce = nonce.clone();
+    this.nonce = SchwaemmSegmented.segmentNonceBuffer(schwaemm.type(), nonce);
+    this.assoData = ByteBuffer.wrap(assoData.clone());
+    this.plain = DirectBufferPool.acquire(recordSize);
+    this.sealed = DirectBufferPool.acquire(
+        SchwaemmRecords.HEADER_BYTES + recordSize + schwaemm.tagBytes());
+    this.sealed.order(ByteOrder.LITTLE_ENDIAN);
+    this.state = new int[schwaemm.stateWords()];
+    this.block = new int[schwaemm.rateWords()];
+  }
+
+  @Override
+  public int write(ByteBuffer src) throws IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+    int written = 0;
+    while (src.hasRemaining()) {
+      if (!plain.hasRemaining()) {
+        seal(false);
+      }
+      int length = Math.min(src.remaining(), plain.remaining());
+      plain.put(plain.position(), src, src.position(), length);
+      plain.position(plain.position() + length);
+      src.position(src.position() + length);
+      written += length;
+    }
+    return written;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  /**
+   * Seals the remaining bytes as the last record and closes the underlying channel.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!open) {
+      return;
+    }
+    open = false;
+    try {
+      seal(true);
+    } finally {
+      DirectBufferPool.release(plain);
+      DirectBufferPool.release(sealed);
+      Arrays.fill(state, 0);
+      Arrays.fill(block, 0);
+      Arrays.fill(key, 0);
+      out.close();
+    }
+  }
+
+  private void seal(boolean last) throws IOException {
+    plain.flip();
+    sealed.clear();
+    sealed.putInt(0, SchwaemmRecords.header(plain.remaining(), last));
+    sealed.position(SchwaemmRecords.HEADER_BYTES);
+    SchwaemmSegmented.segmentNonce(baseNonce, record++, last, nonce);
+    assoData.clear();
+    schwaemm.encrypt(plain, sealed, assoData, key, nonce, state, block);
+    sealed.flip();
+    while (sealed.hasRemaining()) {
+      out.write(sealed);
+    }
+    plain.clear();
+  }
+}
@@ -1,7 +1,5 @@
 package sparkle;
 
-import java.util.Random;
-
 /***
  * http://www.crypto-uni.lu/jscoron/publications/secconvorder.pdf
  */
@@ -15,28 +13,65 @@ public class BooleanAddition {
      * @return shares of z
      */
     public static int[] secureBooleanAnd(int[] x, int[] y) {
-        int n = x.length;
-        int[][] r = new int[n][n];
+        return secureBooleanAnd(x, y, MaskRandomness.threadLocal());
+    }
 
-        for(int i = 0; i < n; i++){
-            for(int j = i + 1; j < n; j++) {
-                r[i][j] = new Random().nextInt(2);
-                r[j][i] = (r[i][j] ^ (x[i] & y[j])) ^ (x[j] & y[i]);
-            }
-        }
+    /***
+     * Takes as input shares of x and shares of y and returns shares of z, such that z = x & y
+     * @param x shares of x
+     * @param y shares of y
+     * @param random source of the fresh masks
+     * @return shares of z
+     */
+    public static int[] secureBooleanAnd(int[] x, int[] y, MaskRandomness random) {
+        int[] z = new int[x.length];
+        secureBooleanAnd(x, y, z, new Workspace(x.length), random);
+        return z;
+    }
 
-        int[] z = new int[n];
+    /***
+     * ISW multiplication of shares, writes shares of z = x & y into z without allocating. The
+     * random words of all share pairs are drawn at once into the workspace.
+     * @param x shares of x
+     * @param y shares of y
+     * @param z shares of z, must not be x or y
+     * @param workspace workspace for at least x.length shares
+     * @param random source of the fresh masks
+     */
+    public static void secureBooleanAnd(int[] x, int[] y, int[] z, Workspace workspace,
+            MaskRandomness random) {
+        secureBooleanAnd(x, y, z, x.length, workspace, random);
+    }
+
+    /***
+     * ISW multiplication of the first n shares of x and y, see
+     * {@link #secureBooleanAnd(int[], int[], int[], Workspace, MaskRandomness)}.
+     * @param x shares of x
+     * @param y shares of y
+     * @param z shares of z, must not be x or y
+     * @param n number of shares
+     * @param workspace workspace for at least n shares
+     * @param random source of the fresh masks
+     */
+    public static void secureBooleanAnd(int[] x, int[] y, int[] z, int n, Workspace workspace,
+            MaskRandomness random) {
+        if (workspace.w.length < n) {
+            throw new IllegalArgumentException("Workspace is too small for " + n + " shares!");
+        }
+        int[] r = workspace.masks;
+        random.nextMasks(r, 0, n * (n - 1) / 2);
 
-        for(int i = 0; i < n; i++){
+        for (int i = 0; i < n; i++) {
             z[i] = x[i] & y[i];
-            for(int j = 0; j < n; j++){
-                if(i != j){
-                    z[i] = z[i] ^ r[i][j];
-                }
+        }
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                z[i] ^= r[k];
+                z[j] ^= (r[k] ^ (x[i] & y[j])) ^ (x[j] & y[i]);
+                r[k++] = 0;
             }
         }
-
-        return z;
     }
 
     /***
@@ -46,30 +81,101 @@ public class BooleanAddition {
      * @return shares of z
      */
     public static int[] secureBooleanAdditionGoubin(int[] x, int[] y){
-        int n = x.length;
+        return secureBooleanAdditionGoubin(x, y, MaskRandomness.threadLocal());
+    }
+
+    /***
+     * Takes as input shares of x and shares of y and returns shares of z, such that z = x + y
+     * @param x shares of x
+     * @param y shares of y
+     * @param random source of the fresh masks
+     * @return shares of z
+     */
+    public static int[] secureBooleanAdditionGoubin(int[] x, int[] y, MaskRandomness random){
+        int[] z = new int[x.length];
+        secureBooleanAdditionGoubin(x, y, z, new Workspace(x.length), random);
+        return z;
+    }
+
+    /***
+     * Writes shares of z = x + y into z, using only the arrays of the workspace.
+     * @param x shares of x
+     * @param y shares of y
+     * @param z shares of z, may be x or y
+     * @param workspace workspace for at least x.length shares
+     * @param random source of the fresh masks
+     */
+    public static void secureBooleanAdditionGoubin(int[] x, int[] y, int[] z, Workspace workspace,
+            MaskRandomness random) {
+        secureBooleanAdditionGoubin(x, y, z, x.length, workspace, random);
+    }
+
+    /***
+     * Addition of the first n shares of x and y, see
+     * {@link #secureBooleanAdditionGoubin(int[], int[], int[], Workspace, MaskRandomness)}.
+     * @param x shares of x
+     * @param y shares of y
+     * @param z shares of z, may be x or y
+     * @param n number of shares
+     * @param workspace workspace for at least n shares
+     * @param random source of the fresh masks
+     */
+    public static void secureBooleanAdditionGoubin(int[] x, int[] y, int[] z, int n,
+            Workspace workspace, MaskRandomness random) {
         int k = 32; //bit length
+        int[] w = workspace.w;
+        int[] u = workspace.u;
+        int[] a = workspace.a;
+        int[] ua = workspace.ua;
 
-        int[] w = secureBooleanAnd(x, y);
-        int[] u = new int[n];
-        int[] a = new int[n];
+        secureBooleanAnd(x, y, w, n, workspace, random);
 
-        for(int i = 0; i < n; i++){
+        for (int i = 0; i < n; i++) {
+            u[i] = 0;
             a[i] = x[i] ^ y[i];
         }
 
         for (int j = 0; j < k; j++) {
-            int[] ua = secureBooleanAnd(u, a);
+            secureBooleanAnd(u, a, ua, n, workspace, random);
 
             for (int i = 0; i < n; i++) {
-                u[i] = 2 * (ua[i] ^ w[i]); //Maybe wrong as ints are not unsigned
+                u[i] = 2 * (ua[i] ^ w[i]);
             }
         }
 
-        int[] z = new int[n];
+        for (int i = 0; i < n; i++) {
+            z[i] = a[i] ^ u[i];
+        }
+        workspace.clear(n);
+    }
+
+    /***
+     * Scratch arrays of the allocation-free gadgets for a fixed maximum number of shares. A
+     * workspace must only be used by one thread at a time.
+     */
+    public static final class Workspace {
+
+        private final int[] masks;
+        private final int[] w;
+        private final int[] u;
+        private final int[] a;
+        private final int[] ua;
 
-        for(int i = 0; i < n; i++){
-            z[i] = x[i] ^ y[i] ^ u[i];
+        public Workspace(int shares) {
+            this.masks = new int[shares * (shares - 1) / 2];
+            this.w = new int[shares];
+            this.u = new int[shares];
+            this.a = new int[shares];
+            this.ua = new int[shares];
+        }
+
+        private void clear(int n) {
+            for (int i = 0; i < n; i++) {
+                w[i] = 0;
+                u[i] = 0;
+                a[i] = 0;
+                ua[i] = 0;
+            }
         }
-        return z;
     }
 }
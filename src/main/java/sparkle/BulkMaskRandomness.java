@@ -0,0 +1,108 @@
+package sparkle;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+/**
+ * Thread-confined {@link MaskRandomness} that hands out masks from a buffer refilled in bulk, so
+ * the underlying generator is called once per buffer instead of once per mask. An instance must
+ * only be used by one thread at a time.
+ */
+public final class BulkMaskRandomness implements MaskRandomness {
+
+  static final int DEFAULT_WORDS = 1024;
+
+  private final Refill refill;
+  private final int[] buffer;
+  private int position;
+
+  /**
+   * Masks drawn from a SecureRandom, which is only used by this instance.
+   *
+   * @param random generator, not shared with other threads
+   * @param words  number of masks fetched per refill
+   */
+  public BulkMaskRandomness(SecureRandom random, int words) {
+    this(new SecureRefill(random, words), words);
+  }
+
+  /**
+   * Masks drawn from a word generator, for example a seeded pseudo random generator.
+   *
+   * @param generator generator of the masks
+   * @param words     number of masks fetched per refill
+   */
+  public BulkMaskRandomness(IntSupplier generator, int words) {
+    this(buffer -> {
+      for (int i = 0; i < buffer.length; i++) {
+        buffer[i] = generator.getAsInt();
+      }
+    }, words);
+  }
+
+  BulkMaskRandomness(Refill refill, int words) {
+    if (words <= 0) {
+      throw new IllegalArgumentException("Buffer must hold at least one mask!");
+    }
+    this.refill = refill;
+    this.buffer = new int[words];
+    this.position = words;
+  }
+
+  @Override
+  public int nextMask() {
+    if (position == buffer.length) {
+      refill.fill(buffer);
+      position = 0;
+    }
+    int mask = buffer[position];
+    buffer[position++] = 0;
+    return mask;
+  }
+
+  @Override
+  public void nextMasks(int[] masks, int offset, int length) {
+    while (length > 0) {
+      if (position == buffer.length) {
+        refill.fill(buffer);
+        position = 0;
+      }
+      int copy = Math.min(length, buffer.length - position);
+      System.arraycopy(buffer, position, masks, offset, copy);
+      Arrays.fill(buffer, position, position + copy, 0);
+      position += copy;
+      offset += copy;
+      length -= copy;
+    }
+  }
+
+  /**
+   * Fills the whole buffer with fresh masks.
+   */
+  interface Refill {
+
+    void fill(int[] buffer);
+  }
+
+  private static final class SecureRefill implements Refill {
+
+    private final SecureRandom random;
+    private final byte[] bytes;
+
+    SecureRefill(SecureRandom random, int words) {
+      this.random = random;
+      this.bytes = new byte[4 * words];
+    }
+
+    @Override
+    public void fill(int[] buffer) {
+      random.nextBytes(bytes);
+      for (int i = 0; i < buffer.length; i++) {
+        buffer[i] = (bytes[4 * i] & 0xFF) | (bytes[4 * i + 1] & 0xFF) << 8
+            | (bytes[4 * i + 2] & 0xFF) << 16 | bytes[4 * i + 3] << 24;
+      }
+      Arrays.fill(bytes, (byte) 0);
+    }
+  }
+}
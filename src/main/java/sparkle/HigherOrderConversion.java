@@ -0,0 +1,180 @@
+package sparkle;
+
+import java.util.Arrays;
+
+/**
+ * Conversions between arithmetic and Boolean masking of any order, after Coron, Grossschaedl and
+ * Vadnay. Arithmetic to Boolean splits the shares into two halves, converts both, expands every
+ * share of a half into two and adds the halves with {@link BooleanAddition}. An odd share count
+ * leaves the lower half one share short, it is padded with zero shares, the halves are added on
+ * one share more and the extra share is folded back into the last one. The halving is planned once
+ * in the constructor and then run bottom up, each sum written back in place of the shares it
+ * covers, so a conversion needs neither recursion nor allocation.
+ *
+ * <p>All buffers are allocated for a fixed share count and reused by every conversion. An instance
+ * must only be used by one thread at a time.
+ */
+public final class HigherOrderConversion {
+
+  private final int shares;
+  private final MaskRandomness random;
+  // Internal nodes of the halving, children before their parent: first share, share count and
+  // share count of the left half.
+  private final int[] nodeStart;
+  private final int[] nodeCount;
+  private final int[] nodeLeft;
+  private final int[] left;
+  private final int[] right;
+  private final int[] masks;
+  private final int[] arithmetic;
+  private final int[] converted;
+  private final BooleanAddition.Workspace workspace;
+
+  /**
+   * Creates the engine.
+   *
+   * @param shares number of shares of every conversion
+   * @param random source of the fresh masks
+   */
+  public HigherOrderConversion(int shares, MaskRandomness random) {
+    if (shares <= 0) {
+      throw new IllegalArgumentException("At least one share is needed!");
+    }
+    this.shares = shares;
+    this.random = random;
+    this.nodeStart = new int[shares - 1];
+    this.nodeCount = new int[shares - 1];
+    this.nodeLeft = new int[shares - 1];
+    plan(0, shares, 0);
+    // An odd node adds on one share more than it covers.
+    this.left = new int[shares + 1];
+    this.right = new int[shares + 1];
+    this.masks = new int[shares];
+    this.arithmetic = new int[shares];
+    this.converted = new int[shares];
+    this.workspace = new BooleanAddition.Workspace(shares + 1);
+  }
+
+  public int shares() {
+    return shares;
+  }
+
+  /**
+   * Converts arithmetic shares, which sum up to the value modulo 2^32, into Boolean shares.
+   *
+   * @param a arithmetic shares
+   * @param b Boolean shares, may be a
+   */
+  public void arithmeticToBoolean(int[] a, int[] b) {
+    System.arraycopy(a, 0, b, 0, shares);
+    convert(b);
+  }
+
+  /**
+   * Converts Boolean shares into arithmetic shares. All but the last arithmetic share are fresh
+   * masks, the last one is the value minus their sum, computed on Boolean shares.
+   *
+   * @param b Boolean shares
+   * @param a arithmetic shares, may be b
+   */
+  public void booleanToArithmetic(int[] b, int[] a) {
+    random.nextMasks(arithmetic, 0, shares - 1);
+    for (int i = 0; i < shares - 1; i++) {
+      converted[i] = -arithmetic[i];
+    }
+    converted[shares - 1] = 0;
+    convert(converted);
+    BooleanAddition.secureBooleanAdditionGoubin(b, converted, converted, shares, workspace,
+        random);
+    refresh(converted);
+    int last = 0;
+    for (int i = 0; i < shares; i++) {
+      last ^= converted[i];
+    }
+    System.arraycopy(arithmetic, 0, a, 0, shares - 1);
+    a[shares - 1] = last;
+    Arrays.fill(arithmetic, 0);
+    Arrays.fill(converted, 0);
+  }
+
+  /**
+   * Boolean shares of x + y modulo 2^32 from Boolean shares of x and y, added on arithmetic shares.
+   *
+   * @param x Boolean shares of x, overwritten
+   * @param y Boolean shares of y, overwritten
+   * @param z Boolean shares of the sum, may be x or y
+   */
+  public void add(int[] x, int[] y, int[] z) {
+    booleanToArithmetic(x, x);
+    booleanToArithmetic(y, y);
+    for (int i = 0; i < shares; i++) {
+      z[i] = x[i] + y[i];
+    }
+    convert(z);
+  }
+
+  /**
+   * Lists the internal nodes of the halving of [start, start + count) in post order.
+   *
+   * @return index of the next free node
+   */
+  private int plan(int start, int count, int index) {
+    if (count == 1) {
+      return index;
+    }
+    int left = count / 2;
+    index = plan(start, left, index);
+    index = plan(start + left, count - left, index);
+    nodeStart[index] = start;
+    nodeCount[index] = count;
+    nodeLeft[index] = left;
+    return index + 1;
+  }
+
+  /**
+   * Converts arithmetic shares into Boolean shares in place. A single share is both, so every node
+   * finds the Boolean shares of its halves where their arithmetic shares were.
+   */
+  private void convert(int[] b) {
+    for (int node = 0; node < nodeStart.length; node++) {
+      int start = nodeStart[node];
+      int count = nodeCount[node];
+      int half = nodeLeft[node];
+      expand(b, start, half, left);
+      expand(b, start + half, count - half, right);
+      if (count % 2 == 0) {
+        BooleanAddition.secureBooleanAdditionGoubin(left, right, left, count, workspace, random);
+      } else {
+        left[count - 1] = 0;
+        left[count] = 0;
+        BooleanAddition.secureBooleanAdditionGoubin(left, right, left, count + 1, workspace,
+            random);
+        left[count - 1] ^= left[count];
+      }
+      System.arraycopy(left, 0, b, start, count);
+    }
+    Arrays.fill(left, 0);
+    Arrays.fill(right, 0);
+  }
+
+  /**
+   * Splits each of m Boolean shares into two, the share masked with a fresh mask and the mask.
+   */
+  private void expand(int[] src, int offset, int m, int[] dst) {
+    random.nextMasks(masks, 0, m);
+    for (int i = 0; i < m; i++) {
+      dst[2 * i] = src[offset + i] ^ masks[i];
+      dst[2 * i + 1] = masks[i];
+    }
+    Arrays.fill(masks, 0, m, 0);
+  }
+
+  private void refresh(int[] b) {
+    random.nextMasks(masks, 0, shares - 1);
+    for (int j = 1; j < shares; j++) {
+      b[0] ^= masks[j - 1];
+      b[j] ^= masks[j - 1];
+    }
+    Arrays.fill(masks, 0);
+  }
+}
@@ -0,0 +1,54 @@
+package sparkle;
+
+import java.util.SplittableRandom;
+import java.util.function.IntSupplier;
+
+/**
+ * Source of the fresh random words the masked sparkle.Sparkle engines draw while they compute on
+ * shares. Engines receive one through their constructor. Implementations decide how they are
+ * shared between threads, see {@link #threadLocal()} and {@link #deterministic(long)}.
+ */
+public interface MaskRandomness {
+
+  /**
+   * Next uniformly random 32 bit mask.
+   *
+   * @return the mask
+   */
+  int nextMask();
+
+  /**
+   * Fills a range of words with masks.
+   *
+   * @param masks  words to fill
+   * @param offset index of the first word
+   * @param length number of words
+   */
+  default void nextMasks(int[] masks, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      masks[i] = nextMask();
+    }
+  }
+
+  /**
+   * Randomness shared by all threads without contention. Every thread draws from its own
+   * {@link SparkleDrbg}, seeded by its own SecureRandom.
+   *
+   * @return the shared instance
+   */
+  static MaskRandomness threadLocal() {
+    return ThreadLocalMaskRandomness.INSTANCE;
+  }
+
+  /**
+   * Reproducible randomness for tests and benchmarks. The masks are predictable, so this must never
+   * protect real secrets. The instance must only be used by one thread at a time.
+   *
+   * @param seed seed of the sequence
+   * @return a new source
+   */
+  static MaskRandomness deterministic(long seed) {
+    IntSupplier generator = new SplittableRandom(seed)::nextInt;
+    return new BulkMaskRandomness(generator, BulkMaskRandomness.DEFAULT_WORDS);
+  }
+}
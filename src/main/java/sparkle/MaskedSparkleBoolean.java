@@ -1,5 +1,7 @@
 package sparkle;
 
+import java.util.Arrays;
+
 public class MaskedSparkleBoolean implements MaskedSparkle {
     public static final int maxBranches = 8;
     private static final int[] rcon =
@@ -13,6 +15,21 @@ public class MaskedSparkleBoolean implements MaskedSparkle {
                     -809524792,
                     -1028445891
             };
+    private final MaskRandomness random;
+    private final ThreadLocal<Buffers> buffers = new ThreadLocal<>();
+
+    public MaskedSparkleBoolean() {
+        this(MaskRandomness.threadLocal());
+    }
+
+    /**
+     * Creates the engine.
+     *
+     * @param random source of the fresh masks drawn during the permutation
+     */
+    public MaskedSparkleBoolean(MaskRandomness random) {
+        this.random = random;
+    }
 
     @Override
     public void sparkle256(int[][] stateShares) {
@@ -52,17 +69,18 @@ public class MaskedSparkleBoolean implements MaskedSparkle {
         return rot(x ^ (x << 16), 16);
     }
 
-    private static void sparkle(int[][] stateShares, int brans, int steps) {
+    private void sparkle(int[][] stateShares, int brans, int steps) {
         int rc, tmpx, tmpy, x0, y0;
+        Buffers buffers = buffers(stateShares.length);
         for (int i = 0; i < steps; i++) {
             stateShares[0][1] ^= rcon[i % maxBranches]; //Only XOR by constant to first share or every odd share
             stateShares[0][3] ^= i;
             for (int j = 0; j < 2 * brans; j += 2) {
                 rc = rcon[j >> 1];
-                alzetteRound(stateShares, j, 31, 24, rc);
-                alzetteRound(stateShares, j, 17, 17, rc);
-                alzetteRound(stateShares, j, 0, 31, rc);
-                alzetteRound(stateShares, j, 24, 16, rc);
+                alzetteRound(stateShares, j, 31, 24, rc, buffers);
+                alzetteRound(stateShares, j, 17, 17, rc, buffers);
+                alzetteRound(stateShares, j, 0, 31, rc, buffers);
+                alzetteRound(stateShares, j, 24, 16, rc, buffers);
             }
 
             for(int[] state : stateShares){
@@ -86,6 +104,33 @@ public class MaskedSparkleBoolean implements MaskedSparkle {
                 state[brans + 1] = y0;
             }
         }
+        Arrays.fill(buffers.shares, 0);
+        Arrays.fill(buffers.toAdd, 0);
+    }
+
+    private Buffers buffers(int shares) {
+        Buffers current = buffers.get();
+        if (current == null || current.shares.length != shares) {
+            current = new Buffers(shares);
+            buffers.set(current);
+        }
+        return current;
+    }
+
+    /**
+     * Scratch arrays of the additions of one thread, shared by all rounds and calls.
+     */
+    static final class Buffers {
+
+        private final int[] shares;
+        private final int[] toAdd;
+        private final BooleanAddition.Workspace workspace;
+
+        Buffers(int shares) {
+            this.shares = new int[shares];
+            this.toAdd = new int[shares];
+            this.workspace = new BooleanAddition.Workspace(shares);
+        }
     }
 
     private static void sparkleInverse(int[] state, int brans, int steps) {
@@ -132,19 +177,21 @@ public class MaskedSparkleBoolean implements MaskedSparkle {
         state[j] -= rot(state[j + 1], shiftTwo);
     }
 
-    static void alzetteRound(int[][] stateShares, int j, int shiftOne, int shiftTwo, int rc) {
+    void alzetteRound(int[][] stateShares, int j, int shiftOne, int shiftTwo, int rc,
+            Buffers buffers) {
+        int[] shares = buffers.shares;
+        int[] toAdd = buffers.toAdd;
         // Let state[j] be x and state[j+1] be y
-        int[] shares = new int[stateShares.length];
-        int[] toAdd = new int[stateShares.length];
         for(int i = 0; i < stateShares.length; i++){
             shares[i] = stateShares[i][j];
             toAdd[i] = rot(stateShares[i][j + 1], shiftOne);
         }
 
-        int[] newShares = BooleanAddition.secureBooleanAdditionGoubin(shares, toAdd);
+        BooleanAddition.secureBooleanAdditionGoubin(shares, toAdd, shares, buffers.workspace,
+                random);
 
         for(int i = 0; i < stateShares.length; i++){
-            stateShares[i][j] = newShares[i];
+            stateShares[i][j] = shares[i];
             stateShares[i][j + 1] ^= rot(stateShares[i][j], shiftTwo);
         }
 
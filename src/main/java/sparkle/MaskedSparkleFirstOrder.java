@@ -1,6 +1,5 @@
 package sparkle;
 
-import java.util.Random;
 
 /**
  * sparkle.Sparkle permutation.
@@ -10,7 +9,20 @@ public final class MaskedSparkleFirstOrder implements MaskedSparkle {
     public static final int maxBranches = 8;
     private static final int[] rcon = new int[]{-1209970334, -1083090816, 951376470, 844003128,
             -1156479509, 1333558103, -809524792, -1028445891};
-    private static final Random random = new Random(123);
+    private final MaskRandomness random;
+
+    public MaskedSparkleFirstOrder() {
+        this(MaskRandomness.threadLocal());
+    }
+
+    /**
+     * Creates the engine.
+     *
+     * @param random source of the fresh masks drawn during the permutation
+     */
+    public MaskedSparkleFirstOrder(MaskRandomness random) {
+        this.random = random;
+    }
 
     static int rot(int x, int n) {
         return (x >>> n) | (x << (32 - n));
@@ -20,7 +32,7 @@ public final class MaskedSparkleFirstOrder implements MaskedSparkle {
         return rot(x ^ (x << 16), 16);
     }
 
-    private static void sparkle(int[][] state, int brans, int steps) {
+    private void sparkle(int[][] state, int brans, int steps) {
         for (int i = 0; i < steps; i++) {
             state[0][1] ^= rcon[i % maxBranches];
             state[0][3] ^= i;
@@ -60,7 +72,7 @@ public final class MaskedSparkleFirstOrder implements MaskedSparkle {
         state[brans + 1] = y0;
     }
 
-    static void alzetteRound(int[][] state, int j, int shiftOne, int shiftTwo, int rc) {
+    void alzetteRound(int[][] state, int j, int shiftOne, int shiftTwo, int rc) {
         int toAdd0 = rot(state[0][j + 1], shiftOne);
         int stateJ0 = booleanToArithmetic(state[0][j], state[1][j]);
         stateJ0 += toAdd0;
@@ -74,8 +86,8 @@ public final class MaskedSparkleFirstOrder implements MaskedSparkle {
         state[1][j] ^= rc;
     }
 
-    public static int booleanToArithmetic(int x, int r) {
-        long gamma = random.nextInt(Integer.MAX_VALUE);
+    public int booleanToArithmetic(int x, int r) {
+        long gamma = random.nextMask();
         long T = x ^ gamma;
         T = T - gamma;
         T = T ^ x;
@@ -85,8 +97,8 @@ public final class MaskedSparkleFirstOrder implements MaskedSparkle {
         return (int) (A ^ T);
     }
 
-    public static int arithmeticToBoolean(int A, int r) {
-        int gamma = random.nextInt(Integer.MAX_VALUE);
+    public int arithmeticToBoolean(int A, int r) {
+        int gamma = random.nextMask();
         int T = 2 * gamma;
         int x = gamma ^ r;
         int omega = gamma & x;
@@ -1,6 +1,5 @@
 package sparkle;
 
-import java.util.Random;
 
 /**
  * sparkle.Sparkle permutation.
@@ -10,7 +9,20 @@ public final class MaskedSparkleGoubin implements MaskedSparkle {
     public static final int maxBranches = 8;
     private static final int[] rcon = new int[]{-1209970334, -1083090816, 951376470, 844003128,
             -1156479509, 1333558103, -809524792, -1028445891};
-    private static final Random random = new Random(123);
+    private final MaskRandomness random;
+
+    public MaskedSparkleGoubin() {
+        this(MaskRandomness.threadLocal());
+    }
+
+    /**
+     * Creates the engine.
+     *
+     * @param random source of the fresh masks drawn during the permutation
+     */
+    public MaskedSparkleGoubin(MaskRandomness random) {
+        this.random = random;
+    }
 
     static int rot(int x, int n) {
         return (x >>> n) | (x << (32 - n));
@@ -20,7 +32,7 @@ public final class MaskedSparkleGoubin implements MaskedSparkle {
         return rot(x ^ (x << 16), 16);
     }
 
-    private static void sparkle(int[][] state, int brans, int steps) {
+    private void sparkle(int[][] state, int brans, int steps) {
         for (int i = 0; i < steps; i++) {
             state[0][1] ^= rcon[i % maxBranches];
             state[0][3] ^= i;
@@ -60,7 +72,7 @@ public final class MaskedSparkleGoubin implements MaskedSparkle {
         state[brans + 1] = y0;
     }
 
-    static void alzetteRound(int[][] state, int j, int shiftOne, int shiftTwo, int rc) {
+    void alzetteRound(int[][] state, int j, int shiftOne, int shiftTwo, int rc) {
         int toAdd0 = rot(state[0][j + 1], shiftOne);
         int toAdd1 = rot(state[1][j + 1], shiftOne);
         int[] addRes = secAdd(toAdd1, state[1][j], toAdd0, state[0][j]);
@@ -73,8 +85,8 @@ public final class MaskedSparkleGoubin implements MaskedSparkle {
         state[1][j] ^= rc;
     }
 
-    static int[] secAdd(int x, int y, int rx, int ry){
-        int C = random.nextInt(Integer.MAX_VALUE);
+    int[] secAdd(int x, int y, int rx, int ry){
+        int C = random.nextMask();
         int T, omega, B, A0, A1;
         T = x & y;   omega = C ^ T;
         T = x & ry;  omega = omega ^ T;
@@ -1,7 +1,6 @@
 package sparkle;
 
 import java.util.Arrays;
-import java.util.Random;
 
 /**
  * sparkle.Sparkle permutation.
@@ -11,7 +10,22 @@ public final class MaskedSparkleHigherOrder implements MaskedSparkle {
   public static final int maxBranches = 8;
   private static final int[] rcon = new int[]{-1209970334, -1083090816, 951376470, 844003128,
       -1156479509, 1333558103, -809524792, -1028445891};
-  private static final Random random = new Random(123);
+  private final MaskRandomness random;
+  // Buffers of the last share count seen by each thread, reused across permutations.
+  private final ThreadLocal<Buffers> buffers = new ThreadLocal<>();
+
+  public MaskedSparkleHigherOrder() {
+    this(MaskRandomness.threadLocal());
+  }
+
+  /**
+   * Creates the engine.
+   *
+   * @param random source of the fresh masks drawn during the permutation
+   */
+  public MaskedSparkleHigherOrder(MaskRandomness random) {
+    this.random = random;
+  }
 
   static int rot(int x, int n) {
     return (x >>> n) | (x << (32 - n));
@@ -21,21 +35,24 @@ public final class MaskedSparkleHigherOrder implements MaskedSparkle {
     return rot(x ^ (x << 16), 16);
   }
 
-  private static void sparkle(int[][] state, int brans, int steps) {
+  private void sparkle(int[][] state, int brans, int steps) {
+    Buffers buffers = buffers(state.length);
     for (int i = 0; i < steps; i++) {
       state[0][1] ^= rcon[i % maxBranches];
       state[0][3] ^= i;
       for (int j = 0; j < 2 * brans; j += 2) {
         int rc = rcon[j >> 1];
-        alzetteRound(state, j, 31, 24, rc);
-        alzetteRound(state, j, 17, 17, rc);
-        alzetteRound(state, j, 0, 31, rc);
-        alzetteRound(state, j, 24, 16, rc);
+        alzetteRound(state, j, 31, 24, rc, buffers);
+        alzetteRound(state, j, 17, 17, rc, buffers);
+        alzetteRound(state, j, 0, 31, rc, buffers);
+        alzetteRound(state, j, 24, 16, rc, buffers);
       }
       for (int[] s : state) {
         binarySparkleOperations(s, brans);
       }
     }
+    Arrays.fill(buffers.statesJ, 0);
+    Arrays.fill(buffers.toAdds, 0);
   }
 
   static void binarySparkleOperations(int[] state, int brans) {
@@ -60,103 +77,56 @@ public final class MaskedSparkleHigherOrder implements MaskedSparkle {
     state[brans + 1] = y0;
   }
 
-  static void alzetteRound(int[][] state, int j, int shiftOne, int shiftTwo, int rc) {
-    int[] toAdds = new int[state.length];
-    int[] statesJ = new int[state.length];
-    for (int i = 0; i < toAdds.length; i++) {
+  void alzetteRound(int[][] state, int j, int shiftOne, int shiftTwo, int rc, Buffers buffers) {
+    int[] statesJ = buffers.statesJ;
+    int[] toAdds = buffers.toAdds;
+    for (int i = 0; i < state.length; i++) {
       toAdds[i] = rot(state[i][j + 1], shiftOne);
       statesJ[i] = state[i][j];
     }
-
-    int[] statesA = booleanToArithmeticHigherOrder(statesJ);
-    int[] toAddsA = booleanToArithmeticHigherOrder(toAdds);
-    for (int i = 0; i < state.length; i++) {
-      statesA[i] = statesA[i] + toAddsA[i];
-    }
-    int[] statesB = convertAToB(statesA);
+    buffers.conversion.add(statesJ, toAdds, statesJ);
     for (int i = 0; i < state.length; i++) {
-      state[i][j] = statesB[i];
+      state[i][j] = statesJ[i];
       state[i][j + 1] ^= rot(state[i][j], shiftTwo);
     }
     state[0][j] ^= rc; //Only XOR by constant to first share or every odd share
   }
 
-  public static int[] booleanToArithmeticHigherOrder(int x[]) {
-    int[] A = new int[x.length];
-    int[] ADot = new int[x.length];
-    for (int i = 0; i < A.length - 1; i++) {
-      int rand = random.nextInt(Integer.MAX_VALUE);
-      A[i] = rand;
-      ADot[i] = -rand;
-    }
-    int[] y = convertAToB(ADot);
-    int[] z = BooleanAddition.secureBooleanAdditionGoubin(x, y);
-    A[A.length - 1] = fullXOR(z);
-    return A;
-  }
-
-  private static int fullXOR(int[] y) {
-    refreshMasks(y);
-    int res = 0;
-    for (int number : y) {
-      res ^= number;
-    }
-    return res;
+  public int[] booleanToArithmeticHigherOrder(int[] x) {
+    int[] a = new int[x.length];
+    buffers(x.length).conversion.booleanToArithmetic(x, a);
+    return a;
   }
 
-  private static void refreshMasks(int[] toRefresh) {
-    for (int j = 1; j < toRefresh.length; j++) {
-      int tmp = random.nextInt(Integer.MAX_VALUE);
-      toRefresh[0] ^= tmp;
-      toRefresh[j] ^= tmp;
-    }
+  public int[] convertAToB(int[] a) {
+    int[] b = new int[a.length];
+    buffers(a.length).conversion.arithmeticToBoolean(a, b);
+    return b;
   }
 
-  public static int[] convertAToBEven(int[] A) {
-    if (A.length == 1) {
-      return A;
+  private Buffers buffers(int shares) {
+    Buffers current = buffers.get();
+    if (current == null || current.conversion.shares() != shares) {
+      current = new Buffers(new HigherOrderConversion(shares, random));
+      buffers.set(current);
     }
-
-    int[] aLower = Arrays.copyOf(A, A.length / 2);
-    int[] x = convertAToBEven(aLower);
-    int[] xDot = expand(x);
-    int[] aUpper = Arrays.copyOfRange(A, A.length / 2, A.length);
-    int[] y = convertAToBEven(aUpper);
-    int[] yDot = expand(y);
-
-    return BooleanAddition.secureBooleanAdditionGoubin(xDot, yDot);
+    return current;
   }
 
-  public static int[] convertAToBOdd(int[] A) {
-    if (A.length == 1) {
-      return A;
-    }
-    int[] x = convertAToBOdd(Arrays.copyOf(A, A.length / 2));
-    int[] xDot = expand(x);
-    int[] y = convertAToBOdd(Arrays.copyOfRange(A, A.length / 2, A.length));
-    int[] yDot = expand(y);
-    if (xDot.length < yDot.length) {
-      xDot = Arrays.copyOf(xDot, A.length + 1);
-    }
-    int[] ints = BooleanAddition.secureBooleanAdditionGoubin(xDot, yDot);
+  /**
+   * Conversion engine and share columns of one thread.
+   */
+  static final class Buffers {
 
-    ints[ints.length - 2] ^= ints[ints.length - 1];
-    ints[ints.length - 1] = 0;
-    return ints;
-  }
-
-  public static int[] convertAToB(int[] A) {
-    return A.length % 2 == 0 ? convertAToBEven(A) : convertAToBOdd(A);
-  }
+    private final HigherOrderConversion conversion;
+    private final int[] statesJ;
+    private final int[] toAdds;
 
-  public static int[] expand(int[] elements) {
-    int[] y = new int[elements.length * 2];
-    for (int i = 0; i < elements.length; i++) {
-      int r = random.nextInt(Integer.MAX_VALUE);
-      y[2 * i] = elements[i] ^ r;
-      y[2 * i + 1] = r;
+    Buffers(HigherOrderConversion conversion) {
+      this.conversion = conversion;
+      this.statesJ = new int[conversion.shares()];
+      this.toAdds = new int[conversion.shares()];
     }
-    return y;
   }
 
   @Override
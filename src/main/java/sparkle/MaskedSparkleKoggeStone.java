@@ -1,7 +1,6 @@
 package sparkle;
 
 import java.util.Arrays;
-import java.util.Random;
 
 /**
  * sparkle.Sparkle permutation.
@@ -11,7 +10,20 @@ public final class MaskedSparkleKoggeStone implements MaskedSparkle {
     public static final int maxBranches = 8;
     private static final int[] rcon = new int[]{-1209970334, -1083090816, 951376470, 844003128,
             -1156479509, 1333558103, -809524792, -1028445891};
-    private static final Random random = new Random(123);
+    private final MaskRandomness random;
+
+    public MaskedSparkleKoggeStone() {
+        this(MaskRandomness.threadLocal());
+    }
+
+    /**
+     * Creates the engine.
+     *
+     * @param random source of the fresh masks drawn during the permutation
+     */
+    public MaskedSparkleKoggeStone(MaskRandomness random) {
+        this.random = random;
+    }
 
     static int rot(int x, int n) {
         return (x >>> n) | (x << (32 - n));
@@ -21,7 +33,7 @@ public final class MaskedSparkleKoggeStone implements MaskedSparkle {
         return rot(x ^ (x << 16), 16);
     }
 
-    private static void sparkle(int[][] state, int brans, int steps) {
+    private void sparkle(int[][] state, int brans, int steps) {
         for (int i = 0; i < steps; i++) {
             state[0][1] ^= rcon[i % maxBranches];
             state[0][3] ^= i;
@@ -61,7 +73,7 @@ public final class MaskedSparkleKoggeStone implements MaskedSparkle {
         state[brans + 1] = y0;
     }
 
-    static void alzetteRound(int[][] state, int j, int shiftOne, int shiftTwo, int rc) {
+    void alzetteRound(int[][] state, int j, int shiftOne, int shiftTwo, int rc) {
         int toAdd0 = rot(state[0][j + 1], shiftOne);
         int toAdd1 = rot(state[1][j + 1], shiftOne);
         state[1][j] = koggeStoneMaskedAddition(toAdd1, state[1][j], state[0][j], toAdd0);
@@ -70,10 +82,10 @@ public final class MaskedSparkleKoggeStone implements MaskedSparkle {
         state[1][j] ^= rc;
     }
 
-    public static int koggeStoneMaskedAddition(int x, int y, int r, int s) {
+    public int koggeStoneMaskedAddition(int x, int y, int r, int s) {
         int n = 5;
-        int t = random.nextInt(Integer.MAX_VALUE);
-        int u = random.nextInt(Integer.MAX_VALUE);
+        int t = random.nextMask();
+        int u = random.nextMask();
         int p = secXor(x, y, r);
         int g = secAnd(x, y, s, r, u);
         g = g ^ s;
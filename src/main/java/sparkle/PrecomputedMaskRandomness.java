@@ -0,0 +1,270 @@
+package sparkle;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link MaskRandomness} that generates masks ahead of time, so the masked engines spend no time on
+ * randomness while they run. Every consuming thread gets its own ring buffer, which is filled by
+ * one of the background producer threads with masks of their {@link SparkleDrbg}. A ring has a
+ * single producer and a single consumer, so neither side takes a lock or waits for the other.
+ *
+ * <p>Producers top up the rings whenever they are idle and are woken up as soon as a ring drops
+ * below its low watermark. If a ring runs dry anyway, the missing masks are generated inline by the
+ * {@link SparkleDrbg} of the consuming thread, so consumers never block. Rings of threads that
+ * have terminated are dropped by the producers.
+ */
+public final class PrecomputedMaskRandomness implements MaskRandomness, AutoCloseable {
+
+  public static final int DEFAULT_CAPACITY = 1 << 14;
+  // Upper bound of the time a producer sleeps before it checks all of its rings again.
+  private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final int capacity;
+  private final int lowWatermark;
+  private final Producer[] producers;
+  private final ThreadLocal<Ring> rings = ThreadLocal.withInitial(this::register);
+  private final AtomicLong registered = new AtomicLong();
+  private final AtomicBoolean closed = new AtomicBoolean();
+  private final LongAdder inlineMasks = new LongAdder();
+
+  public PrecomputedMaskRandomness() {
+    this(1, DEFAULT_CAPACITY, DEFAULT_CAPACITY / 4);
+  }
+
+  /**
+   * Starts the producer threads, which are daemon threads and run until {@link #close()}.
+   *
+   * @param producers    number of producer threads
+   * @param capacity     masks per ring, a power of two
+   * @param lowWatermark number of masks left in a ring that wakes up its producer
+   */
+  public PrecomputedMaskRandomness(int producers, int capacity, int lowWatermark) {
+    if (producers <= 0) {
+      throw new IllegalArgumentException("At least one producer is needed!");
+    }
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two!");
+    }
+    if (lowWatermark < 0 || lowWatermark >= capacity) {
+      throw new IllegalArgumentException("Low watermark must be below the capacity!");
+    }
+    this.capacity = capacity;
+    this.lowWatermark = lowWatermark;
+    this.producers = new Producer[producers];
+    for (int i = 0; i < producers; i++) {
+      this.producers[i] = new Producer();
+      Thread thread = new Thread(this.producers[i], "mask-producer-" + i);
+      thread.setDaemon(true);
+      this.producers[i].thread = thread;
+      thread.start();
+    }
+  }
+
+  @Override
+  public int nextMask() {
+    Ring ring = rings.get();
+    if (ring.isEmpty()) {
+      ring.wakeProducer();
+      inlineMasks.increment();
+      return SparkleDrbg.current().nextMask();
+    }
+    int mask = ring.take();
+    if (ring.isLow(lowWatermark)) {
+      ring.wakeProducer();
+    }
+    return mask;
+  }
+
+  @Override
+  public void nextMasks(int[] masks, int offset, int length) {
+    Ring ring = rings.get();
+    int taken = ring.take(masks, offset, length);
+    if (taken < length) {
+      inlineMasks.add(length - taken);
+      SparkleDrbg.current().nextMasks(masks, offset + taken, length - taken);
+    }
+    if (ring.isLow(lowWatermark)) {
+      ring.wakeProducer();
+    }
+  }
+
+  /**
+   * Number of masks that were generated inline because a ring ran dry.
+   *
+   * @return masks generated on the consuming threads
+   */
+  public long inlineMasks() {
+    return inlineMasks.sum();
+  }
+
+  /**
+   * Number of masks waiting in the ring of the calling thread.
+   *
+   * @return masks the calling thread can take without generating them inline
+   */
+  int bufferedMasks() {
+    return rings.get().buffered();
+  }
+
+  /**
+   * Stops the producer threads. Masks left in the rings are still handed out, after that all
+   * masks are generated inline.
+   */
+  @Override
+  public void close() {
+    if (closed.compareAndSet(false, true)) {
+      for (Producer producer : producers) {
+        LockSupport.unpark(producer.thread);
+      }
+    }
+  }
+
+  private Ring register() {
+    Producer producer = producers[(int) (registered.getAndIncrement() % producers.length)];
+    Ring ring = new Ring(capacity, producer.thread);
+    producer.rings.add(ring);
+    LockSupport.unpark(producer.thread);
+    return ring;
+  }
+
+  /**
+   * Fills the rings assigned to it until the pool is closed.
+   */
+  private final class Producer implements Runnable {
+
+    private final List<Ring> rings = new CopyOnWriteArrayList<>();
+    private Thread thread;
+
+    @Override
+    public void run() {
+      SparkleDrbg drbg = SparkleDrbg.current();
+      while (!closed.get()) {
+        for (Ring ring : rings) {
+          if (ring.isAbandoned()) {
+            rings.remove(ring);
+            ring.clear();
+          } else {
+            ring.fill(drbg);
+          }
+        }
+        LockSupport.parkNanos(this, IDLE_NANOS);
+      }
+    }
+  }
+
+  /**
+   * Single producer, single consumer ring buffer of masks. The producer publishes the masks it
+   * wrote by advancing tail, the consumer releases the slots it read by advancing head, and every
+   * slot is zeroed once it has been read.
+   */
+  private static final class Ring {
+
+    private final int[] slots;
+    private final int indexMask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final Thread producer;
+    private final WeakReference<Thread> consumer;
+    // Tail last seen by the consumer, so it only reads the shared tail once the cached one is used.
+    private long cachedTail;
+
+    Ring(int capacity, Thread producer) {
+      this.slots = new int[capacity];
+      this.indexMask = capacity - 1;
+      this.producer = producer;
+      this.consumer = new WeakReference<>(Thread.currentThread());
+    }
+
+    boolean isEmpty() {
+      long position = head.getPlain();
+      if (position < cachedTail) {
+        return false;
+      }
+      cachedTail = tail.getAcquire();
+      return position == cachedTail;
+    }
+
+    int available() {
+      return (int) (cachedTail - head.getPlain());
+    }
+
+    int buffered() {
+      cachedTail = tail.getAcquire();
+      return available();
+    }
+
+    /**
+     * Whether at most lowWatermark masks are left. The cached tail only ever lags behind, so the
+     * shared tail is only read once the cached count is down to the watermark.
+     */
+    boolean isLow(int lowWatermark) {
+      return available() <= lowWatermark && buffered() <= lowWatermark;
+    }
+
+    /**
+     * Takes one mask, only after {@link #isEmpty()} returned false.
+     */
+    int take() {
+      long position = head.getPlain();
+      int index = (int) position & indexMask;
+      int mask = slots[index];
+      slots[index] = 0;
+      head.setRelease(position + 1);
+      return mask;
+    }
+
+    int take(int[] masks, int offset, int length) {
+      long position = head.getPlain();
+      if (cachedTail - position < length) {
+        cachedTail = tail.getAcquire();
+      }
+      int count = (int) Math.min(length, cachedTail - position);
+      int taken = 0;
+      while (taken < count) {
+        int index = (int) (position + taken) & indexMask;
+        int copy = Math.min(count - taken, slots.length - index);
+        System.arraycopy(slots, index, masks, offset + taken, copy);
+        Arrays.fill(slots, index, index + copy, 0);
+        taken += copy;
+      }
+      head.setRelease(position + count);
+      return count;
+    }
+
+    /**
+     * Fills all free slots, called by the producer only.
+     */
+    void fill(SparkleDrbg drbg) {
+      long position = tail.getPlain();
+      long end = head.getAcquire() + slots.length;
+      while (position < end) {
+        int index = (int) position & indexMask;
+        int count = (int) Math.min(end - position, slots.length - index);
+        drbg.nextInts(slots, index, count);
+        position += count;
+        tail.setRelease(position);
+      }
+    }
+
+    void wakeProducer() {
+      LockSupport.unpark(producer);
+    }
+
+    boolean isAbandoned() {
+      Thread thread = consumer.get();
+      return thread == null || !thread.isAlive();
+    }
+
+    void clear() {
+      Arrays.fill(slots, 0);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package sparkle;
+
+/**
+ * Backend running the generic, branch-looping sparkle.Sparkle permutation.
+ */
+public final class ReferenceSparklePermutation implements SparklePermutation {
+
+  public static final String NAME = "reference";
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public void sparkle256(int[] state) {
+    Sparkle.sparkle(state, 4, 10);
+  }
+
+  @Override
+  public void sparkle256Slim(int[] state) {
+    Sparkle.sparkle(state, 4, 7);
+  }
+
+  @Override
+  public void sparkle384(int[] state) {
+    Sparkle.sparkle(state, 6, 11);
+  }
+
+  @Override
+  public void sparkle384Slim(int[] state) {
+    Sparkle.sparkle(state, 6, 7);
+  }
+
+  @Override
+  public void sparkle512(int[] state) {
+    Sparkle.sparkle(state, 8, 12);
+  }
+
+  @Override
+  public void sparkle512Slim(int[] state) {
+    Sparkle.sparkle(state, 8, 8);
+  }
+}
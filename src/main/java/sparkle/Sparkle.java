@@ -1,14 +1,12 @@
 package sparkle;
 
-import java.util.Arrays;
-
 /**
  * sparkle.Sparkle permutation.
  */
 public final class Sparkle {
 
   public static final int maxBranches = 8;
-  private static final int[] rcon =
+  static final int[] rcon =
           new int[]{
                   -1209970334,
                   -1083090816,
@@ -19,29 +17,37 @@ public final class Sparkle {
                   -809524792,
                   -1028445891
           };
+  private static final int RCON0 = 0xB7E15162;
+  private static final int RCON1 = 0xBF715880;
+  private static final int RCON2 = 0x38B4DA56;
+  private static final int RCON3 = 0x324E7738;
+  private static final int RCON4 = 0xBB1185EB;
+  private static final int RCON5 = 0x4F7C7B57;
+  private static final int RCON6 = 0xCFBFA1C8;
+  private static final int RCON7 = 0xC2B3293D;
 
   public static void sparkle256(int[] state) {
-    sparkle(state, 4, 10);
+    sparkle4Branches(state, 10);
   }
 
   public static void sparkle256Slim(int[] state) {
-    sparkle(state, 4, 7);
+    sparkle4Branches(state, 7);
   }
 
   public static void sparkle384(int[] state) {
-    sparkle(state, 6, 11);
+    sparkle6Branches(state, 11);
   }
 
   public static void sparkle384Slim(int[] state) {
-    sparkle(state, 6, 7);
+    sparkle6Branches(state, 7);
   }
 
   public static void sparkle512(int[] state) {
-    sparkle(state, 8, 12);
+    sparkle8Branches(state, 12);
   }
 
   public static void sparkle512Slim(int[] state) {
-    sparkle(state, 8, 8);
+    sparkle8Branches(state, 8);
   }
 
   static int rot(int x, int n) {
@@ -52,7 +58,15 @@ public final class Sparkle {
     return rot(x ^ (x << 16), 16);
   }
 
-  private static void sparkle(int[] state, int brans, int steps) {
+  /**
+   * Generic permutation over any number of branches. The public variants use the unrolled kernels
+   * below, this loop is kept as the reference they are checked against.
+   *
+   * @param state state of 2 * brans words
+   * @param brans number of branches
+   * @param steps number of steps
+   */
+  static void sparkle(int[] state, int brans, int steps) {
     int rc, tmpx, tmpy, x0, y0;
     for (int i = 0; i < steps; i++) {
       state[1] ^= rcon[i % maxBranches];
@@ -85,6 +99,423 @@ public final class Sparkle {
     }
   }
 
+  /**
+   * Unrolled permutation for the 256-bit state (four branches).
+   *
+   * @param state state of eight words
+   * @param steps number of steps
+   */
+  private static void sparkle4Branches(int[] state, int steps) {
+    int x0 = state[0];
+    int y0 = state[1];
+    int x1 = state[2];
+    int y1 = state[3];
+    int x2 = state[4];
+    int y2 = state[5];
+    int x3 = state[6];
+    int y3 = state[7];
+    int tmpx, tmpy, tmp;
+    for (int i = 0; i < steps; i++) {
+      y0 ^= rcon[i & (maxBranches - 1)];
+      y1 ^= i;
+      // Alzette on branch 0
+      x0 += rot(y0, 31);
+      y0 ^= rot(x0, 24);
+      x0 ^= RCON0;
+      x0 += rot(y0, 17);
+      y0 ^= rot(x0, 17);
+      x0 ^= RCON0;
+      x0 += y0;
+      y0 ^= rot(x0, 31);
+      x0 ^= RCON0;
+      x0 += rot(y0, 24);
+      y0 ^= rot(x0, 16);
+      x0 ^= RCON0;
+      // Alzette on branch 1
+      x1 += rot(y1, 31);
+      y1 ^= rot(x1, 24);
+      x1 ^= RCON1;
+      x1 += rot(y1, 17);
+      y1 ^= rot(x1, 17);
+      x1 ^= RCON1;
+      x1 += y1;
+      y1 ^= rot(x1, 31);
+      x1 ^= RCON1;
+      x1 += rot(y1, 24);
+      y1 ^= rot(x1, 16);
+      x1 ^= RCON1;
+      // Alzette on branch 2
+      x2 += rot(y2, 31);
+      y2 ^= rot(x2, 24);
+      x2 ^= RCON2;
+      x2 += rot(y2, 17);
+      y2 ^= rot(x2, 17);
+      x2 ^= RCON2;
+      x2 += y2;
+      y2 ^= rot(x2, 31);
+      x2 ^= RCON2;
+      x2 += rot(y2, 24);
+      y2 ^= rot(x2, 16);
+      x2 ^= RCON2;
+      // Alzette on branch 3
+      x3 += rot(y3, 31);
+      y3 ^= rot(x3, 24);
+      x3 ^= RCON3;
+      x3 += rot(y3, 17);
+      y3 ^= rot(x3, 17);
+      x3 ^= RCON3;
+      x3 += y3;
+      y3 ^= rot(x3, 31);
+      x3 ^= RCON3;
+      x3 += rot(y3, 24);
+      y3 ^= rot(x3, 16);
+      x3 ^= RCON3;
+      // Linear layer
+      tmpx = ell(x0 ^ x1);
+      tmpy = ell(y0 ^ y1);
+      x2 ^= x0 ^ tmpy;
+      y2 ^= y0 ^ tmpx;
+      x3 ^= x1 ^ tmpy;
+      y3 ^= y1 ^ tmpx;
+      tmp = x0;
+      x0 = x3;
+      x3 = x1;
+      x1 = x2;
+      x2 = tmp;
+      tmp = y0;
+      y0 = y3;
+      y3 = y1;
+      y1 = y2;
+      y2 = tmp;
+    }
+    state[0] = x0;
+    state[1] = y0;
+    state[2] = x1;
+    state[3] = y1;
+    state[4] = x2;
+    state[5] = y2;
+    state[6] = x3;
+    state[7] = y3;
+  }
+
+  /**
+   * Unrolled permutation for the 384-bit state (six branches).
+   *
+   * @param state state of twelve words
+   * @param steps number of steps
+   */
+  private static void sparkle6Branches(int[] state, int steps) {
+    int x0 = state[0];
+    int y0 = state[1];
+    int x1 = state[2];
+    int y1 = state[3];
+    int x2 = state[4];
+    int y2 = state[5];
+    int x3 = state[6];
+    int y3 = state[7];
+    int x4 = state[8];
+    int y4 = state[9];
+    int x5 = state[10];
+    int y5 = state[11];
+    int tmpx, tmpy, tmp;
+    for (int i = 0; i < steps; i++) {
+      y0 ^= rcon[i & (maxBranches - 1)];
+      y1 ^= i;
+      // Alzette on branch 0
+      x0 += rot(y0, 31);
+      y0 ^= rot(x0, 24);
+      x0 ^= RCON0;
+      x0 += rot(y0, 17);
+      y0 ^= rot(x0, 17);
+      x0 ^= RCON0;
+      x0 += y0;
+      y0 ^= rot(x0, 31);
+      x0 ^= RCON0;
+      x0 += rot(y0, 24);
+      y0 ^= rot(x0, 16);
+      x0 ^= RCON0;
+      // Alzette on branch 1
+      x1 += rot(y1, 31);
+      y1 ^= rot(x1, 24);
+      x1 ^= RCON1;
+      x1 += rot(y1, 17);
+      y1 ^= rot(x1, 17);
+      x1 ^= RCON1;
+      x1 += y1;
+      y1 ^= rot(x1, 31);
+      x1 ^= RCON1;
+      x1 += rot(y1, 24);
+      y1 ^= rot(x1, 16);
+      x1 ^= RCON1;
+      // Alzette on branch 2
+      x2 += rot(y2, 31);
+      y2 ^= rot(x2, 24);
+      x2 ^= RCON2;
+      x2 += rot(y2, 17);
+      y2 ^= rot(x2, 17);
+      x2 ^= RCON2;
+      x2 += y2;
+      y2 ^= rot(x2, 31);
+      x2 ^= RCON2;
+      x2 += rot(y2, 24);
+      y2 ^= rot(x2, 16);
+      x2 ^= RCON2;
+      // Alzette on branch 3
+      x3 += rot(y3, 31);
+      y3 ^= rot(x3, 24);
+      x3 ^= RCON3;
+      x3 += rot(y3, 17);
+      y3 ^= rot(x3, 17);
+      x3 ^= RCON3;
+      x3 += y3;
+      y3 ^= rot(x3, 31);
+      x3 ^= RCON3;
+      x3 += rot(y3, 24);
+      y3 ^= rot(x3, 16);
+      x3 ^= RCON3;
+      // Alzette on branch 4
+      x4 += rot(y4, 31);
+      y4 ^= rot(x4, 24);
+      x4 ^= RCON4;
+      x4 += rot(y4, 17);
+      y4 ^= rot(x4, 17);
+      x4 ^= RCON4;
+      x4 += y4;
+      y4 ^= rot(x4, 31);
+      x4 ^= RCON4;
+      x4 += rot(y4, 24);
+      y4 ^= rot(x4, 16);
+      x4 ^= RCON4;
+      // Alzette on branch 5
+      x5 += rot(y5, 31);
+      y5 ^= rot(x5, 24);
+      x5 ^= RCON5;
+      x5 += rot(y5, 17);
+      y5 ^= rot(x5, 17);
+      x5 ^= RCON5;
+      x5 += y5;
+      y5 ^= rot(x5, 31);
+      x5 ^= RCON5;
+      x5 += rot(y5, 24);
+      y5 ^= rot(x5, 16);
+      x5 ^= RCON5;
+      // Linear layer
+      tmpx = ell(x0 ^ x1 ^ x2);
+      tmpy = ell(y0 ^ y1 ^ y2);
+      x3 ^= x0 ^ tmpy;
+      y3 ^= y0 ^ tmpx;
+      x4 ^= x1 ^ tmpy;
+      y4 ^= y1 ^ tmpx;
+      x5 ^= x2 ^ tmpy;
+      y5 ^= y2 ^ tmpx;
+      tmp = x0;
+      x0 = x4;
+      x4 = x1;
+      x1 = x5;
+      x5 = x2;
+      x2 = x3;
+      x3 = tmp;
+      tmp = y0;
+      y0 = y4;
+      y4 = y1;
+      y1 = y5;
+      y5 = y2;
+      y2 = y3;
+      y3 = tmp;
+    }
+    state[0] = x0;
+    state[1] = y0;
+    state[2] = x1;
+    state[3] = y1;
+    state[4] = x2;
+    state[5] = y2;
+    state[6] = x3;
+    state[7] = y3;
+    state[8] = x4;
+    state[9] = y4;
+    state[10] = x5;
+    state[11] = y5;
+  }
+
+  /**
+   * Unrolled permutation for the 512-bit state (eight branches).
+   *
+   * @param state state of sixteen words
+   * @param steps number of steps
+   */
+  private static void sparkle8Branches(int[] state, int steps) {
+    int x0 = state[0];
+    int y0 = state[1];
+    int x1 = state[2];
+    int y1 = state[3];
+    int x2 = state[4];
+    int y2 = state[5];
+    int x3 = state[6];
+    int y3 = state[7];
+    int x4 = state[8];
+    int y4 = state[9];
+    int x5 = state[10];
+    int y5 = state[11];
+    int x6 = state[12];
+    int y6 = state[13];
+    int x7 = state[14];
+    int y7 = state[15];
+    int tmpx, tmpy, tmp;
+    for (int i = 0; i < steps; i++) {
+      y0 ^= rcon[i & (maxBranches - 1)];
+      y1 ^= i;
+      // Alzette on branch 0
+      x0 += rot(y0, 31);
+      y0 ^= rot(x0, 24);
+      x0 ^= RCON0;
+      x0 += rot(y0, 17);
+      y0 ^= rot(x0, 17);
+      x0 ^= RCON0;
+      x0 += y0;
+      y0 ^= rot(x0, 31);
+      x0 ^= RCON0;
+      x0 += rot(y0, 24);
+      y0 ^= rot(x0, 16);
+      x0 ^= RCON0;
+      // Alzette on branch 1
+      x1 += rot(y1, 31);
+      y1 ^= rot(x1, 24);
+      x1 ^= RCON1;
+      x1 += rot(y1, 17);
+      y1 ^= rot(x1, 17);
+      x1 ^= RCON1;
+      x1 += y1;
+      y1 ^= rot(x1, 31);
+      x1 ^= RCON1;
+      x1 += rot(y1, 24);
+      y1 ^= rot(x1, 16);
+      x1 ^= RCON1;
+      // Alzette on branch 2
+      x2 += rot(y2, 31);
+      y2 ^= rot(x2, 24);
+      x2 ^= RCON2;
+      x2 += rot(y2, 17);
+      y2 ^= rot(x2, 17);
+      x2 ^= RCON2;
+      x2 += y2;
+      y2 ^= rot(x2, 31);
+      x2 ^= RCON2;
+      x2 += rot(y2, 24);
+      y2 ^= rot(x2, 16);
+      x2 ^= RCON2;
+      // Alzette on branch 3
+      x3 += rot(y3, 31);
+      y3 ^= rot(x3, 24);
+      x3 ^= RCON3;
+      x3 += rot(y3, 17);
+      y3 ^= rot(x3, 17);
+      x3 ^= RCON3;
+      x3 += y3;
+      y3 ^= rot(x3, 31);
+      x3 ^= RCON3;
+      x3 += rot(y3, 24);
+      y3 ^= rot(x3, 16);
+      x3 ^= RCON3;
+      // Alzette on branch 4
+      x4 += rot(y4, 31);
+      y4 ^= rot(x4, 24);
+      x4 ^= RCON4;
+      x4 += rot(y4, 17);
+      y4 ^= rot(x4, 17);
+      x4 ^= RCON4;
+      x4 += y4;
+      y4 ^= rot(x4, 31);
+      x4 ^= RCON4;
+      x4 += rot(y4, 24);
+      y4 ^= rot(x4, 16);
+      x4 ^= RCON4;
+      // Alzette on branch 5
+      x5 += rot(y5, 31);
+      y5 ^= rot(x5, 24);
+      x5 ^= RCON5;
+      x5 += rot(y5, 17);
+      y5 ^= rot(x5, 17);
+      x5 ^= RCON5;
+      x5 += y5;
+      y5 ^= rot(x5, 31);
+      x5 ^= RCON5;
+      x5 += rot(y5, 24);
+      y5 ^= rot(x5, 16);
+      x5 ^= RCON5;
+      // Alzette on branch 6
+      x6 += rot(y6, 31);
+      y6 ^= rot(x6, 24);
+      x6 ^= RCON6;
+      x6 += rot(y6, 17);
+      y6 ^= rot(x6, 17);
+      x6 ^= RCON6;
+      x6 += y6;
+      y6 ^= rot(x6, 31);
+      x6 ^= RCON6;
+      x6 += rot(y6, 24);
+      y6 ^= rot(x6, 16);
+      x6 ^= RCON6;
+      // Alzette on branch 7
+      x7 += rot(y7, 31);
+      y7 ^= rot(x7, 24);
+      x7 ^= RCON7;
+      x7 += rot(y7, 17);
+      y7 ^= rot(x7, 17);
+      x7 ^= RCON7;
+      x7 += y7;
+      y7 ^= rot(x7, 31);
+      x7 ^= RCON7;
+      x7 += rot(y7, 24);
+      y7 ^= rot(x7, 16);
+      x7 ^= RCON7;
+      // Linear layer
+      tmpx = ell(x0 ^ x1 ^ x2 ^ x3);
+      tmpy = ell(y0 ^ y1 ^ y2 ^ y3);
+      x4 ^= x0 ^ tmpy;
+      y4 ^= y0 ^ tmpx;
+      x5 ^= x1 ^ tmpy;
+      y5 ^= y1 ^ tmpx;
+      x6 ^= x2 ^ tmpy;
+      y6 ^= y2 ^ tmpx;
+      x7 ^= x3 ^ tmpy;
+      y7 ^= y3 ^ tmpx;
+      tmp = x0;
+      x0 = x5;
+      x5 = x1;
+      x1 = x6;
+      x6 = x2;
+      x2 = x7;
+      x7 = x3;
+      x3 = x4;
+      x4 = tmp;
+      tmp = y0;
+      y0 = y5;
+      y5 = y1;
+      y1 = y6;
+      y6 = y2;
+      y2 = y7;
+      y7 = y3;
+      y3 = y4;
+      y4 = tmp;
+    }
+    state[0] = x0;
+    state[1] = y0;
+    state[2] = x1;
+    state[3] = y1;
+    state[4] = x2;
+    state[5] = y2;
+    state[6] = x3;
+    state[7] = y3;
+    state[8] = x4;
+    state[9] = y4;
+    state[10] = x5;
+    state[11] = y5;
+    state[12] = x6;
+    state[13] = y6;
+    state[14] = x7;
+    state[15] = y7;
+  }
+
   static void alzetteRound(int[] state, int j, int shiftOne, int shiftTwo, int rc) {
     // Let state[j] be x and state[j+1] be y
     state[j] += rot(state[j + 1], shiftOne);
@@ -0,0 +1,125 @@
+package sparkle;
+
+import java.util.function.Consumer;
+
+/**
+ * Batched sparkle.Sparkle permutation over many independent states.
+ *
+ * <p>States are given in a structure-of-arrays layout: word w of state s is stored at
+ * {@code states[w * count + s]}, where count is the number of states in the block. Full groups of
+ * {@link #lanes()} states are permuted in lockstep with the Vector API, the remaining states (or
+ * all of them when the jdk.incubator.vector module is not available) use the scalar kernels.
+ */
+public final class SparkleBatch {
+
+  private static final int MIN_LANES = 4;
+  private static final int LANES = detectLanes();
+
+  private SparkleBatch() {
+  }
+
+  private static int detectLanes() {
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+      return 1;
+    }
+    try {
+      int lanes = SparkleVector.lanes();
+      return lanes >= MIN_LANES ? lanes : 1;
+    } catch (LinkageError e) {
+      return 1;
+    }
+  }
+
+  /**
+   * Number of states permuted together by one vector, 1 when only the scalar fallback is
+   * available.
+   *
+   * @return lanes per vector
+   */
+  public static int lanes() {
+    return LANES;
+  }
+
+  public static boolean isVectorized() {
+    return LANES > 1;
+  }
+
+  public static void sparkle256(int[] states, int count) {
+    permute(states, count, 4, 10, Sparkle::sparkle256);
+  }
+
+  public static void sparkle256Slim(int[] states, int count) {
+    permute(states, count, 4, 7, Sparkle::sparkle256Slim);
+  }
+
+  public static void sparkle384(int[] states, int count) {
+    permute(states, count, 6, 11, Sparkle::sparkle384);
+  }
+
+  public static void sparkle384Slim(int[] states, int count) {
+    permute(states, count, 6, 7, Sparkle::sparkle384Slim);
+  }
+
+  public static void sparkle512(int[] states, int count) {
+    permute(states, count, 8, 12, Sparkle::sparkle512);
+  }
+
+  public static void sparkle512Slim(int[] states, int count) {
+    permute(states, count, 8, 8, Sparkle::sparkle512Slim);
+  }
+
+  /**
+   * Copies a single state into the structure-of-arrays block.
+   *
+   * @param state  state to copy from
+   * @param states block to copy into
+   * @param count  number of states in the block
+   * @param index  index of the state in the block
+   */
+  public static void setState(int[] state, int[] states, int count, int index) {
+    for (int w = 0; w < state.length; w++) {
+      states[w * count + index] = state[w];
+    }
+  }
+
+  /**
+   * Copies a single state out of the structure-of-arrays block.
+   *
+   * @param states block to copy from
+   * @param count  number of states in the block
+   * @param index  index of the state in the block
+   * @param state  state to copy into
+   */
+  public static void getState(int[] states, int count, int index, int[] state) {
+    for (int w = 0; w < state.length; w++) {
+      state[w] = states[w * count + index];
+    }
+  }
+
+  private static void permute(int[] states, int count, int brans, int steps,
+      Consumer<int[]> scalar) {
+    if (states.length < 2 * brans * count) {
+      throw new IllegalArgumentException("State block too small for " + count + " states!");
+    }
+    int lane = 0;
+    if (LANES > 1) {
+      for (; lane + LANES <= count; lane += LANES) {
+        SparkleVector.sparkle(states, count, lane, brans, steps);
+      }
+    }
+    permuteScalar(states, count, lane, brans, scalar);
+  }
+
+  static void permuteScalar(int[] states, int count, int from, int brans,
+      Consumer<int[]> scalar) {
+    if (from >= count) {
+      return;
+    }
+    int[] state = new int[2 * brans];
+    for (int lane = from; lane < count; lane++) {
+      getState(states, count, lane, state);
+      scalar.accept(state);
+      setState(state, states, count, lane);
+    }
+  }
+}
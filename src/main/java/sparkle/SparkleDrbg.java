@@ -0,0 +1,179 @@
+package sparkle;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Deterministic random bit generator built as a sponge on sparkle.Sparkle512. The upper half of
+ * the state is the capacity of 256 bits, the lower half the rate of eight words. Seed material is
+ * xored into the rate followed by the full permutation, output is squeezed from the rate with the
+ * slim permutation between blocks, like esch.Esch squeezes its digest. After every nextInts and
+ * nextBytes request the rate is overwritten with zeros and the state permuted, so the state
+ * cannot be rolled back to earlier output. Single masks are handed out from one squeezed block at
+ * a time.
+ *
+ * <p>Instances seeded from a SecureRandom reseed themselves after {@link #RESEED_BLOCKS} blocks.
+ * An instance must only be used by one thread at a time, {@link #current()} hands out one per
+ * thread.
+ */
+public final class SparkleDrbg implements MaskRandomness {
+
+  public static final long RESEED_BLOCKS = 1L << 24;
+  private static final int STATE_WORDS = 16;
+  private static final int RATE_WORDS = 8;
+  private static final int SEED_BYTES = 32;
+  private static final ThreadLocal<SparkleDrbg> generators =
+      ThreadLocal.withInitial(SparkleDrbg::new);
+
+  private final SparklePermutation permutation;
+  private final SecureRandom seedSource;
+  private final int[] state = new int[STATE_WORDS];
+  // Masks of the last squeezed block not handed out yet, from maskPosition to RATE_WORDS.
+  private final int[] masks = new int[RATE_WORDS];
+  private int maskPosition = RATE_WORDS;
+  private long blocks;
+
+  public SparkleDrbg() {
+    this(new SecureRandom());
+  }
+
+  /**
+   * Generator seeded and reseeded from a SecureRandom.
+   *
+   * @param seedSource source of the seeds
+   */
+  public SparkleDrbg(SecureRandom seedSource) {
+    this.permutation = SparklePermutations.get();
+    this.seedSource = seedSource;
+    reseed();
+  }
+
+  /**
+   * Generator with a fixed seed that never reseeds itself, for reproducible output in tests.
+   *
+   * @param seed seed bytes
+   */
+  public SparkleDrbg(byte[] seed) {
+    this.permutation = SparklePermutations.get();
+    this.seedSource = null;
+    absorb(seed);
+  }
+
+  /**
+   * The generator of the calling thread.
+   *
+   * @return the generator, only to be used by the calling thread
+   */
+  public static SparkleDrbg current() {
+    return generators.get();
+  }
+
+  /**
+   * Absorbs fresh seed bytes from the seed source.
+   *
+   * @throws IllegalStateException if the generator has a fixed seed
+   */
+  public void reseed() {
+    if (seedSource == null) {
+      throw new IllegalStateException("Generator with a fixed seed cannot reseed!");
+    }
+    byte[] seed = new byte[SEED_BYTES];
+    seedSource.nextBytes(seed);
+    absorb(seed);
+    Arrays.fill(seed, (byte) 0);
+  }
+
+  /**
+   * Mixes additional input into the state, keeping the entropy already there.
+   *
+   * @param input additional input
+   */
+  public void absorb(byte[] input) {
+    // The input is padded with a one byte and zeros to whole blocks, so inputs of different
+    // lengths never absorb the same blocks.
+    int offset = 0;
+    while (offset <= input.length) {
+      for (int i = 0; i < 4 * RATE_WORDS && offset <= input.length; i++, offset++) {
+        int value = offset < input.length ? input[offset] & 0xFF : 1;
+        state[i / 4] ^= value << (8 * (i % 4));
+      }
+      permutation.sparkle512(state);
+    }
+    Arrays.fill(masks, 0);
+    maskPosition = RATE_WORDS;
+    blocks = 0;
+  }
+
+  /**
+   * Fills a range of words with random output, squeezing whole blocks straight into it.
+   *
+   * @param out    words to fill
+   * @param offset index of the first word
+   * @param length number of words
+   */
+  public void nextInts(int[] out, int offset, int length) {
+    while (length > 0) {
+      squeeze();
+      int copy = Math.min(length, RATE_WORDS);
+      System.arraycopy(state, 0, out, offset, copy);
+      offset += copy;
+      length -= copy;
+    }
+    ratchet();
+  }
+
+  /**
+   * Fills bytes with random output, for example a nonce.
+   *
+   * @param out bytes to fill
+   */
+  public void nextBytes(byte[] out) {
+    int offset = 0;
+    while (offset < out.length) {
+      squeeze();
+      for (int i = 0; i < RATE_WORDS && offset < out.length; i++) {
+        for (int k = 0; k < 4 && offset < out.length; k++, offset++) {
+          out[offset] = (byte) (state[i] >>> (8 * k));
+        }
+      }
+    }
+    ratchet();
+  }
+
+  @Override
+  public int nextMask() {
+    if (maskPosition == RATE_WORDS) {
+      squeeze();
+      System.arraycopy(state, 0, masks, 0, RATE_WORDS);
+      maskPosition = 0;
+    }
+    int mask = masks[maskPosition];
+    masks[maskPosition++] = 0;
+    return mask;
+  }
+
+  @Override
+  public void nextMasks(int[] out, int offset, int length) {
+    // Requests shorter than a block are served from the mask buffer, so they cost no ratchet.
+    while (length > 0 && (maskPosition < RATE_WORDS || length < RATE_WORDS)) {
+      out[offset++] = nextMask();
+      length--;
+    }
+    if (length > 0) {
+      nextInts(out, offset, length);
+    }
+  }
+
+  private void squeeze() {
+    if (seedSource != null && blocks >= RESEED_BLOCKS) {
+      reseed();
+    }
+    permutation.sparkle512Slim(state);
+    blocks++;
+  }
+
+  private void ratchet() {
+    Arrays.fill(state, 0, RATE_WORDS, 0);
+    permutation.sparkle512(state);
+  }
+}
@@ -0,0 +1,26 @@
+package sparkle;
+
+/**
+ * A backend computing the sparkle.Sparkle permutation on a single unmasked state.
+ */
+public interface SparklePermutation {
+
+  /**
+   * Name used to select the backend with the {@link SparklePermutations#PROPERTY} system property.
+   *
+   * @return backend name
+   */
+  String name();
+
+  void sparkle256(int[] state);
+
+  void sparkle256Slim(int[] state);
+
+  void sparkle384(int[] state);
+
+  void sparkle384Slim(int[] state);
+
+  void sparkle512(int[] state);
+
+  void sparkle512Slim(int[] state);
+}
@@ -0,0 +1,179 @@
+package sparkle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Registry of {@link SparklePermutation} backends.
+ *
+ * <p>Every backend is checked against known-answer vectors before it can be used. The default
+ * backend is the fastest one passing the check, measured by a warmed-up calibration run the first
+ * time {@link #get()} is called. Setting the system property {@value #PROPERTY} to a backend name
+ * skips the calibration and uses that backend.
+ */
+public final class SparklePermutations {
+
+  public static final String PROPERTY = "sparkle.permutation";
+
+  // Calls before timing, enough for the JIT to compile every backend with its optimizing compiler.
+  private static final int WARMUP_CALLS = 20_000;
+  private static final int CALIBRATION_ROUNDS = 10;
+  private static final int CALIBRATION_CALLS = 2_000;
+
+  // Permutation of the state 0, 1, 2, ... for each variant.
+  private static final int[] KAT_256 = {0x8BC7F4B4, 0x4F8BE851, 0x980C95D2, 0x22404A57,
+      0x617D93B4, 0xFBD44357, 0xE766F9D4, 0x64AEA878};
+  private static final int[] KAT_256_SLIM = {0xDBEC11E5, 0xCA894DF5, 0x96F52162, 0xAC7CB0EA,
+      0x8B9722F2, 0x4FADBCF4, 0x70E7FCA5, 0x3CBDF205};
+  private static final int[] KAT_384 = {0x4F4933B3, 0x6FA1F7E9, 0xBBE6AD3B, 0x4656201C,
+      0xA6C299EF, 0xD401F25D, 0xC21B0FEC, 0xCA9C81E2, 0x79F31666, 0xE99CBE93, 0xDBAE3C02,
+      0x0DDD6DFC};
+  private static final int[] KAT_384_SLIM = {0x42E960D0, 0x8134761B, 0x099D23D5, 0x1E1BD893,
+      0xE557BBAE, 0xD5A3AA93, 0x82C965EB, 0x287119C6, 0xB15E4D89, 0x77A58FD7, 0x3200C2B2,
+      0xD82F9805};
+  private static final int[] KAT_512 = {0xB867736D, 0xBC81894A, 0x2FE0AEE5, 0x995AE285,
+      0x73CF78F2, 0x4EA8AC53, 0x84223B28, 0x27C2F596, 0xE56DD896, 0xF6BAB1CA, 0x3DD61BDE,
+      0xF27F2259, 0x9BF0C618, 0x1CAE8AA6, 0xA1A1F42A, 0xE8EC6849};
+  private static final int[] KAT_512_SLIM = {0xF220E98F, 0xC8D5424B, 0xD5A05DDA, 0x4E739AF5,
+      0xAC192493, 0x3889A175, 0x27436017, 0xBD80ED3D, 0xCDD43DE4, 0x4E7D585B, 0x84AD2219,
+      0x2B933CE5, 0x2A2B9A74, 0x19EFF1CF, 0x066435A2, 0x6CC77BF8};
+
+  private SparklePermutations() {
+  }
+
+  /**
+   * The default backend, selected once per JVM.
+   *
+   * @return the selected backend
+   */
+  public static SparklePermutation get() {
+    return Holder.SELECTED;
+  }
+
+  /**
+   * Looks up an available backend by name.
+   *
+   * @param name name of the backend
+   * @return the backend
+   * @throws IllegalArgumentException if no backend has that name or it is not available
+   * @throws IllegalStateException    if the backend fails the known-answer check
+   */
+  public static SparklePermutation get(String name) {
+    for (SparklePermutation candidate : candidates()) {
+      if (candidate.name().equals(name)) {
+        if (!selfTest(candidate)) {
+          throw new IllegalStateException("Sparkle backend " + name + " failed its self-test!");
+        }
+        return candidate;
+      }
+    }
+    throw new IllegalArgumentException("Unknown or unavailable Sparkle backend: " + name);
+  }
+
+  /**
+   * All backends that are available on this JVM and pass the known-answer check.
+   *
+   * @return usable backends
+   */
+  public static List<SparklePermutation> available() {
+    List<SparklePermutation> available = new ArrayList<>();
+    for (SparklePermutation candidate : candidates()) {
+      if (selfTest(candidate)) {
+        available.add(candidate);
+      }
+    }
+    return available;
+  }
+
+  static SparklePermutation select(String override) {
+    if (override != null && !override.isEmpty()) {
+      return get(override);
+    }
+    return calibrate(available());
+  }
+
+  private static List<SparklePermutation> candidates() {
+    List<SparklePermutation> candidates = new ArrayList<>();
+    candidates.add(new UnrolledSparklePermutation());
+    candidates.add(new ReferenceSparklePermutation());
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+      candidates.add(new VectorSparklePermutation());
+    }
+    return candidates;
+  }
+
+  /**
+   * Checks a backend against the known-answer vectors of all six variants.
+   *
+   * @param permutation backend to check
+   * @return true if every variant gave the expected state
+   */
+  static boolean selfTest(SparklePermutation permutation) {
+    try {
+      int[] state = new int[Sparkle.maxBranches * 2];
+      return known(state, KAT_256, permutation::sparkle256)
+          && known(state, KAT_256_SLIM, permutation::sparkle256Slim)
+          && known(state, KAT_384, permutation::sparkle384)
+          && known(state, KAT_384_SLIM, permutation::sparkle384Slim)
+          && known(state, KAT_512, permutation::sparkle512)
+          && known(state, KAT_512_SLIM, permutation::sparkle512Slim);
+    } catch (LinkageError | RuntimeException e) {
+      return false;
+    }
+  }
+
+  private static boolean known(int[] state, int[] expected, Consumer<int[]> variant) {
+    for (int i = 0; i < state.length; i++) {
+      state[i] = i;
+    }
+    variant.accept(state);
+    return Arrays.equals(state, 0, expected.length, expected, 0, expected.length);
+  }
+
+  /**
+   * Picks the backend with the lowest time for sparkle384Slim, the variant used for the bulk of
+   * the blocks in both schwaemm.Schwaemm and esch.Esch. Every backend is warmed up first, then the
+   * timed rounds alternate between the backends, so none of them is measured before it is compiled
+   * or favoured by its position in the list.
+   *
+   * @param candidates backends that passed the self-test
+   * @return the fastest backend
+   */
+  static SparklePermutation calibrate(List<SparklePermutation> candidates) {
+    if (candidates.isEmpty()) {
+      throw new IllegalStateException("No Sparkle backend passed its self-test!");
+    }
+    int[] state = new int[Sparkle.maxBranches * 2];
+    for (SparklePermutation candidate : candidates) {
+      for (int i = 0; i < WARMUP_CALLS; i++) {
+        candidate.sparkle384Slim(state);
+      }
+    }
+    long[] best = new long[candidates.size()];
+    Arrays.fill(best, Long.MAX_VALUE);
+    for (int round = 0; round < CALIBRATION_ROUNDS; round++) {
+      for (int c = 0; c < candidates.size(); c++) {
+        SparklePermutation candidate = candidates.get(c);
+        long start = System.nanoTime();
+        for (int i = 0; i < CALIBRATION_CALLS; i++) {
+          candidate.sparkle384Slim(state);
+        }
+        best[c] = Math.min(best[c], System.nanoTime() - start);
+      }
+    }
+    int fastest = 0;
+    for (int c = 1; c < candidates.size(); c++) {
+      if (best[c] < best[fastest]) {
+        fastest = c;
+      }
+    }
+    return candidates.get(fastest);
+  }
+
+  private static final class Holder {
+
+    private static final SparklePermutation SELECTED = select(System.getProperty(PROPERTY));
+  }
+}
@@ -0,0 +1,182 @@
+package sparkle;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * sparkle.Sparkle permutation on top of the incubating Vector API. The multi-lane kernel keeps
+ * the same word of different states in the lanes of a vector, so one instruction advances as many
+ * states as the species has lanes. The single state kernel keeps the branches of one state in the
+ * lanes instead. This class is only touched after the caller has checked that the
+ * jdk.incubator.vector module is present.
+ */
+final class SparkleVector {
+
+  static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+  private static final int[] EVEN_WORDS = {0, 2, 4, 6, 8, 10, 12, 14};
+  private static final int[] ODD_WORDS = {1, 3, 5, 7, 9, 11, 13, 15};
+  private static final int MAX_STEPS = 12;
+  // Step constants added to y0 and y1, one row per step.
+  private static final int[][] STEP_CONSTANTS = new int[MAX_STEPS][Sparkle.maxBranches];
+
+  static {
+    for (int i = 0; i < MAX_STEPS; i++) {
+      STEP_CONSTANTS[i][0] = Sparkle.rcon[i % Sparkle.maxBranches];
+      STEP_CONSTANTS[i][1] = i;
+    }
+  }
+
+  private static final BranchLayout LAYOUT_4 = BranchLayout.of(IntVector.SPECIES_128, 4);
+  private static final BranchLayout LAYOUT_6 = BranchLayout.of(IntVector.SPECIES_256, 6);
+  private static final BranchLayout LAYOUT_8 = BranchLayout.of(IntVector.SPECIES_256, 8);
+
+  private SparkleVector() {
+  }
+
+  static int lanes() {
+    return SPECIES.length();
+  }
+
+  private static IntVector rot(IntVector x, int n) {
+    return x.lanewise(VectorOperators.ROR, n);
+  }
+
+  private static IntVector ell(IntVector x) {
+    return rot(x.lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHL, 16)), 16);
+  }
+
+  /**
+   * Permutes the states in lanes [lane, lane + lanes()) of the structure-of-arrays block. The words
+   * are loaded once, all steps run on vectors held in locals, and the linear layer only moves
+   * them between branches before they are stored once at the end.
+   *
+   * @param states states where word w of state s is at states[w * count + s]
+   * @param count  number of states in the block
+   * @param lane   first state to permute
+   * @param brans  number of branches
+   * @param steps  number of steps
+   */
+  static void sparkle(int[] states, int count, int lane, int brans, int steps) {
+    IntVector[] x = new IntVector[brans];
+    IntVector[] y = new IntVector[brans];
+    for (int j = 0; j < brans; j++) {
+      x[j] = IntVector.fromArray(SPECIES, states, 2 * j * count + lane);
+      y[j] = IntVector.fromArray(SPECIES, states, (2 * j + 1) * count + lane);
+    }
+    int half = brans / 2;
+    for (int i = 0; i < steps; i++) {
+      y[0] = y[0].lanewise(VectorOperators.XOR, Sparkle.rcon[i % Sparkle.maxBranches]);
+      y[1] = y[1].lanewise(VectorOperators.XOR, i);
+      for (int j = 0; j < brans; j++) {
+        int rc = Sparkle.rcon[j];
+        IntVector xj = x[j];
+        IntVector yj = y[j];
+        xj = xj.add(rot(yj, 31));
+        yj = yj.lanewise(VectorOperators.XOR, rot(xj, 24));
+        xj = xj.lanewise(VectorOperators.XOR, rc);
+        xj = xj.add(rot(yj, 17));
+        yj = yj.lanewise(VectorOperators.XOR, rot(xj, 17));
+        xj = xj.lanewise(VectorOperators.XOR, rc);
+        xj = xj.add(yj);
+        yj = yj.lanewise(VectorOperators.XOR, rot(xj, 31));
+        xj = xj.lanewise(VectorOperators.XOR, rc);
+        xj = xj.add(rot(yj, 24));
+        yj = yj.lanewise(VectorOperators.XOR, rot(xj, 16));
+        x[j] = xj.lanewise(VectorOperators.XOR, rc);
+        y[j] = yj;
+      }
+      // Linear layer
+      IntVector tmpx = x[0];
+      IntVector tmpy = y[0];
+      for (int j = 1; j < half; j++) {
+        tmpx = tmpx.lanewise(VectorOperators.XOR, x[j]);
+        tmpy = tmpy.lanewise(VectorOperators.XOR, y[j]);
+      }
+      tmpx = ell(tmpx);
+      tmpy = ell(tmpy);
+      IntVector x0 = x[0];
+      IntVector y0 = y[0];
+      for (int j = 1; j < half; j++) {
+        IntVector xj = x[j];
+        IntVector yj = y[j];
+        x[j - 1] = x[j + half].lanewise(VectorOperators.XOR, xj)
+            .lanewise(VectorOperators.XOR, tmpy);
+        y[j - 1] = y[j + half].lanewise(VectorOperators.XOR, yj)
+            .lanewise(VectorOperators.XOR, tmpx);
+        x[j + half] = xj;
+        y[j + half] = yj;
+      }
+      x[half - 1] = x[half].lanewise(VectorOperators.XOR, x0).lanewise(VectorOperators.XOR, tmpy);
+      y[half - 1] = y[half].lanewise(VectorOperators.XOR, y0).lanewise(VectorOperators.XOR, tmpx);
+      x[half] = x0;
+      y[half] = y0;
+    }
+    for (int j = 0; j < brans; j++) {
+      x[j].intoArray(states, 2 * j * count + lane);
+      y[j].intoArray(states, (2 * j + 1) * count + lane);
+    }
+  }
+
+  /**
+   * Permutes a single state, running the Alzette boxes of all branches in parallel lanes.
+   *
+   * @param state state of 2 * brans words
+   * @param brans number of branches (4, 6 or 8)
+   * @param steps number of steps
+   */
+  static void sparkleBranches(int[] state, int brans, int steps) {
+    BranchLayout layout = brans == 4 ? LAYOUT_4 : brans == 6 ? LAYOUT_6 : LAYOUT_8;
+    VectorSpecies<Integer> species = layout.species;
+    VectorMask<Integer> left = layout.left;
+    IntVector rc = layout.rc;
+    IntVector x = IntVector.fromArray(species, state, 0, EVEN_WORDS, 0, layout.inRange);
+    IntVector y = IntVector.fromArray(species, state, 0, ODD_WORDS, 0, layout.inRange);
+    for (int i = 0; i < steps; i++) {
+      y = y.lanewise(VectorOperators.XOR, IntVector.fromArray(species, STEP_CONSTANTS[i], 0));
+      x = x.add(rot(y, 31));
+      y = y.lanewise(VectorOperators.XOR, rot(x, 24));
+      x = x.lanewise(VectorOperators.XOR, rc);
+      x = x.add(rot(y, 17));
+      y = y.lanewise(VectorOperators.XOR, rot(x, 17));
+      x = x.lanewise(VectorOperators.XOR, rc);
+      x = x.add(y);
+      y = y.lanewise(VectorOperators.XOR, rot(x, 31));
+      x = x.lanewise(VectorOperators.XOR, rc);
+      x = x.add(rot(y, 24));
+      y = y.lanewise(VectorOperators.XOR, rot(x, 16));
+      x = x.lanewise(VectorOperators.XOR, rc);
+      int tmpx = Sparkle.ell(x.reduceLanes(VectorOperators.XOR, left));
+      int tmpy = Sparkle.ell(y.reduceLanes(VectorOperators.XOR, left));
+      x = x.rearrange(layout.toRight).lanewise(VectorOperators.XOR,
+          x.rearrange(layout.nextLeft).lanewise(VectorOperators.XOR, tmpy), left);
+      y = y.rearrange(layout.toRight).lanewise(VectorOperators.XOR,
+          y.rearrange(layout.nextLeft).lanewise(VectorOperators.XOR, tmpx), left);
+    }
+    x.intoArray(state, 0, EVEN_WORDS, 0, layout.inRange);
+    y.intoArray(state, 0, ODD_WORDS, 0, layout.inRange);
+  }
+
+  /**
+   * Masks, shuffles and round constants for keeping the branches of one state in the lanes of a
+   * vector. Lane p of the left half takes the right branch p + 1, lane p of the right half the left
+   * branch p - half, which is the branch permutation of the linear layer.
+   */
+  private record BranchLayout(VectorSpecies<Integer> species, VectorMask<Integer> inRange,
+                              VectorMask<Integer> left, VectorShuffle<Integer> toRight,
+                              VectorShuffle<Integer> nextLeft, IntVector rc) {
+
+    static BranchLayout of(VectorSpecies<Integer> species, int brans) {
+      int half = brans / 2;
+      VectorMask<Integer> inRange = species.indexInRange(0, brans);
+      return new BranchLayout(species, inRange, species.indexInRange(0, half),
+          VectorShuffle.fromOp(species, p -> p < half ? half + (p + 1) % half
+              : p < brans ? p - half : p),
+          VectorShuffle.fromOp(species, p -> p < half ? (p + 1) % half : p),
+          IntVector.fromArray(species, Sparkle.rcon, 0, inRange));
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package sparkle;
+
+/**
+ * {@link MaskRandomness} backed by the {@link SparkleDrbg} of the calling thread, so threads never
+ * contend for randomness.
+ */
+final class ThreadLocalMaskRandomness implements MaskRandomness {
+
+  static final ThreadLocalMaskRandomness INSTANCE = new ThreadLocalMaskRandomness();
+
+  private ThreadLocalMaskRandomness() {
+  }
+
+  @Override
+  public int nextMask() {
+    return SparkleDrbg.current().nextMask();
+  }
+
+  @Override
+  public void nextMasks(int[] masks, int offset, int length) {
+    SparkleDrbg.current().nextMasks(masks, offset, length);
+  }
+}
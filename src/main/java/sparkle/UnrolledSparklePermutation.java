@@ -0,0 +1,44 @@
+package sparkle;
+
+/**
+ * Backend running the unrolled, variant-specialized kernels of {@link Sparkle}.
+ */
+public final class UnrolledSparklePermutation implements SparklePermutation {
+
+  public static final String NAME = "unrolled";
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public void sparkle256(int[] state) {
+    Sparkle.sparkle256(state);
+  }
+
+  @Override
+  public void sparkle256Slim(int[] state) {
+    Sparkle.sparkle256Slim(state);
+  }
+
+  @Override
+  public void sparkle384(int[] state) {
+    Sparkle.sparkle384(state);
+  }
+
+  @Override
+  public void sparkle384Slim(int[] state) {
+    Sparkle.sparkle384Slim(state);
+  }
+
+  @Override
+  public void sparkle512(int[] state) {
+    Sparkle.sparkle512(state);
+  }
+
+  @Override
+  public void sparkle512Slim(int[] state) {
+    Sparkle.sparkle512Slim(state);
+  }
+}
@@ -0,0 +1,46 @@
+package sparkle;
+
+/**
+ * Backend running the Alzette boxes of all branches in parallel vector lanes. Requires the
+ * jdk.incubator.vector module, {@link SparklePermutations} only offers it when the module is
+ * present.
+ */
+public final class VectorSparklePermutation implements SparklePermutation {
+
+  public static final String NAME = "vector";
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public void sparkle256(int[] state) {
+    SparkleVector.sparkleBranches(state, 4, 10);
+  }
+
+  @Override
+  public void sparkle256Slim(int[] state) {
+    SparkleVector.sparkleBranches(state, 4, 7);
+  }
+
+  @Override
+  public void sparkle384(int[] state) {
+    SparkleVector.sparkleBranches(state, 6, 11);
+  }
+
+  @Override
+  public void sparkle384Slim(int[] state) {
+    SparkleVector.sparkleBranches(state, 6, 7);
+  }
+
+  @Override
+  public void sparkle512(int[] state) {
+    SparkleVector.sparkleBranches(state, 8, 12);
+  }
+
+  @Override
+  public void sparkle512Slim(int[] state) {
+    SparkleVector.sparkleBranches(state, 8, 8);
+  }
+}
@@ -1,11 +1,18 @@
 package util;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * Utility class for number conversion.
  */
 public final class ConversionUtil {
 
   private static final int BYTE_MASK = (1 << 8) - 1;
+  private static final VarHandle INT_LITTLE_ENDIAN =
+      MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
 
   public static void intToBytes(int value, byte[] writeBuffer, int offset) {
     writeBuffer[offset] = (byte) value;
@@ -79,6 +86,67 @@ public final class ConversionUtil {
     return result;
   }
 
+  /**
+   * Reads little endian words into ints. Words past the given bytes are set to zero.
+   *
+   * @param bytes  bytes to read
+   * @param offset offset of the first byte
+   * @param length number of bytes to read
+   * @param ints   words to fill
+   */
+  public static void bytesToInts(byte[] bytes, int offset, int length, int[] ints) {
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = getIntLittleEndian(bytes, offset + 4 * i, length - 4 * i);
+    }
+  }
+
+  /**
+   * Reads a little endian word with a single unaligned load.
+   *
+   * @param bytes  bytes to read
+   * @param offset offset of the first byte
+   * @return the word
+   */
+  public static int getIntLittleEndian(byte[] bytes, int offset) {
+    return (int) INT_LITTLE_ENDIAN.get(bytes, offset);
+  }
+
+  /**
+   * Reads a little endian word of which only remaining bytes are given, the missing high bytes are
+   * zero.
+   *
+   * @param bytes     bytes to read
+   * @param offset    offset of the first byte
+   * @param remaining number of bytes left from offset, may be zero or negative
+   * @return the word
+   */
+  public static int getIntLittleEndian(byte[] bytes, int offset, int remaining) {
+    if (remaining >= 4) {
+      return (int) INT_LITTLE_ENDIAN.get(bytes, offset);
+    }
+    return bytesToIntSafe(bytes, offset, remaining);
+  }
+
+  public static void putIntLittleEndian(byte[] bytes, int offset, int value) {
+    INT_LITTLE_ENDIAN.set(bytes, offset, value);
+  }
+
+  /**
+   * Writes the lowest remaining bytes of a little endian word, at most four.
+   *
+   * @param bytes     bytes to write to
+   * @param offset    offset of the first byte
+   * @param value     the word
+   * @param remaining number of bytes to write
+   */
+  public static void putIntLittleEndian(byte[] bytes, int offset, int value, int remaining) {
+    if (remaining >= 4) {
+      INT_LITTLE_ENDIAN.set(bytes, offset, value);
+    } else {
+      intToBytesSafe(value, bytes, offset, remaining);
+    }
+  }
+
   public static int[] createIntArrayFromBytesLen(byte[] bytes, int length, int bytesLen) {
     int[] result = new int[length];
     for (int i = 0; i < result.length & bytesLen > 4; i++) {
@@ -111,12 +179,12 @@ public final class ConversionUtil {
 
   public static void copyLengthBytesFromStateToBuffer(int[] buffer, int[] state, int length,
       int rest) {
-    byte[] bytesCreated = new byte[4];
     int index = length / 4;
-    intToBytes(state[index], bytesCreated, 0);
-    // First copy uneven bytes into buffer[index]. If length % 4 = 0 this is the same as
-    // copying buffer[index] = state[index] for all indexes.
-    buffer[index] = getIntFromBytes(length % 4, buffer[index], bytesCreated);
+    // First copy uneven bytes into buffer[index]. The lowest length % 4 bytes are kept from the
+    // buffer and the rest is taken from the state. If length % 4 = 0 this is the same as copying
+    // buffer[index] = state[index] for all indexes.
+    int keep = (1 << (8 * (length % 4))) - 1;
+    buffer[index] = (buffer[index] & keep) | (state[index] & ~keep);
     for (; rest > 4; rest -= 4, index++) {
       buffer[index + 1] = state[index + 1];
     }
@@ -128,4 +196,73 @@ public final class ConversionUtil {
       elements = intToBytesSafe(ints[i], buffer, j * 4 + bufferStartIndex, elements);
     }
   }
+
+  /**
+   * Reads a little endian word at an absolute index, whatever the byte order of the buffer is.
+   *
+   * @param buffer buffer to read from, heap or direct
+   * @param index  index of the first byte
+   * @return the word
+   */
+  public static int getIntLittleEndian(ByteBuffer buffer, int index) {
+    int value = buffer.getInt(index);
+    return buffer.order() == ByteOrder.LITTLE_ENDIAN ? value : Integer.reverseBytes(value);
+  }
+
+  /**
+   * Writes a little endian word at an absolute index, whatever the byte order of the buffer is.
+   *
+   * @param buffer buffer to write to, heap or direct
+   * @param index  index of the first byte
+   * @param value  the word
+   */
+  public static void putIntLittleEndian(ByteBuffer buffer, int index, int value) {
+    buffer.putInt(index,
+        buffer.order() == ByteOrder.LITTLE_ENDIAN ? value : Integer.reverseBytes(value));
+  }
+
+  /**
+   * Reads little endian words into ints without moving the position of the buffer. Words past the
+   * given bytes are set to zero.
+   *
+   * @param buffer buffer to read from
+   * @param index  index of the first byte
+   * @param length number of bytes to read
+   * @param ints   words to fill
+   */
+  public static void bytesToInts(ByteBuffer buffer, int index, int length, int[] ints) {
+    for (int i = 0; i < ints.length; i++, index += 4, length -= 4) {
+      if (length >= 4) {
+        ints[i] = getIntLittleEndian(buffer, index);
+      } else {
+        int value = 0;
+        for (int k = 0; k < length; k++) {
+          value |= Byte.toUnsignedInt(buffer.get(index + k)) << (8 * k);
+        }
+        ints[i] = value;
+      }
+    }
+  }
+
+  /**
+   * Writes length bytes of little endian words into the buffer without moving its position.
+   *
+   * @param ints       words to write
+   * @param startIndex index of the first word
+   * @param buffer     buffer to write to
+   * @param index      index of the first byte
+   * @param length     number of bytes to write
+   */
+  public static void intsToBytes(int[] ints, int startIndex, ByteBuffer buffer, int index,
+      int length) {
+    for (int i = startIndex; length > 0; i++, index += 4, length -= 4) {
+      if (length >= 4) {
+        putIntLittleEndian(buffer, index, ints[i]);
+      } else {
+        for (int k = 0; k < length; k++) {
+          buffer.put(index + k, (byte) (ints[i] >>> (8 * k)));
+        }
+      }
+    }
+  }
 }
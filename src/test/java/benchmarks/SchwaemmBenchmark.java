@@ -12,6 +12,7 @@ import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.infra.Blackhole;
 import schwaemm.Schwaemm;
 import schwaemm.SchwaemmHelper;
+import schwaemm.SchwaemmKey;
 import schwaemm.SchwaemmType;
 
 public class SchwaemmBenchmark {
@@ -32,6 +33,23 @@ public class SchwaemmBenchmark {
     }
   }
 
+  @Fork(value = 1, warmups = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+  @Benchmark
+  public void schwaemm128128EncryptBatch(BatchPlan plan, Blackhole blackhole) {
+    blackhole.consume(plan.schwaemm.encryptBatch(plan.messages, plan.assoData, plan.nonces,
+        plan.key, plan.arena, 0, plan.offsets));
+  }
+
+  @Fork(value = 1, warmups = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+  @Benchmark
+  public void schwaemm128128EncryptBatchSingle(BatchPlan plan, Blackhole blackhole) {
+    for (int k = 0; k < BatchPlan.BATCH; k++) {
+      plan.schwaemm.encryptAndTag(plan.messages[k], plan.ciphers[k], plan.assoData[k], plan.key,
+          plan.nonces[k]);
+    }
+    blackhole.consume(plan.ciphers);
+  }
+
   private SchwaemmHelper selectData(int index, ExecutionPlan plan) {
     return plan.data[index % ExecutionPlan.COUNT];
   }
@@ -58,4 +76,37 @@ public class SchwaemmBenchmark {
       }
     }
   }
+
+  /** Batch of telemetry sized packets under one key. */
+  @State(Scope.Benchmark)
+  public static class BatchPlan {
+
+    public static final int BATCH = 64;
+
+    private final Schwaemm schwaemm = new Schwaemm(SchwaemmType.S128128);
+    private final byte[][] messages = new byte[BATCH][];
+    private final byte[][] assoData = new byte[BATCH][];
+    private final byte[][] nonces = new byte[BATCH][SchwaemmType.S128128.getNonceSize()];
+    private final byte[][] ciphers = new byte[BATCH][];
+    private final byte[] arena = new byte[BATCH * (128 + SchwaemmType.S128128.getTagBytes())];
+    private final int[] offsets = new int[BATCH + 1];
+    private SchwaemmKey key;
+
+    /** Setup method for benchmarks. */
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random random = new Random(1234);
+      byte[] keyBytes = new byte[SchwaemmType.S128128.getKeySize()];
+      random.nextBytes(keyBytes);
+      key = new SchwaemmKey(SchwaemmType.S128128, keyBytes);
+      for (int k = 0; k < BATCH; k++) {
+        messages[k] = new byte[16 + random.nextInt(113)];
+        assoData[k] = new byte[8];
+        random.nextBytes(messages[k]);
+        random.nextBytes(assoData[k]);
+        random.nextBytes(nonces[k]);
+        ciphers[k] = new byte[messages[k].length + SchwaemmType.S128128.getTagBytes()];
+      }
+    }
+  }
 }
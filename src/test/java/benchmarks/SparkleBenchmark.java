@@ -11,6 +11,7 @@ import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.infra.Blackhole;
 import sparkle.Sparkle;
+import sparkle.SparkleBatch;
 
 public class SparkleBenchmark {
 
@@ -29,6 +30,15 @@ public class SparkleBenchmark {
     }
   }
 
+  @Fork(value = 1, warmups = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+  @Benchmark
+  public void sparkleBatch(ExecutionPlan plan, Blackhole blackhole) {
+    for (int i = plan.iterations; i > 0; i -= ExecutionPlan.BATCH) {
+      SparkleBatch.sparkle256(plan.batch, ExecutionPlan.BATCH);
+      blackhole.consume(plan.batch);
+    }
+  }
+
   /**
    * Selects the next state to be benchmarked.
    *
@@ -45,12 +55,15 @@ public class SparkleBenchmark {
   public static class ExecutionPlan {
 
     public static final int COUNT = 13;
+    public static final int BATCH = 64;
 
     @Param({"10000"})
     private int iterations;
 
     private final int[][] states = new int[COUNT][Sparkle.maxBranches];
 
+    private final int[] batch = new int[Sparkle.maxBranches * BATCH];
+
     /** Setup method for benchmarks. */
     @Setup(Level.Invocation)
     public void setUp() {
@@ -62,6 +75,9 @@ public class SparkleBenchmark {
         }
         states[i] = state;
       }
+      for (int i = 0; i < batch.length; i++) {
+        batch[i] = random.nextInt(Integer.MAX_VALUE);
+      }
     }
   }
 }
@@ -0,0 +1,103 @@
+package esch;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public final class EschHasherTest {
+
+    private static final Random random = new Random();
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] hash(Esch esch, byte[] in) {
+        byte[] out = new byte[esch.digestBytes()];
+        esch.crypto_hash(out, in);
+        return out;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {256, 384})
+    void matchesOneShot(int type) {
+        Esch esch = new Esch(type);
+        EschHasher hasher = new EschHasher(esch);
+        for (int length = 0; length < 200; length++) {
+            byte[] in = randomBytes(length);
+            int position = 0;
+            while (position < length) {
+                int chunk = Math.min(random.nextInt(40), length - position);
+                if (chunk == 1) {
+                    hasher.update(in[position]);
+                } else {
+                    hasher.update(in, position, chunk);
+                }
+                position += chunk;
+            }
+            Assertions.assertThat(hasher.digest()).isEqualTo(hash(esch, in));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {256, 384})
+    void directBuffers(int type) {
+        Esch esch = new Esch(type);
+        EschHasher hasher = new EschHasher(esch);
+        for (int length = 0; length < 200; length += 7) {
+            byte[] in = randomBytes(length);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(length).put(in).flip();
+            while (buffer.hasRemaining()) {
+                int chunk = Math.min(random.nextInt(40) + 1, buffer.remaining());
+                ByteBuffer slice = buffer.slice(buffer.position(), chunk);
+                hasher.update(slice);
+                Assertions.assertThat(slice.hasRemaining()).isFalse();
+                buffer.position(buffer.position() + chunk);
+            }
+            byte[] out = new byte[esch.digestBytes() + 3];
+            hasher.digest(out, 3);
+            Assertions.assertThat(java.util.Arrays.copyOfRange(out, 3, out.length))
+                .isEqualTo(hash(esch, in));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {256, 384})
+    void copyAndReset(int type) {
+        Esch esch = new Esch(type);
+        byte[] prefix = randomBytes(37);
+        byte[] suffix = randomBytes(20);
+        EschHasher hasher = new EschHasher(esch);
+        hasher.update(prefix);
+        EschHasher copy = hasher.copy();
+        hasher.update(suffix);
+        byte[] joined = new byte[prefix.length + suffix.length];
+        System.arraycopy(prefix, 0, joined, 0, prefix.length);
+        System.arraycopy(suffix, 0, joined, prefix.length, suffix.length);
+        Assertions.assertThat(hasher.digest()).isEqualTo(hash(esch, joined));
+        Assertions.assertThat(copy.digest()).isEqualTo(hash(esch, prefix));
+
+        copy.update(suffix);
+        copy.reset();
+        Assertions.assertThat(copy.digest()).isEqualTo(hash(esch, new byte[0]));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {256, 384})
+    void largeInputInChunks(int type) {
+        Esch esch = new Esch(type);
+        byte[] in = randomBytes(4 * 1024 * 1024 + 5);
+        EschHasher hasher = esch.hasher();
+        byte[] chunk = new byte[64 * 1024];
+        for (int position = 0; position < in.length; position += chunk.length) {
+            int length = Math.min(chunk.length, in.length - position);
+            System.arraycopy(in, position, chunk, 0, length);
+            hasher.update(chunk, 0, length);
+        }
+        Assertions.assertThat(hasher.digest()).isEqualTo(hash(esch, in));
+    }
+}
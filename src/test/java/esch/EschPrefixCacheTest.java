@@ -0,0 +1,89 @@
+package esch;
+
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public final class EschPrefixCacheTest {
+
+    private static final Random random = new Random();
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] hash(Esch esch, byte[] prefix, byte[] message) {
+        byte[] in = new byte[prefix.length + message.length];
+        System.arraycopy(prefix, 0, in, 0, prefix.length);
+        System.arraycopy(message, 0, in, prefix.length, message.length);
+        byte[] out = new byte[esch.digestBytes()];
+        esch.crypto_hash(out, in);
+        return out;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {256, 384})
+    void cachedPrefixesMatchOneShot(int type) {
+        Esch esch = new Esch(type);
+        EschPrefixCache<Integer> cache = new EschPrefixCache<>(esch, 4);
+        byte[][] prefixes = new byte[4][];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = randomBytes(16 * i + i);
+        }
+        EschHasher pooled = esch.hasher();
+        for (int round = 0; round < 50; round++) {
+            int id = random.nextInt(prefixes.length);
+            byte[] message = randomBytes(random.nextInt(40));
+            EschHasher hasher = cache.hasher(id, prefixes[id]);
+            hasher.update(message);
+            Assertions.assertThat(hasher.digest()).isEqualTo(hash(esch, prefixes[id], message));
+            cache.start(pooled, id, prefixes[id]);
+            pooled.update(message);
+            Assertions.assertThat(pooled.digest()).isEqualTo(hash(esch, prefixes[id], message));
+        }
+        Assertions.assertThat(cache.misses()).isLessThanOrEqualTo(prefixes.length);
+        Assertions.assertThat(cache.hits()).isEqualTo(100 - cache.misses());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        Esch esch = new Esch(256);
+        EschPrefixCache<String> cache = new EschPrefixCache<>(esch, 2);
+        cache.hasher("a", new byte[]{1});
+        cache.hasher("b", new byte[]{2});
+        cache.hasher("a", new byte[]{1});
+        cache.hasher("c", new byte[]{3});
+        Assertions.assertThat(cache.size()).isEqualTo(2);
+        Assertions.assertThat(cache.misses()).isEqualTo(3);
+        cache.hasher("a", new byte[]{1});
+        Assertions.assertThat(cache.hits()).isEqualTo(2);
+        cache.hasher("b", new byte[]{2});
+        Assertions.assertThat(cache.misses()).isEqualTo(4);
+        cache.invalidate("b");
+        Assertions.assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void snapshotsRestoreIntoOtherHashers() {
+        Esch esch = new Esch(384);
+        byte[] prefix = randomBytes(50);
+        byte[] message = randomBytes(30);
+        EschHasher hasher = esch.hasher();
+        hasher.update(prefix);
+        EschHasher.Snapshot snapshot = hasher.snapshot();
+        hasher.update(randomBytes(10));
+        hasher.restore(snapshot);
+        hasher.update(message);
+        Assertions.assertThat(hasher.digest()).isEqualTo(hash(esch, prefix, message));
+        EschHasher other = new EschHasher(384);
+        other.restore(snapshot);
+        other.update(message);
+        Assertions.assertThat(other.digest()).isEqualTo(hash(esch, prefix, message));
+        Assertions.assertThatThrownBy(() -> new EschHasher(256).restore(snapshot))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,66 @@
+package esch;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public final class EschProviderTest {
+
+    private static final Random random = new Random();
+    private static final EschProvider provider = new EschProvider();
+
+    private static byte[] hash(int type, byte[] in) {
+        Esch esch = new Esch(type);
+        byte[] out = new byte[esch.digestBytes()];
+        esch.crypto_hash(out, in);
+        return out;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {256, 384})
+    void digestsMatchEsch(int type) throws NoSuchAlgorithmException, DigestException {
+        MessageDigest digest = MessageDigest.getInstance("Esch" + type, provider);
+        Assertions.assertThat(digest.getDigestLength()).isEqualTo(type / 8);
+        byte[] out = new byte[type / 8];
+        for (int length = 0; length < 100; length++) {
+            byte[] in = new byte[length];
+            random.nextBytes(in);
+            digest.update(in, 0, length / 2);
+            MessageDigest clone;
+            try {
+                clone = (MessageDigest) digest.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new AssertionError(e);
+            }
+            digest.update(in, length / 2, length - length / 2);
+            Assertions.assertThat(digest.digest(out, 0, out.length)).isEqualTo(out.length);
+            Assertions.assertThat(out).isEqualTo(hash(type, in));
+            clone.update(in, length / 2, length - length / 2);
+            Assertions.assertThat(clone.digest()).isEqualTo(out);
+        }
+        Assertions.assertThatThrownBy(() -> digest.digest(new byte[10], 0, 10))
+            .isInstanceOf(DigestException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {256, 384})
+    void digestInputStream(int type) throws NoSuchAlgorithmException, IOException {
+        byte[] in = new byte[10000];
+        random.nextBytes(in);
+        MessageDigest digest = MessageDigest.getInstance("Esch" + type, provider);
+        digest.update(new byte[5]);
+        digest.reset();
+        try (InputStream stream = new DigestInputStream(new ByteArrayInputStream(in), digest)) {
+            stream.readAllBytes();
+        }
+        Assertions.assertThat(digest.digest()).isEqualTo(hash(type, in));
+    }
+}
@@ -0,0 +1,86 @@
+package esch;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public final class EschTreeTest {
+
+    private static final Random random = new Random();
+    private static final int CHUNK = 100;
+
+    @TempDir
+    Path directory;
+
+    private static byte[] node(Esch esch, int domain, byte[]... parts) {
+        EschHasher hasher = esch.hasher();
+        hasher.reset(domain);
+        for (byte[] part : parts) {
+            hasher.update(part);
+        }
+        return hasher.digest();
+    }
+
+    private static byte[] parameters(long length) {
+        byte[] parameters = new byte[12];
+        for (int i = 0; i < 8; i++) {
+            parameters[i] = (byte) (length >>> (8 * i));
+        }
+        parameters[8] = CHUNK;
+        return parameters;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {256, 384})
+    void matchesExplicitTree(int type) {
+        Esch esch = new Esch(type);
+        EschTree tree = new EschTree(esch, CHUNK, ForkJoinPool.commonPool());
+        byte[] in = new byte[2 * CHUNK + 7];
+        random.nextBytes(in);
+        byte[] leaf0 = node(esch, 1, Arrays.copyOfRange(in, 0, CHUNK));
+        byte[] leaf1 = node(esch, 1, Arrays.copyOfRange(in, CHUNK, 2 * CHUNK));
+        byte[] leaf2 = node(esch, 1, Arrays.copyOfRange(in, 2 * CHUNK, in.length));
+        byte[] top = node(esch, 2, node(esch, 2, leaf0, leaf1), leaf2);
+        Assertions.assertThat(tree.hash(in)).isEqualTo(node(esch, 3, top, parameters(in.length)));
+
+        byte[] empty = node(esch, 3, node(esch, 1), parameters(0));
+        Assertions.assertThat(tree.hash(new byte[0])).isEqualTo(empty);
+        byte[] plain = new byte[esch.digestBytes()];
+        esch.crypto_hash(plain, new byte[0]);
+        Assertions.assertThat(empty).isNotEqualTo(plain);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {256, 384})
+    void sourcesAgree(int type) throws IOException {
+        Esch esch = new Esch(type);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            EschTree tree = new EschTree(esch, CHUNK, pool);
+            for (int length : new int[]{0, 1, CHUNK, 5 * CHUNK, 37 * CHUNK + 3, 100 * CHUNK}) {
+                byte[] in = new byte[length];
+                random.nextBytes(in);
+                byte[] digest = tree.hash(in);
+                Assertions.assertThat(digest).hasSize(esch.digestBytes());
+                Path file = directory.resolve("input" + length);
+                Files.write(file, in);
+                Assertions.assertThat(tree.hash(file)).isEqualTo(digest);
+                Assertions.assertThat(tree.hash(new ByteArrayInputStream(in))).isEqualTo(digest);
+                if (length > 0) {
+                    in[random.nextInt(length)] ^= 1;
+                    Assertions.assertThat(tree.hash(in)).isNotEqualTo(digest);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
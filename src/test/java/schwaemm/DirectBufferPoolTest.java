@@ -0,0 +1,45 @@
+package schwaemm;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test that released buffers are zeroed and that only a bounded number of capacities is pooled.
+ */
+public final class DirectBufferPoolTest {
+
+  @Test
+  void releasedBuffersAreZeroed() {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(10_000);
+    while (buffer.hasRemaining()) {
+      buffer.put((byte) 0x5A);
+    }
+    buffer.limit(17);
+    DirectBufferPool.release(buffer);
+    Assertions.assertThat(buffer.position()).isZero();
+    Assertions.assertThat(buffer.limit()).isEqualTo(buffer.capacity());
+    while (buffer.hasRemaining()) {
+      Assertions.assertThat(buffer.get()).isZero();
+    }
+  }
+
+  @Test
+  void capacitiesAreBounded() {
+    List<ByteBuffer> released = new ArrayList<>();
+    for (int capacity = 3001; capacity <= 3100; capacity++) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(capacity);
+      DirectBufferPool.release(buffer);
+      released.add(buffer);
+    }
+    int reused = 0;
+    for (ByteBuffer buffer : released) {
+      if (DirectBufferPool.acquire(buffer.capacity()) == buffer) {
+        reused++;
+      }
+    }
+    Assertions.assertThat(reused).isLessThan(released.size());
+  }
+}
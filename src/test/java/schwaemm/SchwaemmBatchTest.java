@@ -0,0 +1,72 @@
+package schwaemm;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Test the batched API against encrypting every message on its own.
+ */
+public final class SchwaemmBatchTest {
+
+  private static final Random random = new Random();
+
+  private static byte[] randomBytes(int maxLength) {
+    byte[] bytes = new byte[random.nextInt(maxLength + 1)];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  @ParameterizedTest
+  @EnumSource(SchwaemmType.class)
+  void batchMatchesSingleMessages(SchwaemmType type) {
+    Schwaemm schwaemm = new Schwaemm(type);
+    for (int run = 0; run < 20; run++) {
+      int count = random.nextInt(40) + 1;
+      byte[] keyBytes = new byte[type.getKeySize()];
+      random.nextBytes(keyBytes);
+      SchwaemmKey key = new SchwaemmKey(type, keyBytes);
+      byte[][] messages = new byte[count][];
+      byte[][] assoData = new byte[count][];
+      byte[][] nonces = new byte[count][type.getNonceSize()];
+      for (int k = 0; k < count; k++) {
+        messages[k] = randomBytes(130);
+        assoData[k] = randomBytes(40);
+        random.nextBytes(nonces[k]);
+      }
+
+      byte[] arena = new byte[5 + count * (130 + type.getTagBytes())];
+      int[] offsets = new int[count + 1];
+      int written = schwaemm.encryptBatch(messages, assoData, nonces, key, arena, 5, offsets);
+      Assertions.assertThat(written).isEqualTo(offsets[count] - 5);
+      byte[][] ciphers = new byte[count][];
+      for (int k = 0; k < count; k++) {
+        byte[] expected = new byte[messages[k].length + type.getTagBytes()];
+        schwaemm.encryptAndTag(messages[k], expected, assoData[k], keyBytes, nonces[k]);
+        ciphers[k] = Arrays.copyOfRange(arena, offsets[k], offsets[k + 1]);
+        Assertions.assertThat(ciphers[k]).isEqualTo(expected);
+      }
+
+      int forged = random.nextInt(count);
+      ciphers[forged][random.nextInt(ciphers[forged].length)] ^= 1;
+      byte[] messageArena = new byte[count * 130];
+      Arrays.fill(messageArena, (byte) 0x55);
+      boolean[] verified = new boolean[count];
+      int verifiedCount = schwaemm.decryptBatch(ciphers, assoData, nonces, key, messageArena, 0,
+          offsets, verified);
+      Assertions.assertThat(verifiedCount).isEqualTo(count - 1);
+      for (int k = 0; k < count; k++) {
+        byte[] message = Arrays.copyOfRange(messageArena, offsets[k], offsets[k + 1]);
+        if (k == forged) {
+          Assertions.assertThat(verified[k]).isFalse();
+          Assertions.assertThat(message).isEqualTo(new byte[message.length]);
+        } else {
+          Assertions.assertThat(verified[k]).isTrue();
+          Assertions.assertThat(message).isEqualTo(messages[k]);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package schwaemm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test range reads of a segmented blob against the plain message.
+ */
+public final class SchwaemmBlobReaderTest {
+
+  private static final Random random = new Random();
+  private static final SchwaemmType TYPE = SchwaemmType.S128128;
+  private static final int SEGMENT = 64;
+  private final SchwaemmSegmented segmented =
+      new SchwaemmSegmented(new Schwaemm(TYPE), SEGMENT, ForkJoinPool.commonPool());
+  private final byte[] keyBytes = randomBytes(TYPE.getKeySize());
+  private final SchwaemmKey key = new SchwaemmKey(TYPE, keyBytes);
+  private final byte[] nonce = randomBytes(SchwaemmSegmented.noncePrefixBytes(TYPE));
+  private final byte[] assoData = randomBytes(9);
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  private static void checkRandomRanges(SchwaemmBlobReader reader, byte[] message) {
+    Assertions.assertThat(reader.length()).isEqualTo(message.length);
+    for (int i = 0; i < 50; i++) {
+      int position = random.nextInt(message.length);
+      int count = random.nextInt(3 * SEGMENT);
+      byte[] buffer = new byte[count];
+      int read = reader.read(position, buffer, 0, count);
+      int expected = Math.min(count, message.length - position);
+      Assertions.assertThat(read).isEqualTo(expected);
+      Assertions.assertThat(Arrays.copyOf(buffer, read))
+          .isEqualTo(Arrays.copyOfRange(message, position, position + expected));
+    }
+    Assertions.assertThat(reader.read(message.length, new byte[1], 0, 1)).isEqualTo(-1);
+  }
+
+  @RepeatedTest(10)
+  void rangesFromBuffer() {
+    byte[] message = randomBytes(random.nextInt(20 * SEGMENT) + 1);
+    byte[] cipher = segmented.encrypt(message, assoData, key, nonce);
+    SchwaemmBlobReader reader =
+        new SchwaemmBlobReader(segmented, ByteBuffer.wrap(cipher), assoData, key, nonce, 3);
+    checkRandomRanges(reader, message);
+  }
+
+  @Test
+  void rangesFromFile(@TempDir Path directory) throws IOException {
+    byte[] message = randomBytes(17 * SEGMENT + 5);
+    Path file = directory.resolve("blob");
+    Files.write(file, segmented.encrypt(message, assoData, key, nonce));
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      SchwaemmBlobReader reader =
+          new SchwaemmBlobReader(segmented, channel, assoData, key, nonce, 4);
+      checkRandomRanges(reader, message);
+    }
+  }
+
+  @Test
+  void forgedSegmentOnlyFailsItsRange() {
+    byte[] message = randomBytes(5 * SEGMENT);
+    byte[] cipher = segmented.encrypt(message, assoData, key, nonce);
+    // Forge the third segment.
+    cipher[2 * (SEGMENT + TYPE.getTagBytes()) + 3] ^= 1;
+    SchwaemmBlobReader reader =
+        new SchwaemmBlobReader(segmented, ByteBuffer.wrap(cipher), assoData, key, nonce, 2);
+    byte[] buffer = new byte[SEGMENT];
+    Assertions.assertThat(reader.read(SEGMENT, buffer, 0, SEGMENT)).isEqualTo(SEGMENT);
+    Assertions.assertThat(buffer).isEqualTo(Arrays.copyOfRange(message, SEGMENT, 2 * SEGMENT));
+    Assertions.assertThatThrownBy(() -> reader.read(2 * SEGMENT + 10, buffer, 0, 1))
+        .hasMessage("Could not verify tag!");
+  }
+}
@@ -0,0 +1,95 @@
+package schwaemm;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Test the ByteBuffer encryption and decryption against the byte array schwaemm.Schwaemm.
+ */
+public final class SchwaemmByteBufferTest {
+
+  private static final Random random = new Random();
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  /**
+   * Wraps bytes in a heap or direct buffer of random byte order, placed at a random position.
+   */
+  private static ByteBuffer randomBuffer(byte[] bytes, int extra) {
+    int offset = random.nextInt(7);
+    ByteBuffer buffer = random.nextBoolean()
+        ? ByteBuffer.allocateDirect(offset + bytes.length + extra)
+        : ByteBuffer.allocate(offset + bytes.length + extra);
+    buffer.order(random.nextBoolean() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+    buffer.position(offset);
+    buffer.put(bytes);
+    buffer.position(offset).limit(offset + bytes.length);
+    return buffer;
+  }
+
+  private static byte[] remaining(ByteBuffer buffer, int from, int length) {
+    byte[] bytes = new byte[length];
+    buffer.get(from, bytes);
+    return bytes;
+  }
+
+  @ParameterizedTest
+  @EnumSource(SchwaemmType.class)
+  void byteBufferMatchesByteArray(SchwaemmType type) {
+    Schwaemm schwaemm = new Schwaemm(type);
+    for (int run = 0; run < 200; run++) {
+      byte[] key = randomBytes(type.getKeySize());
+      byte[] nonce = randomBytes(type.getNonceSize());
+      byte[] associate = randomBytes(random.nextInt(100));
+      byte[] message = randomBytes(random.nextInt(200));
+      byte[] expected = new byte[message.length + type.getTagBytes()];
+      schwaemm.encryptAndTag(message, expected, associate, key, nonce);
+
+      ByteBuffer src = randomBuffer(message, 0);
+      ByteBuffer aad = randomBuffer(associate, 0);
+      ByteBuffer dst = randomBuffer(new byte[0], expected.length);
+      dst.limit(dst.capacity());
+      int start = dst.position();
+      int written = schwaemm.encrypt(src, dst, aad, key, nonce);
+      Assertions.assertThat(written).isEqualTo(expected.length);
+      Assertions.assertThat(src.hasRemaining()).isFalse();
+      Assertions.assertThat(aad.hasRemaining()).isFalse();
+      Assertions.assertThat(remaining(dst, start, written)).isEqualTo(expected);
+
+      ByteBuffer cipher = randomBuffer(expected, 0);
+      ByteBuffer plain = randomBuffer(new byte[0], message.length);
+      plain.limit(plain.capacity());
+      start = plain.position();
+      int decrypted = schwaemm.decrypt(cipher, plain, randomBuffer(associate, 0), key, nonce);
+      Assertions.assertThat(decrypted).isEqualTo(message.length);
+      Assertions.assertThat(remaining(plain, start, decrypted)).isEqualTo(message);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(SchwaemmType.class)
+  void tamperedCipherIsZeroed(SchwaemmType type) {
+    Schwaemm schwaemm = new Schwaemm(type);
+    byte[] key = randomBytes(type.getKeySize());
+    byte[] nonce = randomBytes(type.getNonceSize());
+    byte[] message = randomBytes(random.nextInt(100) + 1);
+    byte[] cipher = new byte[message.length + type.getTagBytes()];
+    schwaemm.encryptAndTag(message, cipher, new byte[0], key, nonce);
+    cipher[cipher.length - 1] ^= 1;
+
+    ByteBuffer src = randomBuffer(cipher, 0);
+    ByteBuffer dst = ByteBuffer.allocateDirect(message.length);
+    Assertions.assertThatThrownBy(() -> schwaemm.decrypt(src, dst, null, key, nonce))
+        .hasMessage("Could not verify tag!");
+    Assertions.assertThat(dst.position()).isZero();
+    Assertions.assertThat(remaining(dst, 0, message.length)).containsOnly(0);
+  }
+}
@@ -0,0 +1,129 @@
+package schwaemm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the channel wrappers by sending random messages through both of them.
+ */
+public final class SchwaemmChannelTest {
+
+  private static final Random random = new Random();
+  private static final SchwaemmType TYPE = SchwaemmType.S256256;
+  private static final int RECORD = 50;
+  private final Schwaemm schwaemm = new Schwaemm(TYPE);
+  private final byte[] keyBytes = randomBytes(TYPE.getKeySize());
+  private final SchwaemmKey key = new SchwaemmKey(TYPE, keyBytes);
+  private final byte[] nonce = randomBytes(SchwaemmSegmented.noncePrefixBytes(TYPE));
+  private final byte[] assoData = randomBytes(7);
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  private byte[] seal(byte[] message) throws IOException {
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    try (WritableByteChannel channel = new SchwaemmWritableChannel(Channels.newChannel(sink),
+        schwaemm, key, nonce, assoData, RECORD)) {
+      int position = 0;
+      while (position < message.length) {
+        int length = Math.min(random.nextInt(2 * RECORD) + 1, message.length - position);
+        ByteBuffer chunk = ByteBuffer.allocateDirect(length);
+        chunk.put(message, position, length).flip();
+        Assertions.assertThat(channel.write(chunk)).isEqualTo(length);
+        position += length;
+      }
+    }
+    return sink.toByteArray();
+  }
+
+  private byte[] open(byte[] sealed) throws IOException {
+    ByteArrayOutputStream message = new ByteArrayOutputStream();
+    try (ReadableByteChannel channel = new SchwaemmReadableChannel(
+        Channels.newChannel(new ByteArrayInputStream(sealed)), schwaemm, key, nonce, assoData,
+        RECORD)) {
+      ByteBuffer chunk = ByteBuffer.allocate(random.nextInt(2 * RECORD) + 1);
+      while (channel.read(chunk) >= 0) {
+        message.write(chunk.array(), 0, chunk.position());
+        chunk.clear();
+      }
+    }
+    return message.toByteArray();
+  }
+
+  @RepeatedTest(30)
+  void roundTrip() throws IOException {
+    byte[] message = randomBytes(random.nextInt(10 * RECORD));
+    byte[] sealed = seal(message);
+    Assertions.assertThat(open(sealed)).isEqualTo(message);
+  }
+
+  @Test
+  void recordsAreSealedMessages() throws IOException {
+    byte[] message = randomBytes(2 * RECORD + 3);
+    byte[] sealed = seal(message);
+    int tag = TYPE.getTagBytes();
+    int[] lengths = {RECORD, RECORD, 3};
+    int position = 0;
+    byte[] recordNonce = new byte[TYPE.getNonceSize()];
+    for (int i = 0; i < lengths.length; i++) {
+      boolean last = i == lengths.length - 1;
+      int header = ByteBuffer.wrap(sealed, position, 4).order(java.nio.ByteOrder.LITTLE_ENDIAN)
+          .getInt();
+      Assertions.assertThat(header).isEqualTo(last ? lengths[i] | 1 << 31 : lengths[i]);
+      byte[] expected = new byte[lengths[i] + tag];
+      SchwaemmSegmented.segmentNonce(nonce, i, last, recordNonce);
+      schwaemm.encryptAndTag(Arrays.copyOfRange(message, i * RECORD, i * RECORD + lengths[i]),
+          expected, assoData, keyBytes, recordNonce);
+      Assertions.assertThat(
+              Arrays.copyOfRange(sealed, position + 4, position + 4 + expected.length))
+          .isEqualTo(expected);
+      position += 4 + expected.length;
+    }
+    Assertions.assertThat(position).isEqualTo(sealed.length);
+  }
+
+  @Test
+  void cutAndForgedStreamsAreRejected() throws IOException {
+    byte[] sealed = seal(randomBytes(3 * RECORD + 10));
+    int recordBytes = 4 + RECORD + TYPE.getTagBytes();
+    Assertions.assertThatThrownBy(() -> open(Arrays.copyOf(sealed, 2 * recordBytes)))
+        .hasMessage("Could not verify tag!");
+    Assertions.assertThatThrownBy(() -> open(new byte[0]))
+        .hasMessage("Could not verify tag!");
+    byte[] forged = sealed.clone();
+    forged[recordBytes + 10] ^= 1;
+    Assertions.assertThatThrownBy(() -> open(forged)).hasMessage("Could not verify tag!");
+  }
+
+  @Test
+  void readingOnAfterForgedRecordFails() throws IOException {
+    byte[] sealed = seal(randomBytes(3 * RECORD + 10));
+    int recordBytes = 4 + RECORD + TYPE.getTagBytes();
+    sealed[recordBytes + 10] ^= 1;
+    try (ReadableByteChannel channel = new SchwaemmReadableChannel(
+        Channels.newChannel(new ByteArrayInputStream(sealed)), schwaemm, key, nonce, assoData,
+        RECORD)) {
+      ByteBuffer chunk = ByteBuffer.allocate(RECORD);
+      Assertions.assertThat(channel.read(chunk)).isEqualTo(RECORD);
+      chunk.clear();
+      Assertions.assertThatThrownBy(() -> channel.read(chunk))
+          .hasMessage("Could not verify tag!");
+      Assertions.assertThatThrownBy(() -> channel.read(chunk))
+          .hasMessage("Could not verify tag!");
+      Assertions.assertThat(chunk.position()).isZero();
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package schwaemm;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Test the reusable context against the staged implementation of schwaemm.
+ */
+public final class SchwaemmContextTest {
+
+  private static final Random random = new Random();
+
+  private static void checkAgainstStages(SchwaemmType type, SchwaemmHelper data) {
+    Schwaemm schwaemm = new Schwaemm(type);
+    int[] state = new int[type.getStateSize()];
+    schwaemm.initialize(state, data.key(), data.nonce());
+    if (data.associate().length > 0) {
+      schwaemm.associateData(state, data.associate());
+    }
+    if (data.message().length > 0) {
+      schwaemm.encrypt(state, data.message(), data.cipherC());
+    }
+    schwaemm.finalize(state, data.key());
+    schwaemm.generateTag(state, data.cipherC(), data.message().length);
+
+    SchwaemmContext context = schwaemm.context();
+    int written = context.encrypt(data.message(), data.cipherJava(), data.associate(), data.key(),
+        data.nonce());
+    Assertions.assertThat(written).isEqualTo(data.cipherC().length);
+    Assertions.assertThat(data.cipherJava()).isEqualTo(data.cipherC());
+
+    byte[] message = new byte[data.message().length];
+    context.decrypt(data.cipherC(), message, data.associate(), data.key(), data.nonce());
+    Assertions.assertThat(message).isEqualTo(data.message());
+  }
+
+  // The C libraries of the variants share symbol names and cannot be loaded into one JVM, so the
+  // context is checked against the staged implementation, which the variant tests check against C.
+  @ParameterizedTest
+  @EnumSource(SchwaemmType.class)
+  void contextMatchesStages(SchwaemmType type) {
+    for (int run = 0; run < 100; run++) {
+      checkAgainstStages(type, SchwaemmHelper.prepareTest(type));
+    }
+  }
+
+  // Longer messages are checked against the ByteBuffer API, which runs block by block.
+  @ParameterizedTest
+  @EnumSource(SchwaemmType.class)
+  void contextMatchesBlocksBigM(SchwaemmType type) {
+    Schwaemm schwaemm = new Schwaemm(type);
+    for (int run = 0; run < 100; run++) {
+      SchwaemmHelper data = SchwaemmHelper.prepareTest(type, 1, 300);
+      ByteBuffer cipher = ByteBuffer.wrap(data.cipherC());
+      schwaemm.encrypt(ByteBuffer.wrap(data.message()), cipher, ByteBuffer.wrap(data.associate()),
+          data.key(), data.nonce());
+      schwaemm.context().encrypt(data.message(), data.cipherJava(), data.associate(), data.key(),
+          data.nonce());
+      Assertions.assertThat(data.cipherJava()).isEqualTo(data.cipherC());
+
+      byte[] message = new byte[data.message().length];
+      schwaemm.context().decrypt(data.cipherC(), message, data.associate(), data.key(),
+          data.nonce());
+      Assertions.assertThat(message).isEqualTo(data.message());
+    }
+  }
+
+  @Test
+  void contextWithOffsets() {
+    SchwaemmType type = SchwaemmType.S256128;
+    Schwaemm schwaemm = new Schwaemm(type);
+    SchwaemmHelper data = SchwaemmHelper.prepareTest(type, 40, 100);
+    schwaemm.encryptAndTag(data.message(), data.cipherJava(), data.associate(), data.key(),
+        data.nonce());
+
+    byte[] message = new byte[data.message().length + 10];
+    System.arraycopy(data.message(), 0, message, 3, data.message().length);
+    byte[] cipher = new byte[data.cipherJava().length + 10];
+    schwaemm.context().encrypt(message, 3, data.message().length, cipher, 7, data.associate(),
+        data.key(), data.nonce());
+    Assertions.assertThat(Arrays.copyOfRange(cipher, 7, 7 + data.cipherJava().length))
+        .isEqualTo(data.cipherJava());
+  }
+
+  @Test
+  void steadyStateDoesNotAllocate() {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    SchwaemmType type = SchwaemmType.S192192;
+    SchwaemmContext context = new SchwaemmContext(new Schwaemm(type));
+    SchwaemmHelper data = SchwaemmHelper.prepareTest(type, 100, 200);
+    byte[] message = new byte[data.message().length];
+    for (int i = 0; i < 20_000; i++) {
+      context.encrypt(data.message(), data.cipherJava(), data.associate(), data.key(),
+          data.nonce());
+      context.decrypt(data.cipherJava(), message, data.associate(), data.key(), data.nonce());
+    }
+    long id = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(id);
+    for (int i = 0; i < 1000; i++) {
+      context.encrypt(data.message(), data.cipherJava(), data.associate(), data.key(),
+          data.nonce());
+      context.decrypt(data.cipherJava(), message, data.associate(), data.key(), data.nonce());
+    }
+    long allocated = threads.getThreadAllocatedBytes(id) - before;
+    // A few bytes may come from the measurement itself, far below one byte per call.
+    Assertions.assertThat(allocated).isLessThan(1000);
+  }
+
+  @Test
+  void contextsStayWithTheirInstance() {
+    SchwaemmType type = SchwaemmType.S128128;
+    SchwaemmHelper data = SchwaemmHelper.prepareTest(type, 100, 200);
+    byte[] expected = new byte[data.cipherJava().length];
+    new Schwaemm(type).encryptAndTag(data.message(), expected, data.associate(), data.key(),
+        data.nonce());
+    Schwaemm first = new Schwaemm(type);
+    SchwaemmContext context = first.context();
+    Schwaemm second = new Schwaemm(type);
+    Assertions.assertThat(second.context()).isNotSameAs(context);
+    Assertions.assertThat(first.context()).isSameAs(context);
+    context.encrypt(data.message(), data.cipherJava(), data.associate(), data.key(),
+        data.nonce());
+    Assertions.assertThat(data.cipherJava()).isEqualTo(expected);
+  }
+
+  @Test
+  void threadScratchDoesNotKeepSchwaemmAlive() throws InterruptedException {
+    SchwaemmType type = SchwaemmType.S128128;
+    SchwaemmHelper data = SchwaemmHelper.prepareTest(type, 100, 200);
+    Schwaemm first = new Schwaemm(type);
+    first.context().encrypt(data.message(), data.cipherJava(), data.associate(), data.key(),
+        data.nonce());
+    WeakReference<Schwaemm> reference = new WeakReference<>(first);
+    first = null;
+    for (int i = 0; i < 100 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    Assertions.assertThat(reference.get()).isNull();
+  }
+}
@@ -0,0 +1,74 @@
+package schwaemm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test the mapped file tool against the in-memory segmented container.
+ */
+public final class SchwaemmFilesTest {
+
+  private static final Random random = new Random();
+  private static final SchwaemmType TYPE = SchwaemmType.S192192;
+  private static final int SEGMENT = 1000;
+  private final SchwaemmSegmented segmented =
+      new SchwaemmSegmented(new Schwaemm(TYPE), SEGMENT, ForkJoinPool.commonPool());
+  private final SchwaemmFiles files = new SchwaemmFiles(segmented);
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  @Test
+  void fileMatchesSegmentedContainer(@TempDir Path directory) throws IOException {
+    SchwaemmKey key = new SchwaemmKey(TYPE, randomBytes(TYPE.getKeySize()));
+    byte[] assoData = randomBytes(5);
+    for (int length : new int[]{0, 1, SEGMENT, 7 * SEGMENT + 123}) {
+      byte[] message = randomBytes(length);
+      byte[] nonce = randomBytes(SchwaemmSegmented.noncePrefixBytes(TYPE));
+      Path plain = directory.resolve("plain");
+      Path sealed = directory.resolve("sealed");
+      Path opened = directory.resolve("opened");
+      Files.write(plain, message);
+      files.encrypt(plain, sealed, assoData, key, nonce);
+
+      byte[] cipher = Files.readAllBytes(sealed);
+      Assertions.assertThat(Arrays.copyOf(cipher, nonce.length)).isEqualTo(nonce);
+      Assertions.assertThat(Arrays.copyOfRange(cipher, nonce.length, cipher.length))
+          .isEqualTo(segmented.encrypt(message, assoData, key, nonce));
+
+      files.decrypt(sealed, opened, assoData, key);
+      Assertions.assertThat(Files.readAllBytes(opened)).isEqualTo(message);
+    }
+  }
+
+  @Test
+  void forgedFileIsRejected(@TempDir Path directory) throws IOException {
+    SchwaemmKey key = new SchwaemmKey(TYPE, randomBytes(TYPE.getKeySize()));
+    Path plain = directory.resolve("plain");
+    Path sealed = directory.resolve("sealed");
+    Path opened = directory.resolve("opened");
+    Files.write(plain, randomBytes(3 * SEGMENT));
+    files.encrypt(plain, sealed, new byte[0], key,
+        randomBytes(SchwaemmSegmented.noncePrefixBytes(TYPE)));
+    byte[] cipher = Files.readAllBytes(sealed);
+    cipher[cipher.length - 1] ^= 1;
+    Files.write(sealed, cipher);
+    Assertions.assertThatThrownBy(() -> files.decrypt(sealed, opened, new byte[0], key))
+        .hasMessage("Could not verify tag!");
+    Assertions.assertThat(opened).doesNotExist();
+    try (Stream<Path> entries = Files.list(directory)) {
+      Assertions.assertThat(entries).containsExactlyInAnyOrder(plain, sealed);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package schwaemm;
+
+import java.nio.ByteBuffer;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Test that a parsed key gives the same results as the key bytes.
+ */
+public final class SchwaemmKeyTest {
+
+  @ParameterizedTest
+  @EnumSource(SchwaemmType.class)
+  void parsedKeyMatchesBytes(SchwaemmType type) {
+    Schwaemm schwaemm = new Schwaemm(type);
+    for (int run = 0; run < 50; run++) {
+      SchwaemmHelper data = SchwaemmHelper.prepareTest(type, 0, 200);
+      SchwaemmKey key = new SchwaemmKey(type, data.key());
+      schwaemm.encryptAndTag(data.message(), data.cipherC(), data.associate(), data.key(),
+          data.nonce());
+      schwaemm.encryptAndTag(data.message(), data.cipherJava(), data.associate(), key,
+          data.nonce());
+      Assertions.assertThat(data.cipherJava()).isEqualTo(data.cipherC());
+      Assertions.assertThat(schwaemm.decryptAndVerify(data.cipherJava(), data.associate(), key,
+          data.nonce())).isEqualTo(data.message());
+
+      ByteBuffer cipher = ByteBuffer.allocate(data.cipherC().length);
+      schwaemm.encrypt(ByteBuffer.wrap(data.message()), cipher, ByteBuffer.wrap(data.associate()),
+          key, data.nonce());
+      Assertions.assertThat(cipher.array()).isEqualTo(data.cipherC());
+
+      SchwaemmEncryptor encryptor = schwaemm.encryptor(key, data.nonce());
+      encryptor.updateAAD(data.associate());
+      byte[] streamed = new byte[data.cipherC().length + schwaemm.rateBytes()];
+      int written = encryptor.update(data.message(), 0, data.message().length, streamed, 0);
+      written += encryptor.doFinal(streamed, written);
+      Assertions.assertThat(written).isEqualTo(data.cipherC().length);
+      Assertions.assertThat(streamed).startsWith(data.cipherC());
+    }
+  }
+
+  @Test
+  void wipedKeyIsRejected() {
+    SchwaemmType type = SchwaemmType.S128128;
+    SchwaemmHelper data = SchwaemmHelper.prepareTest(type);
+    SchwaemmKey key = new SchwaemmKey(type, data.key());
+    key.wipe();
+    Assertions.assertThat(key.isWiped()).isTrue();
+    Assertions.assertThatThrownBy(() -> new Schwaemm(type).encryptAndTag(data.message(),
+        data.cipherJava(), data.associate(), key, data.nonce()))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void keyOfOtherTypeIsRejected() {
+    SchwaemmHelper data = SchwaemmHelper.prepareTest(SchwaemmType.S128128);
+    SchwaemmKey key = new SchwaemmKey(SchwaemmType.S128128, data.key());
+    Assertions.assertThatThrownBy(() -> new Schwaemm(SchwaemmType.S256128).encryptor(key,
+        new byte[SchwaemmType.S256128.getNonceSize()]))
+        .isInstanceOf(IllegalArgumentException.class);
+    Assertions.assertThatThrownBy(() -> new SchwaemmKey(SchwaemmType.S192192, data.key()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,173 @@
+package schwaemm;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Test the JCA cipher against {@link Schwaemm#encryptAndTag}.
+ */
+public final class SchwaemmProviderTest {
+
+  private static final Random random = new Random();
+  private static final SchwaemmProvider provider = new SchwaemmProvider();
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  private static Cipher cipher(SchwaemmType type, int mode, byte[] key, byte[] nonce)
+      throws GeneralSecurityException {
+    Cipher cipher = Cipher.getInstance("Schwaemm" + type.getType() + "/NONE/NoPadding", provider);
+    cipher.init(mode, new SecretKeySpec(key, "Schwaemm"), new IvParameterSpec(nonce));
+    return cipher;
+  }
+
+  @ParameterizedTest
+  @EnumSource(SchwaemmType.class)
+  void matchesSchwaemm(SchwaemmType type) throws GeneralSecurityException {
+    Schwaemm schwaemm = new Schwaemm(type);
+    for (int i = 0; i < 20; i++) {
+      byte[] key = randomBytes(type.getKeySize());
+      byte[] nonce = randomBytes(type.getNonceSize());
+      byte[] assoData = randomBytes(random.nextInt(40));
+      byte[] message = randomBytes(random.nextInt(200));
+      byte[] expected = new byte[message.length + type.getTagBytes()];
+      schwaemm.encryptAndTag(message, expected, assoData, key, nonce);
+
+      Cipher encrypt = cipher(type, Cipher.ENCRYPT_MODE, key, nonce);
+      encrypt.updateAAD(assoData);
+      Assertions.assertThat(encrypt.doFinal(message)).isEqualTo(expected);
+
+      encrypt = cipher(type, Cipher.ENCRYPT_MODE, key, nonce);
+      encrypt.updateAAD(assoData);
+      byte[] cipher = new byte[encrypt.getOutputSize(message.length)];
+      int written = 0;
+      int position = 0;
+      while (position < message.length) {
+        int length = Math.min(random.nextInt(30) + 1, message.length - position);
+        written += encrypt.update(message, position, length, cipher, written);
+        position += length;
+      }
+      written += encrypt.doFinal(cipher, written);
+      Assertions.assertThat(written).isEqualTo(expected.length);
+      Assertions.assertThat(cipher).isEqualTo(expected);
+
+      Cipher decrypt = cipher(type, Cipher.DECRYPT_MODE, key, nonce);
+      decrypt.updateAAD(assoData);
+      Assertions.assertThat(decrypt.update(expected, 0, expected.length / 2)).isEmpty();
+      Assertions.assertThat(decrypt.doFinal(expected, expected.length / 2,
+          expected.length - expected.length / 2)).isEqualTo(message);
+      decrypt.updateAAD(assoData);
+      Assertions.assertThat(decrypt.doFinal(expected)).isEqualTo(message);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(SchwaemmType.class)
+  void byteBuffers(SchwaemmType type) throws GeneralSecurityException {
+    byte[] key = randomBytes(type.getKeySize());
+    byte[] nonce = randomBytes(type.getNonceSize());
+    byte[] message = randomBytes(5000 + random.nextInt(5000));
+    byte[] assoData = randomBytes(9);
+    byte[] expected = new byte[message.length + type.getTagBytes()];
+    new Schwaemm(type).encryptAndTag(message, expected, assoData, key, nonce);
+
+    Cipher encrypt = cipher(type, Cipher.ENCRYPT_MODE, key, nonce);
+    encrypt.updateAAD(ByteBuffer.allocateDirect(9).put(assoData).flip());
+    ByteBuffer source = ByteBuffer.allocateDirect(message.length).put(message).flip();
+    ByteBuffer sealed = ByteBuffer.allocateDirect(expected.length);
+    Assertions.assertThat(encrypt.doFinal(source, sealed)).isEqualTo(expected.length);
+    byte[] actual = new byte[expected.length];
+    sealed.flip().get(actual);
+    Assertions.assertThat(actual).isEqualTo(expected);
+
+    encrypt = cipher(type, Cipher.ENCRYPT_MODE, key, nonce);
+    encrypt.updateAAD(assoData);
+    source.rewind();
+    sealed.clear();
+    source.limit(1000);
+    encrypt.update(source, sealed);
+    source.limit(message.length);
+    encrypt.doFinal(source, sealed);
+    sealed.flip().get(actual);
+    Assertions.assertThat(actual).isEqualTo(expected);
+
+    Cipher decrypt = cipher(type, Cipher.DECRYPT_MODE, key, nonce);
+    decrypt.updateAAD(assoData);
+    ByteBuffer opened = ByteBuffer.allocateDirect(message.length);
+    Assertions.assertThat(decrypt.doFinal(sealed.flip(), opened)).isEqualTo(message.length);
+    byte[] decrypted = new byte[message.length];
+    opened.flip().get(decrypted);
+    Assertions.assertThat(decrypted).isEqualTo(message);
+  }
+
+  @ParameterizedTest
+  @EnumSource(SchwaemmType.class)
+  void inPlace(SchwaemmType type) throws GeneralSecurityException {
+    byte[] key = randomBytes(type.getKeySize());
+    byte[] nonce = randomBytes(type.getNonceSize());
+    byte[] message = randomBytes(100);
+    byte[] buffer = Arrays.copyOf(message, message.length + type.getTagBytes());
+    Cipher encrypt = cipher(type, Cipher.ENCRYPT_MODE, key, nonce);
+    int written = encrypt.update(buffer, 0, 37, buffer, 0);
+    encrypt.doFinal(buffer, 37, message.length - 37, buffer, written);
+    Cipher decrypt = cipher(type, Cipher.DECRYPT_MODE, key, nonce);
+    Assertions.assertThat(decrypt.doFinal(buffer, 0, buffer.length, buffer, 0))
+        .isEqualTo(message.length);
+    Assertions.assertThat(Arrays.copyOf(buffer, message.length)).isEqualTo(message);
+  }
+
+  @ParameterizedTest
+  @EnumSource(SchwaemmType.class)
+  void inPlaceAfterPendingUpdate(SchwaemmType type) throws GeneralSecurityException {
+    Schwaemm schwaemm = new Schwaemm(type);
+    byte[] key = randomBytes(type.getKeySize());
+    byte[] nonce = randomBytes(type.getNonceSize());
+    byte[] message = randomBytes(100);
+    byte[] expected = new byte[message.length + type.getTagBytes()];
+    schwaemm.encryptAndTag(message, expected, new byte[0], key, nonce);
+
+    Cipher encrypt = cipher(type, Cipher.ENCRYPT_MODE, key, nonce);
+    byte[] head = new byte[37 + type.getTagBytes()];
+    int written = encrypt.update(message, 0, 37, head, 0);
+    Assertions.assertThat(written).isLessThan(37);
+    byte[] buffer = Arrays.copyOf(Arrays.copyOfRange(message, 37, message.length),
+        expected.length - written);
+    int last = encrypt.doFinal(buffer, 0, message.length - 37, buffer, 0);
+    Assertions.assertThat(written + last).isEqualTo(expected.length);
+    byte[] cipher = Arrays.copyOf(head, expected.length);
+    System.arraycopy(buffer, 0, cipher, written, last);
+    Assertions.assertThat(cipher).isEqualTo(expected);
+  }
+
+  @ParameterizedTest
+  @EnumSource(SchwaemmType.class)
+  void rejectsForgeryAndNonceReuse(SchwaemmType type) throws GeneralSecurityException {
+    byte[] key = randomBytes(type.getKeySize());
+    Cipher encrypt = Cipher.getInstance("Schwaemm" + type.getType(), provider);
+    encrypt.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "Schwaemm"));
+    byte[] nonce = encrypt.getIV();
+    Assertions.assertThat(nonce).hasSize(type.getNonceSize());
+    byte[] sealed = encrypt.doFinal(randomBytes(20));
+    Assertions.assertThatThrownBy(() -> encrypt.doFinal(new byte[1]))
+        .isInstanceOf(IllegalStateException.class);
+
+    sealed[3] ^= 1;
+    Cipher decrypt = cipher(type, Cipher.DECRYPT_MODE, key, nonce);
+    Assertions.assertThatThrownBy(() -> decrypt.doFinal(sealed))
+        .isInstanceOf(AEADBadTagException.class);
+    Assertions.assertThatThrownBy(() -> decrypt.doFinal(new byte[1]))
+        .isInstanceOf(AEADBadTagException.class);
+  }
+}
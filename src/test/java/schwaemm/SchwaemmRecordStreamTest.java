@@ -0,0 +1,144 @@
+package schwaemm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the record streams by sending random messages through both of them and through the
+ * channels, which use the same format.
+ */
+public final class SchwaemmRecordStreamTest {
+
+  private static final Random random = new Random();
+  private static final SchwaemmType TYPE = SchwaemmType.S192192;
+  private static final int RECORD = 40;
+  private final Schwaemm schwaemm = new Schwaemm(TYPE);
+  private final SchwaemmKey key = new SchwaemmKey(TYPE, randomBytes(TYPE.getKeySize()));
+  private final byte[] nonce = randomBytes(SchwaemmSegmented.noncePrefixBytes(TYPE));
+  private final byte[] assoData = randomBytes(5);
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  private byte[] seal(byte[] message, boolean flush) throws IOException {
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    try (OutputStream out = new SchwaemmOutputStream(sink, schwaemm, key, nonce, assoData,
+        RECORD)) {
+      int position = 0;
+      while (position < message.length) {
+        int length = Math.min(random.nextInt(2 * RECORD) + 1, message.length - position);
+        if (length == 1) {
+          out.write(message[position]);
+        } else {
+          out.write(message, position, length);
+        }
+        if (flush) {
+          out.flush();
+        }
+        position += length;
+      }
+    }
+    return sink.toByteArray();
+  }
+
+  private byte[] open(byte[] sealed) throws IOException {
+    ByteArrayOutputStream message = new ByteArrayOutputStream();
+    try (InputStream in = new SchwaemmInputStream(new ByteArrayInputStream(sealed), schwaemm,
+        key, nonce, assoData, RECORD)) {
+      byte[] chunk = new byte[random.nextInt(2 * RECORD) + 1];
+      int read;
+      while ((read = in.read(chunk)) >= 0) {
+        message.write(chunk, 0, read);
+      }
+      Assertions.assertThat(in.read()).isEqualTo(-1);
+    }
+    return message.toByteArray();
+  }
+
+  @RepeatedTest(30)
+  void roundTrip() throws IOException {
+    byte[] message = randomBytes(random.nextInt(10 * RECORD));
+    Assertions.assertThat(open(seal(message, false))).isEqualTo(message);
+    Assertions.assertThat(open(seal(message, true))).isEqualTo(message);
+  }
+
+  @Test
+  void singleByteReads() throws IOException {
+    byte[] message = randomBytes(3 * RECORD + 1);
+    byte[] sealed = seal(message, false);
+    try (InputStream in = new SchwaemmInputStream(new ByteArrayInputStream(sealed), schwaemm,
+        key, nonce, assoData, RECORD)) {
+      for (byte b : message) {
+        Assertions.assertThat(in.read()).isEqualTo(b & 0xFF);
+      }
+      Assertions.assertThat(in.read()).isEqualTo(-1);
+    }
+  }
+
+  @Test
+  void matchesChannels() throws IOException {
+    byte[] message = randomBytes(5 * RECORD + 7);
+    byte[] sealed = seal(message, false);
+    ByteArrayOutputStream sink = new ByteArrayOutputStream();
+    try (SchwaemmWritableChannel channel = new SchwaemmWritableChannel(Channels.newChannel(sink),
+        schwaemm, key, nonce, assoData, RECORD)) {
+      channel.write(ByteBuffer.wrap(message));
+    }
+    Assertions.assertThat(sink.toByteArray()).isEqualTo(sealed);
+
+    ByteBuffer opened = ByteBuffer.allocate(message.length);
+    try (ReadableByteChannel channel = new SchwaemmReadableChannel(
+        Channels.newChannel(new ByteArrayInputStream(seal(message, true))), schwaemm, key, nonce,
+        assoData, RECORD)) {
+      while (channel.read(opened) >= 0) {
+        Assertions.assertThat(opened.position()).isLessThanOrEqualTo(message.length);
+      }
+    }
+    Assertions.assertThat(opened.array()).isEqualTo(message);
+  }
+
+  @Test
+  void cutAndForgedStreamsAreRejected() throws IOException {
+    byte[] sealed = seal(randomBytes(3 * RECORD + 10), false);
+    int recordBytes = 4 + RECORD + TYPE.getTagBytes();
+    Assertions.assertThatThrownBy(() -> open(Arrays.copyOf(sealed, 3 * recordBytes)))
+        .hasMessage("Could not verify tag!");
+    Assertions.assertThatThrownBy(() -> open(Arrays.copyOf(sealed, sealed.length - 1)))
+        .hasMessage("Could not verify tag!");
+    byte[] forged = sealed.clone();
+    forged[2 * recordBytes + 4] ^= 1;
+    Assertions.assertThatThrownBy(() -> open(forged)).hasMessage("Could not verify tag!");
+    byte[] swapped = sealed.clone();
+    System.arraycopy(sealed, 0, swapped, recordBytes, recordBytes);
+    System.arraycopy(sealed, recordBytes, swapped, 0, recordBytes);
+    Assertions.assertThatThrownBy(() -> open(swapped)).hasMessage("Could not verify tag!");
+  }
+
+  @Test
+  void readingOnAfterForgedRecordFails() throws IOException {
+    byte[] sealed = seal(randomBytes(3 * RECORD + 10), false);
+    int recordBytes = 4 + RECORD + TYPE.getTagBytes();
+    sealed[recordBytes + 10] ^= 1;
+    try (InputStream in = new SchwaemmInputStream(new ByteArrayInputStream(sealed), schwaemm,
+        key, nonce, assoData, RECORD)) {
+      Assertions.assertThat(in.read(new byte[RECORD])).isEqualTo(RECORD);
+      Assertions.assertThatThrownBy(() -> in.read(new byte[RECORD]))
+          .hasMessage("Could not verify tag!");
+      Assertions.assertThatThrownBy(in::read).hasMessage("Could not verify tag!");
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package schwaemm;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the segmented container against sealing every segment on its own.
+ */
+public final class SchwaemmSegmentedTest {
+
+  private static final Random random = new Random();
+  private static final SchwaemmType TYPE = SchwaemmType.S256128;
+  private static final int SEGMENT = 100;
+  private final SchwaemmSegmented segmented =
+      new SchwaemmSegmented(new Schwaemm(TYPE), SEGMENT, ForkJoinPool.commonPool());
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  @RepeatedTest(50)
+  void segmentsMatchSingleMessages() {
+    byte[] message = randomBytes(random.nextInt(10 * SEGMENT));
+    byte[] assoData = randomBytes(random.nextInt(20));
+    byte[] key = randomBytes(TYPE.getKeySize());
+    byte[] nonce = randomBytes(SchwaemmSegmented.noncePrefixBytes(TYPE));
+    byte[] cipher = segmented.encrypt(message, assoData, key, nonce);
+    Assertions.assertThat((long) cipher.length).isEqualTo(segmented.cipherLength(message.length));
+    Assertions.assertThat(segmented.messageLength(cipher.length)).isEqualTo(message.length);
+
+    Schwaemm schwaemm = new Schwaemm(TYPE);
+    int segments = (int) segmented.segmentCount(message.length);
+    int position = 0;
+    byte[] segmentNonce = new byte[TYPE.getNonceSize()];
+    for (int index = 0; index < segments; index++) {
+      byte[] part = Arrays.copyOfRange(message, index * SEGMENT,
+          Math.min(message.length, (index + 1) * SEGMENT));
+      byte[] sealed = new byte[part.length + TYPE.getTagBytes()];
+      SchwaemmSegmented.segmentNonce(nonce, index, index == segments - 1, segmentNonce);
+      schwaemm.encryptAndTag(part, sealed, assoData, key, segmentNonce);
+      Assertions.assertThat(Arrays.copyOfRange(cipher, position, position + sealed.length))
+          .isEqualTo(sealed);
+      position += sealed.length;
+    }
+    Assertions.assertThat(segmented.decrypt(cipher, assoData, key, nonce)).isEqualTo(message);
+  }
+
+  @Test
+  void exactMultipleAndEmpty() {
+    byte[] key = randomBytes(TYPE.getKeySize());
+    byte[] nonce = randomBytes(SchwaemmSegmented.noncePrefixBytes(TYPE));
+    for (int length : new int[]{0, 1, SEGMENT, 3 * SEGMENT}) {
+      byte[] message = randomBytes(length);
+      byte[] cipher = segmented.encrypt(message, new byte[0], key, nonce);
+      Assertions.assertThat(segmented.decrypt(cipher, new byte[0], key, nonce))
+          .isEqualTo(message);
+    }
+  }
+
+  @Test
+  void truncatedAndReorderedAreRejected() {
+    byte[] key = randomBytes(TYPE.getKeySize());
+    byte[] nonce = randomBytes(SchwaemmSegmented.noncePrefixBytes(TYPE));
+    byte[] message = randomBytes(3 * SEGMENT + 17);
+    byte[] cipher = segmented.encrypt(message, new byte[0], key, nonce);
+    int sealed = SEGMENT + TYPE.getTagBytes();
+    SchwaemmKey parsed = new SchwaemmKey(TYPE, key);
+
+    byte[] truncated = Arrays.copyOf(cipher, 3 * sealed);
+    byte[] buffer = new byte[3 * SEGMENT];
+    Assertions.assertThat(segmented.tryDecrypt(truncated, buffer, new byte[0], parsed, nonce))
+        .isEqualTo(-1);
+
+    byte[] swapped = cipher.clone();
+    System.arraycopy(cipher, 0, swapped, sealed, sealed);
+    System.arraycopy(cipher, sealed, swapped, 0, sealed);
+    buffer = new byte[message.length];
+    Assertions.assertThat(segmented.tryDecrypt(swapped, buffer, new byte[0], parsed, nonce))
+        .isEqualTo(-1);
+    Assertions.assertThat(buffer).isEqualTo(new byte[message.length]);
+
+    byte[] forged = cipher.clone();
+    forged[random.nextInt(forged.length)] ^= 1;
+    Assertions.assertThatThrownBy(() -> segmented.decrypt(forged, new byte[0], key, nonce))
+        .hasMessage("Could not verify tag!");
+  }
+
+  @Test
+  void segmentNoncesDoNotCollide() {
+    byte[] prefix = randomBytes(SchwaemmSegmented.noncePrefixBytes(TYPE));
+    byte[] other = prefix.clone();
+    other[0] ^= 1;
+    byte[] first = new byte[TYPE.getNonceSize()];
+    byte[] second = new byte[TYPE.getNonceSize()];
+    SchwaemmSegmented.segmentNonce(prefix, 1, false, first);
+    SchwaemmSegmented.segmentNonce(other, 0, false, second);
+    Assertions.assertThat(first).isNotEqualTo(second);
+    SchwaemmSegmented.segmentNonce(prefix, 0, true, second);
+    Assertions.assertThat(first).isNotEqualTo(second);
+    SchwaemmSegmented.segmentNonce(prefix, 1, true, second);
+    Assertions.assertThat(Arrays.copyOf(second, prefix.length)).isEqualTo(prefix);
+    Assertions.assertThat(Arrays.copyOf(first, first.length - 1))
+        .isEqualTo(Arrays.copyOf(second, second.length - 1));
+    Assertions.assertThat(first[first.length - 1]).isEqualTo((byte) 0);
+    Assertions.assertThat(second[second.length - 1]).isEqualTo((byte) 1);
+  }
+
+  @Test
+  void rejectsInvalidNonces() {
+    byte[] full = randomBytes(TYPE.getNonceSize());
+    Assertions.assertThatThrownBy(() -> segmented.encrypt(new byte[1], new byte[0],
+            randomBytes(TYPE.getKeySize()), full))
+        .isInstanceOf(IllegalArgumentException.class);
+    byte[] prefix = randomBytes(SchwaemmSegmented.noncePrefixBytes(TYPE));
+    Assertions.assertThatThrownBy(() -> SchwaemmSegmented.segmentNonce(prefix,
+            SchwaemmSegmented.MAX_SEGMENTS, true, full))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
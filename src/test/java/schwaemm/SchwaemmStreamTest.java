@@ -0,0 +1,87 @@
+package schwaemm;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Test the streaming encryptor and decryptor against the one-shot schwaemm.Schwaemm.
+ */
+public final class SchwaemmStreamTest {
+
+  private static final Random random = new Random();
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  @ParameterizedTest
+  @EnumSource(SchwaemmType.class)
+  void streamingMatchesOneShot(SchwaemmType type) {
+    Schwaemm schwaemm = new Schwaemm(type);
+    for (int run = 0; run < 200; run++) {
+      byte[] key = randomBytes(type.getKeySize());
+      byte[] nonce = randomBytes(type.getNonceSize());
+      byte[] associate = randomBytes(random.nextInt(100));
+      byte[] message = randomBytes(random.nextInt(200));
+      byte[] expected = new byte[message.length + type.getTagBytes()];
+      schwaemm.encryptAndTag(message, expected, associate, key, nonce);
+
+      SchwaemmEncryptor encryptor = schwaemm.encryptor(key, nonce);
+      feedAssociatedData(encryptor, associate);
+      byte[] cipher = new byte[expected.length];
+      int written = 0;
+      for (int offset = 0; offset < message.length; ) {
+        int chunk = Math.min(random.nextInt(40), message.length - offset);
+        Assertions.assertThat(encryptor.updateOutputSize(chunk))
+            .isLessThanOrEqualTo(cipher.length - written);
+        written += encryptor.update(message, offset, chunk, cipher, written);
+        offset += chunk;
+      }
+      written += encryptor.doFinal(cipher, written);
+      Assertions.assertThat(Arrays.copyOf(cipher, written)).isEqualTo(expected);
+
+      SchwaemmDecryptor decryptor = schwaemm.decryptor(key, nonce);
+      feedAssociatedData(decryptor, associate);
+      byte[] decrypted = new byte[message.length + 64];
+      written = 0;
+      for (int offset = 0; offset < expected.length; ) {
+        int chunk = Math.min(random.nextInt(40), expected.length - offset);
+        written += decryptor.update(expected, offset, chunk, decrypted, written);
+        offset += chunk;
+      }
+      written += decryptor.doFinal(decrypted, written);
+      Assertions.assertThat(Arrays.copyOf(decrypted, written)).isEqualTo(message);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(SchwaemmType.class)
+  void tamperedCipherIsRejected(SchwaemmType type) {
+    Schwaemm schwaemm = new Schwaemm(type);
+    byte[] key = randomBytes(type.getKeySize());
+    byte[] nonce = randomBytes(type.getNonceSize());
+    byte[] message = randomBytes(random.nextInt(100) + 1);
+    byte[] cipher = new byte[message.length + type.getTagBytes()];
+    schwaemm.encryptAndTag(message, cipher, new byte[0], key, nonce);
+    cipher[random.nextInt(cipher.length)] ^= 1;
+
+    SchwaemmDecryptor decryptor = schwaemm.decryptor(key, nonce);
+    byte[] decrypted = new byte[cipher.length];
+    int written = decryptor.update(cipher, 0, cipher.length, decrypted, 0);
+    Assertions.assertThatThrownBy(() -> decryptor.doFinal(decrypted, written))
+        .hasMessage("Could not verify tag!");
+  }
+
+  private static void feedAssociatedData(SchwaemmStream stream, byte[] associate) {
+    for (int offset = 0; offset < associate.length; ) {
+      int chunk = Math.min(random.nextInt(40), associate.length - offset);
+      stream.updateAAD(associate, offset, chunk);
+      offset += chunk;
+    }
+  }
+}
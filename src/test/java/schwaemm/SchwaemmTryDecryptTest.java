@@ -0,0 +1,92 @@
+package schwaemm;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.RepeatedTest;
+import sparkle.MaskedSparkleFirstOrder;
+
+/**
+ * Test that the non-throwing decryption accepts genuine ciphers and rejects forged ones with -1
+ * and a zeroed message.
+ */
+public final class SchwaemmTryDecryptTest {
+
+  private static final Random random = new Random();
+  private static final SchwaemmType TYPE = SchwaemmType.S192192;
+  private final Schwaemm schwaemm = new Schwaemm(TYPE);
+
+  private static void forge(byte[] cipher) {
+    cipher[random.nextInt(cipher.length)] ^= 1 << random.nextInt(8);
+  }
+
+  @RepeatedTest(50)
+  void tryDecryptArrays() {
+    SchwaemmHelper data = SchwaemmHelper.prepareTest(TYPE, 0, 100);
+    schwaemm.encryptAndTag(data.message(), data.cipherJava(), data.associate(), data.key(),
+        data.nonce());
+    byte[] message = new byte[data.message().length];
+    Assertions.assertThat(schwaemm.tryDecrypt(data.cipherJava(), message, data.associate(),
+        data.key(), data.nonce())).isEqualTo(data.message().length);
+    Assertions.assertThat(message).isEqualTo(data.message());
+
+    forge(data.cipherJava());
+    Assertions.assertThat(schwaemm.tryDecrypt(data.cipherJava(), message, data.associate(),
+        data.key(), data.nonce())).isEqualTo(-1);
+    Assertions.assertThat(message).isEqualTo(new byte[message.length]);
+    Assertions.assertThatThrownBy(() -> schwaemm.decryptAndVerify(data.cipherJava(),
+        data.associate(), data.key(), data.nonce())).hasMessage("Could not verify tag!");
+  }
+
+  @RepeatedTest(20)
+  void tryDecryptByteBuffer() {
+    SchwaemmHelper data = SchwaemmHelper.prepareTest(TYPE, 0, 100);
+    schwaemm.encryptAndTag(data.message(), data.cipherJava(), data.associate(), data.key(),
+        data.nonce());
+    forge(data.cipherJava());
+    ByteBuffer src = ByteBuffer.wrap(data.cipherJava());
+    ByteBuffer dst = ByteBuffer.allocate(data.message().length);
+    Assertions.assertThat(schwaemm.tryDecrypt(src, dst, ByteBuffer.wrap(data.associate()),
+        data.key(), data.nonce())).isEqualTo(-1);
+    Assertions.assertThat(src.position()).isZero();
+    Assertions.assertThat(dst.array()).isEqualTo(new byte[data.message().length]);
+  }
+
+  @RepeatedTest(20)
+  void tryDoFinal() {
+    SchwaemmHelper data = SchwaemmHelper.prepareTest(TYPE, 0, 100);
+    schwaemm.encryptAndTag(data.message(), data.cipherJava(), data.associate(), data.key(),
+        data.nonce());
+    forge(data.cipherJava());
+    SchwaemmDecryptor decryptor = schwaemm.decryptor(data.key(), data.nonce());
+    decryptor.updateAAD(data.associate());
+    byte[] message = new byte[data.message().length + schwaemm.rateBytes()];
+    int written = decryptor.update(data.cipherJava(), 0, data.cipherJava().length, message, 0);
+    Arrays.fill(message, written, message.length, (byte) 0x55);
+    Assertions.assertThat(decryptor.tryDoFinal(message, written)).isEqualTo(-1);
+    Assertions.assertThat(Arrays.copyOfRange(message, written, data.message().length))
+        .isEqualTo(new byte[data.message().length - written]);
+  }
+
+  @RepeatedTest(20)
+  void tryDecryptMasked() {
+    SchwaemmType type = SchwaemmType.S128128;
+    SchwaemmMasked schwaemmMasked = new SchwaemmMasked(type, new MaskedSparkleFirstOrder());
+    SchwaemmHelper data = SchwaemmHelper.prepareTest(type, 1);
+    SchwaemmHelper.MaskedData maskedData = SchwaemmHelper.convertDataFirstOrder(data);
+    schwaemmMasked.encryptAndTag(maskedData.message(), maskedData.cipher(), maskedData.associate(),
+        maskedData.key(), maskedData.nonce());
+    byte[][] message = new byte[2][data.message().length];
+    Assertions.assertThat(schwaemmMasked.tryDecrypt(maskedData.cipher(), message,
+        maskedData.associate(), maskedData.key(), maskedData.nonce()))
+        .isEqualTo(data.message().length);
+    Assertions.assertThat(SchwaemmHelper.recoverByteArrays(message)).isEqualTo(data.message());
+
+    forge(maskedData.cipher()[0]);
+    Assertions.assertThat(schwaemmMasked.tryDecrypt(maskedData.cipher(), message,
+        maskedData.associate(), maskedData.key(), maskedData.nonce())).isEqualTo(-1);
+    Assertions.assertThat(message[0]).isEqualTo(new byte[data.message().length]);
+    Assertions.assertThat(message[1]).isEqualTo(new byte[data.message().length]);
+  }
+}
@@ -3,6 +3,7 @@ package sparkle;
 import java.util.Random;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
 
 public final class BooleanAdditionTest {
 
@@ -51,4 +52,37 @@ public final class BooleanAdditionTest {
 
         Assertions.assertThat(realZ).isEqualTo(realResult);
     }
+
+    @Test
+    void workspaceGadgetsForAnyShareCount(){
+        Random random = new Random();
+        MaskRandomness masks = MaskRandomness.deterministic(random.nextLong());
+        for (int n = 1; n <= 7; n++) {
+            BooleanAddition.Workspace workspace = new BooleanAddition.Workspace(n);
+            for (int run = 0; run < 20; run++) {
+                int[] x = random.ints(n).toArray();
+                int[] y = random.ints(n).toArray();
+                int realX = xor(x);
+                int realY = xor(y);
+
+                int[] z = new int[n];
+                BooleanAddition.secureBooleanAnd(x, y, z, workspace, masks);
+                Assertions.assertThat(xor(z)).isEqualTo(realX & realY);
+
+                BooleanAddition.secureBooleanAdditionGoubin(x, y, x, workspace, masks);
+                Assertions.assertThat(xor(x)).isEqualTo(realX + realY);
+            }
+        }
+        Assertions.assertThatThrownBy(() -> BooleanAddition.secureBooleanAnd(new int[3],
+                new int[3], new int[3], new BooleanAddition.Workspace(2), masks))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static int xor(int[] shares){
+        int result = 0;
+        for (int share : shares) {
+            result ^= share;
+        }
+        return result;
+    }
 }
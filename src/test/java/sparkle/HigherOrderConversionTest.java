@@ -0,0 +1,77 @@
+package sparkle;
+
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class HigherOrderConversionTest {
+
+  private static final Random random = new Random();
+
+  @Test
+  void arithmeticToBoolean() {
+    for (int n = 1; n <= 9; n++) {
+      HigherOrderConversion conversion = new HigherOrderConversion(n, MaskRandomness.threadLocal());
+      for (int run = 0; run < 20; run++) {
+        int[] a = random.ints(n).toArray();
+        int[] b = new int[n];
+        conversion.arithmeticToBoolean(a, b);
+        Assertions.assertThat(xor(b)).isEqualTo(sum(a));
+        conversion.arithmeticToBoolean(a, a);
+        Assertions.assertThat(xor(a)).isEqualTo(xor(b));
+      }
+    }
+  }
+
+  @Test
+  void booleanToArithmetic() {
+    for (int n = 1; n <= 9; n++) {
+      HigherOrderConversion conversion = new HigherOrderConversion(n, MaskRandomness.threadLocal());
+      for (int run = 0; run < 20; run++) {
+        int[] b = random.ints(n).toArray();
+        int[] a = new int[n];
+        conversion.booleanToArithmetic(b, a);
+        Assertions.assertThat(sum(a)).isEqualTo(xor(b));
+        int value = xor(b);
+        conversion.booleanToArithmetic(b, b);
+        Assertions.assertThat(sum(b)).isEqualTo(value);
+      }
+    }
+  }
+
+  @Test
+  void add() {
+    for (int n = 1; n <= 9; n++) {
+      HigherOrderConversion conversion = new HigherOrderConversion(n, MaskRandomness.threadLocal());
+      for (int run = 0; run < 20; run++) {
+        int[] x = random.ints(n).toArray();
+        int[] y = random.ints(n).toArray();
+        int expected = xor(x) + xor(y);
+        conversion.add(x, y, x);
+        Assertions.assertThat(xor(x)).isEqualTo(expected);
+      }
+    }
+  }
+
+  @Test
+  void rejectsZeroShares() {
+    Assertions.assertThatThrownBy(() -> new HigherOrderConversion(0, MaskRandomness.threadLocal()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static int xor(int[] shares) {
+    int result = 0;
+    for (int share : shares) {
+      result ^= share;
+    }
+    return result;
+  }
+
+  private static int sum(int[] shares) {
+    int result = 0;
+    for (int share : shares) {
+      result += share;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,98 @@
+package sparkle;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MaskRandomnessTest {
+
+  private static final Random random = new Random();
+
+  @Test
+  void deterministicIsReproducible() {
+    MaskRandomness first = MaskRandomness.deterministic(42);
+    MaskRandomness second = MaskRandomness.deterministic(42);
+    int[] bulk = new int[3000];
+    second.nextMasks(bulk, 0, 1000);
+    second.nextMasks(bulk, 1000, 2000);
+    for (int mask : bulk) {
+      Assertions.assertThat(first.nextMask()).isEqualTo(mask);
+    }
+    Assertions.assertThat(MaskRandomness.deterministic(43).nextMask())
+        .isNotEqualTo(MaskRandomness.deterministic(42).nextMask());
+  }
+
+  @Test
+  void bulkUsesWholeWords() {
+    BulkMaskRandomness masks = new BulkMaskRandomness(new SecureRandom(), 16);
+    int or = 0;
+    int and = -1;
+    for (int i = 0; i < 1000; i++) {
+      int mask = masks.nextMask();
+      or |= mask;
+      and &= mask;
+    }
+    Assertions.assertThat(or).isEqualTo(-1);
+    Assertions.assertThat(and).isEqualTo(0);
+  }
+
+  @Test
+  void enginesMaskWithInjectedRandomness() {
+    List<MaskedSparkle> engines = List.of(
+        new MaskedSparkleFirstOrder(MaskRandomness.deterministic(1)),
+        new MaskedSparkleGoubin(MaskRandomness.deterministic(2)),
+        new MaskedSparkleKoggeStone(MaskRandomness.deterministic(3)));
+    for (MaskedSparkle engine : engines) {
+      int[] state = random.ints(12).toArray();
+      int[][] shares = MaskedSparkleFirstOrderTest.generateRandomMaskedState(state.clone());
+      engine.sparkle384(shares);
+      Sparkle.sparkle384(state);
+      Assertions.assertThat(MaskedSparkleFirstOrderTest.recoverState(shares)).isEqualTo(state);
+    }
+    int[] state = random.ints(8).toArray();
+    int[][] shares = MaskedSparkleFirstOrderTest.generateRandomMaskedState(state.clone(), 3);
+    new MaskedSparkleHigherOrder(MaskRandomness.deterministic(4)).sparkle256Slim(shares);
+    Sparkle.sparkle256Slim(state);
+    Assertions.assertThat(MaskedSparkleFirstOrderTest.recoverState(shares)).isEqualTo(state);
+  }
+
+  @Test
+  void sharedEngineAcrossThreads() throws Exception {
+    MaskedSparkle engine = new MaskedSparkleFirstOrder();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        results.add(executor.submit(() -> {
+          Random local = new Random();
+          for (int i = 0; i < 20; i++) {
+            int[] state = local.ints(16).toArray();
+            int[][] shares = new int[2][16];
+            for (int j = 0; j < 16; j++) {
+              shares[1][j] = local.nextInt();
+              shares[0][j] = state[j] ^ shares[1][j];
+            }
+            engine.sparkle512Slim(shares);
+            Sparkle.sparkle512Slim(state);
+            if (!java.util.Arrays.equals(MaskedSparkleFirstOrderTest.recoverState(shares),
+                state)) {
+              return false;
+            }
+          }
+          return true;
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        Assertions.assertThat(result.get()).isTrue();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
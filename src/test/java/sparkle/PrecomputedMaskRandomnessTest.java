@@ -0,0 +1,112 @@
+package sparkle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PrecomputedMaskRandomnessTest {
+
+  private static final Random random = new Random();
+
+  @Test
+  void masksUseWholeWords() {
+    try (PrecomputedMaskRandomness masks = new PrecomputedMaskRandomness(1, 64, 16)) {
+      int or = 0;
+      int and = -1;
+      int[] bulk = new int[100];
+      for (int i = 0; i < 1000; i++) {
+        int mask = masks.nextMask();
+        or |= mask;
+        and &= mask;
+      }
+      masks.nextMasks(bulk, 0, bulk.length);
+      for (int mask : bulk) {
+        or |= mask;
+        and &= mask;
+      }
+      Assertions.assertThat(or).isEqualTo(-1);
+      Assertions.assertThat(and).isEqualTo(0);
+    }
+  }
+
+  @Test
+  void ringIsFilledInBackground() throws InterruptedException {
+    try (PrecomputedMaskRandomness masks = new PrecomputedMaskRandomness(1, 1024, 256)) {
+      masks.nextMask();
+      long inline = masks.inlineMasks();
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (masks.bufferedMasks() < 1000 && System.nanoTime() < deadline) {
+        Thread.sleep(1);
+      }
+      Assertions.assertThat(masks.bufferedMasks()).isGreaterThanOrEqualTo(1000);
+      int[] bulk = new int[1000];
+      masks.nextMasks(bulk, 0, bulk.length);
+      Assertions.assertThat(masks.inlineMasks()).isEqualTo(inline);
+    }
+  }
+
+  @Test
+  void fallsBackInlineWhenDry() {
+    PrecomputedMaskRandomness masks = new PrecomputedMaskRandomness(1, 16, 4);
+    masks.close();
+    int[] bulk = new int[1000];
+    masks.nextMasks(bulk, 0, bulk.length);
+    Assertions.assertThat(masks.inlineMasks()).isGreaterThanOrEqualTo(1000 - 16);
+    Assertions.assertThat(bulk).doesNotHaveDuplicates();
+  }
+
+  @Test
+  void enginesShareAcrossThreads() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try (PrecomputedMaskRandomness masks = new PrecomputedMaskRandomness(2, 256, 64)) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        futures.add(executor.submit(() -> {
+          MaskedSparkle engine = new MaskedSparkleGoubin(masks);
+          for (int i = 0; i < 20; i++) {
+            int[] state = random.ints(12).toArray();
+            int[][] shares = MaskedSparkleFirstOrderTest.generateRandomMaskedState(state.clone());
+            engine.sparkle384(shares);
+            Sparkle.sparkle384(state);
+            Assertions.assertThat(MaskedSparkleFirstOrderTest.recoverState(shares))
+                .isEqualTo(state);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void booleanEngineUsesInjectedRandomness() {
+    try (PrecomputedMaskRandomness masks = new PrecomputedMaskRandomness()) {
+      MaskedSparkleBooleanTest.HigherOrderStateShares shares =
+          MaskedSparkleBooleanTest.HigherOrderStateShares.generateStateShares(3);
+      Sparkle.sparkle256Slim(shares.state());
+      new MaskedSparkleBoolean(masks).sparkle256Slim(shares.stateShares());
+      Assertions.assertThat(
+              MaskedSparkleBooleanTest.HigherOrderStateShares.recoverState(shares.stateShares()))
+          .isEqualTo(shares.state());
+    }
+  }
+
+  @Test
+  void rejectsInvalidConfiguration() {
+    Assertions.assertThatThrownBy(() -> new PrecomputedMaskRandomness(0, 16, 4))
+        .isInstanceOf(IllegalArgumentException.class);
+    Assertions.assertThatThrownBy(() -> new PrecomputedMaskRandomness(1, 24, 4))
+        .isInstanceOf(IllegalArgumentException.class);
+    Assertions.assertThatThrownBy(() -> new PrecomputedMaskRandomness(1, 16, 16))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,86 @@
+package sparkle;
+
+import java.util.Random;
+import java.util.function.Consumer;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the batched permutation against the single state implementation.
+ */
+public final class SparkleBatchTest {
+
+  private static final Random random = new Random();
+
+  interface BatchPermutation {
+
+    void permute(int[] states, int count);
+  }
+
+  private static void checkBatch(int words, int count, BatchPermutation batch,
+      Consumer<int[]> single) {
+    int[][] expected = new int[count][words];
+    int[] states = new int[words * count];
+    for (int s = 0; s < count; s++) {
+      for (int w = 0; w < words; w++) {
+        expected[s][w] = random.nextInt();
+      }
+      SparkleBatch.setState(expected[s], states, count, s);
+    }
+    batch.permute(states, count);
+    int[] actual = new int[words];
+    for (int s = 0; s < count; s++) {
+      single.accept(expected[s]);
+      SparkleBatch.getState(states, count, s, actual);
+      Assertions.assertThat(actual).isEqualTo(expected[s]);
+    }
+  }
+
+  private static int randomCount() {
+    return random.nextInt(3 * Math.max(SparkleBatch.lanes(), 4)) + 1;
+  }
+
+  @Test
+  void vectorAvailableTest() {
+    Assertions.assertThat(SparkleBatch.lanes()).isGreaterThanOrEqualTo(1);
+    Assertions.assertThat(SparkleBatch.isVectorized()).isEqualTo(SparkleBatch.lanes() > 1);
+  }
+
+  @RepeatedTest(10)
+  void sparkle256BatchTest() {
+    checkBatch(8, randomCount(), SparkleBatch::sparkle256, Sparkle::sparkle256);
+  }
+
+  @RepeatedTest(10)
+  void sparkle256SlimBatchTest() {
+    checkBatch(8, randomCount(), SparkleBatch::sparkle256Slim, Sparkle::sparkle256Slim);
+  }
+
+  @RepeatedTest(10)
+  void sparkle384BatchTest() {
+    checkBatch(12, randomCount(), SparkleBatch::sparkle384, Sparkle::sparkle384);
+  }
+
+  @RepeatedTest(10)
+  void sparkle384SlimBatchTest() {
+    checkBatch(12, randomCount(), SparkleBatch::sparkle384Slim, Sparkle::sparkle384Slim);
+  }
+
+  @RepeatedTest(10)
+  void sparkle512BatchTest() {
+    checkBatch(16, randomCount(), SparkleBatch::sparkle512, Sparkle::sparkle512);
+  }
+
+  @RepeatedTest(10)
+  void sparkle512SlimBatchTest() {
+    checkBatch(16, randomCount(), SparkleBatch::sparkle512Slim, Sparkle::sparkle512Slim);
+  }
+
+  @RepeatedTest(5)
+  void scalarFallbackTest() {
+    checkBatch(12, randomCount(),
+        (states, count) -> SparkleBatch.permuteScalar(states, count, 0, 6, Sparkle::sparkle384),
+        Sparkle::sparkle384);
+  }
+}
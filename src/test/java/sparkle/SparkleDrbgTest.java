@@ -0,0 +1,98 @@
+package sparkle;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Random;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SparkleDrbgTest {
+
+  private static final Random random = new Random();
+
+  @Test
+  void fixedSeedIsReproducible() {
+    byte[] seed = new byte[32];
+    random.nextBytes(seed);
+    SparkleDrbg first = new SparkleDrbg(seed);
+    SparkleDrbg second = new SparkleDrbg(seed);
+    int[] expected = new int[100];
+    int[] actual = new int[100];
+    first.nextInts(expected, 0, 100);
+    second.nextInts(actual, 0, 100);
+    Assertions.assertThat(actual).isEqualTo(expected);
+    first.nextInts(expected, 0, 100);
+    Assertions.assertThat(expected).isNotEqualTo(actual);
+
+    seed[0] ^= 1;
+    new SparkleDrbg(seed).nextInts(expected, 0, 100);
+    Assertions.assertThat(expected).isNotEqualTo(actual);
+    Assertions.assertThat(new SparkleDrbg(new byte[1]).nextMask())
+        .isNotEqualTo(new SparkleDrbg(new byte[0]).nextMask());
+  }
+
+  @Test
+  void masksUseWholeWords() {
+    SparkleDrbg drbg = new SparkleDrbg(new SecureRandom());
+    int or = 0;
+    int and = -1;
+    for (int i = 0; i < 1000; i++) {
+      int mask = drbg.nextMask();
+      or |= mask;
+      and &= mask;
+    }
+    Assertions.assertThat(or).isEqualTo(-1);
+    Assertions.assertThat(and).isEqualTo(0);
+  }
+
+  @Test
+  void nextMasksContinuesAfterSingleMasks() {
+    byte[] seed = new byte[32];
+    random.nextBytes(seed);
+    SparkleDrbg drbg = new SparkleDrbg(seed);
+    int[] masks = new int[50];
+    masks[0] = drbg.nextMask();
+    masks[1] = drbg.nextMask();
+    drbg.nextMasks(masks, 2, 48);
+    Assertions.assertThat(Arrays.stream(masks).distinct().count()).isEqualTo(50);
+  }
+
+  @Test
+  void nextBytesFillsEveryByte() {
+    SparkleDrbg drbg = SparkleDrbg.current();
+    byte[] nonce = new byte[37];
+    int[] or = new int[nonce.length];
+    for (int i = 0; i < 100; i++) {
+      drbg.nextBytes(nonce);
+      for (int k = 0; k < nonce.length; k++) {
+        or[k] |= nonce[k] & 0xFF;
+      }
+    }
+    Assertions.assertThat(or).containsOnly(0xFF);
+  }
+
+  @Test
+  void fixedSeedCannotReseed() {
+    SparkleDrbg drbg = new SparkleDrbg(new byte[32]);
+    Assertions.assertThatThrownBy(drbg::reseed).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void reseedChangesOutput() {
+    byte[] seed = new byte[32];
+    random.nextBytes(seed);
+    SparkleDrbg first = new SparkleDrbg(seed);
+    SparkleDrbg second = new SparkleDrbg(seed);
+    second.absorb(new byte[] {1});
+    Assertions.assertThat(second.nextMask()).isNotEqualTo(first.nextMask());
+  }
+
+  @Test
+  void enginesMaskWithDrbg() {
+    int[] state = random.ints(12).toArray();
+    int[][] shares = MaskedSparkleFirstOrderTest.generateRandomMaskedState(state.clone());
+    new MaskedSparkleGoubin(new SparkleDrbg()).sparkle384(shares);
+    Sparkle.sparkle384(state);
+    Assertions.assertThat(MaskedSparkleFirstOrderTest.recoverState(shares)).isEqualTo(state);
+  }
+}
@@ -0,0 +1,97 @@
+package sparkle;
+
+import java.util.List;
+import java.util.function.Consumer;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test every available permutation backend with C implementation of sparkle.
+ */
+public final class SparklePermutationsTest {
+
+  @Test
+  void allBackendsAvailableTest() {
+    List<String> names = SparklePermutations.available().stream().map(SparklePermutation::name)
+        .toList();
+    Assertions.assertThat(names).contains(UnrolledSparklePermutation.NAME,
+        ReferenceSparklePermutation.NAME, VectorSparklePermutation.NAME);
+  }
+
+  @Test
+  void selectedBackendPassesSelfTest() {
+    Assertions.assertThat(SparklePermutations.selfTest(SparklePermutations.get())).isTrue();
+  }
+
+  @Test
+  void overrideTest() {
+    Assertions.assertThat(SparklePermutations.select(ReferenceSparklePermutation.NAME).name())
+        .isEqualTo(ReferenceSparklePermutation.NAME);
+    Assertions.assertThatThrownBy(() -> SparklePermutations.select("unknown"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void brokenBackendFailsSelfTest() {
+    SparklePermutation broken = new SparklePermutation() {
+      private final SparklePermutation unrolled = new UnrolledSparklePermutation();
+
+      @Override
+      public String name() {
+        return "broken";
+      }
+
+      @Override
+      public void sparkle256(int[] state) {
+        unrolled.sparkle256(state);
+      }
+
+      @Override
+      public void sparkle256Slim(int[] state) {
+        unrolled.sparkle256Slim(state);
+      }
+
+      @Override
+      public void sparkle384(int[] state) {
+        unrolled.sparkle384(state);
+      }
+
+      @Override
+      public void sparkle384Slim(int[] state) {
+        unrolled.sparkle384Slim(state);
+        state[0] ^= 1;
+      }
+
+      @Override
+      public void sparkle512(int[] state) {
+        unrolled.sparkle512(state);
+      }
+
+      @Override
+      public void sparkle512Slim(int[] state) {
+        unrolled.sparkle512Slim(state);
+      }
+    };
+    Assertions.assertThat(SparklePermutations.selfTest(broken)).isFalse();
+  }
+
+  @RepeatedTest(10)
+  void backendsMatchC() {
+    for (SparklePermutation permutation : SparklePermutations.available()) {
+      checkC(4, 10, permutation::sparkle256);
+      checkC(4, 7, permutation::sparkle256Slim);
+      checkC(6, 11, permutation::sparkle384);
+      checkC(6, 7, permutation::sparkle384Slim);
+      checkC(8, 12, permutation::sparkle512);
+      checkC(8, 8, permutation::sparkle512Slim);
+    }
+  }
+
+  private static void checkC(int brans, int steps, Consumer<int[]> variant) {
+    SparkleTest.RandomState states = SparkleTest.RandomState.generateRandomState();
+    SparkleLib.sparkleC(states.stateC(), brans, steps);
+    variant.accept(states.stateJava());
+    Assertions.assertThat(states.stateJava()).isEqualTo(states.stateC());
+  }
+}
@@ -57,6 +57,24 @@ public final class SparkleTest {
     Assertions.assertThat(states.stateC).isEqualTo(states.stateJava);
   }
 
+  @RepeatedTest(10)
+  void unrolledMatchesGenericTest() {
+    int[][] variants = {{4, 10}, {4, 7}, {6, 11}, {6, 7}, {8, 12}, {8, 8}};
+    for (int[] variant : variants) {
+      RandomState states = RandomState.generateRandomState();
+      Sparkle.sparkle(states.stateC, variant[0], variant[1]);
+      switch (variant[0] * 100 + variant[1]) {
+        case 410 -> Sparkle.sparkle256(states.stateJava);
+        case 407 -> Sparkle.sparkle256Slim(states.stateJava);
+        case 611 -> Sparkle.sparkle384(states.stateJava);
+        case 607 -> Sparkle.sparkle384Slim(states.stateJava);
+        case 812 -> Sparkle.sparkle512(states.stateJava);
+        default -> Sparkle.sparkle512Slim(states.stateJava);
+      }
+      Assertions.assertThat(states.stateC).isEqualTo(states.stateJava);
+    }
+  }
+
   record RandomState(int[] stateC, int[] stateJava) {
     static RandomState generateRandomState() {
       Random random = new Random();